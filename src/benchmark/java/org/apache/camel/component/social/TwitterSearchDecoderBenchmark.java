@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.component.social.providers.twitter.TwitterSearchJsonDecoder;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the streaming search decoder with the former tree based one
+ * (<code>ObjectMapper.readTree</code> + <code>JsonNode.toString()</code>) on
+ * the <code>search.json</code> fixture.
+ * 
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.apache.camel.component.social.TwitterSearchDecoderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TwitterSearchDecoderBenchmark {
+
+	private String body;
+	private byte[] data;
+	private TwitterSearchJsonDecoder decoder;
+
+	@Setup
+	public void setUp() throws Exception {
+		File file = new File("search.json");
+		data = new byte[(int) file.length()];
+		FileInputStream in = new FileInputStream(file);
+		try {
+			int read = 0;
+			while (read < data.length) {
+				read += in.read(data, read, data.length - read);
+			}
+		} finally {
+			in.close();
+		}
+		body = new String(data, "UTF-8");
+		decoder = new TwitterSearchJsonDecoder();
+	}
+
+	@Benchmark
+	public List<SocialData> treeDecoder() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode rootNode = mapper.readTree(body).get("results");
+
+		List<SocialData> socialDataList = new ArrayList<SocialData>(rootNode.size());
+		Iterator<JsonNode> ijn = rootNode.getElements();
+		while (ijn.hasNext()) {
+			JsonNode aNode = ijn.next();
+			String id = aNode.get("id_str").getTextValue();
+			socialDataList.add(new DefaultSocialData(id, aNode.toString()));
+		}
+		return socialDataList;
+	}
+
+	@Benchmark
+	public List<SocialData> streamingDecoder() throws Exception {
+		byte[] bytes = body.getBytes("UTF-8");
+		return decoder.decode(bytes, 0, bytes.length);
+	}
+
+	@Benchmark
+	public List<SocialData> streamingDecoderFromBytes() throws Exception {
+		return decoder.decode(data, 0, data.length);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(TwitterSearchDecoderBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
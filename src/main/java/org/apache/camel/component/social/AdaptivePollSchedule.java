@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import org.apache.camel.component.social.path.RateLimitStatus;
+
+/**
+ * Poll interval and page size of a path, adapted after every poll. Full pages
+ * tighten the interval and grow the page, empty ones back off and shrink it.
+ * When the provider reports its rate limit the interval never spends the
+ * remaining calls faster than evenly up to the reset time.
+ */
+public class AdaptivePollSchedule {
+
+	private final long minDelay;
+	private final long maxDelay;
+	private final int minPageSize;
+	private final int maxPageSize;
+
+	private long delay;
+	private int pageSize;
+	private long nextPollTime;
+
+	public AdaptivePollSchedule(long initialDelay, long minDelay, long maxDelay,
+			int pageSize, int maxPageSize) {
+		this.minDelay = minDelay;
+		this.maxDelay = Math.max(minDelay, maxDelay);
+		this.maxPageSize = Math.max(1, maxPageSize);
+		this.minPageSize = Math.min(this.maxPageSize, Math.max(1, pageSize / 4));
+		this.delay = clamp(initialDelay);
+		this.pageSize = Math.min(this.maxPageSize, Math.max(1, pageSize));
+	}
+
+	public synchronized boolean isDue(long now) {
+		return now >= nextPollTime;
+	}
+
+	/**
+	 * Adapts to the outcome of a poll started at <code>now</code>.
+	 * 
+	 * @param items
+	 *            the number of items the poll returned
+	 * @param status
+	 *            the rate limit reported with it, may be <code>null</code>
+	 */
+	public synchronized void update(int items, RateLimitStatus status, long now) {
+		if (items >= pageSize) {
+			delay = clamp(delay / 2);
+			pageSize = Math.min(maxPageSize, pageSize * 2);
+		} else if (items == 0) {
+			delay = clamp(delay * 2);
+			pageSize = Math.max(minPageSize, pageSize / 2);
+		}
+
+		long wait = delay;
+		if (status != null && status.getResetTime() > now) {
+			long window = status.getResetTime() - now;
+			if (status.getRemaining() <= 0) {
+				wait = window;
+			} else {
+				wait = Math.max(wait, window / status.getRemaining());
+			}
+		}
+		nextPollTime = now + wait;
+	}
+
+	/**
+	 * Postpones the next poll, e.g. after the rate limit was exceeded.
+	 */
+	public synchronized void suspend(long until) {
+		nextPollTime = Math.max(nextPollTime, until);
+	}
+
+	public synchronized long getDelay() {
+		return delay;
+	}
+
+	public synchronized int getPageSize() {
+		return pageSize;
+	}
+
+	public synchronized long getNextPollTime() {
+		return nextPollTime;
+	}
+
+	private long clamp(long value) {
+		return Math.max(minDelay, Math.min(maxDelay, value));
+	}
+
+}
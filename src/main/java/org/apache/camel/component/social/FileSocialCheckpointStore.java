@@ -0,0 +1,361 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.util.IOHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link SocialCheckpointStore} appending its records to a memory mapped file.
+ * An append is a copy into the mapping, the operating system writes the pages
+ * back; the mapping is also forced to disk every <code>flushInterval</code>
+ * ms and on stop.
+ * <p>
+ * Only the last <code>maxIdsPerKey</code> ids of each key are kept. Once the
+ * file holds <code>compactRatio</code> times more records than that, it is
+ * rewritten with the kept ids only, in the background every
+ * <code>compactInterval</code> ms.
+ * <p>
+ * A record is the key and id lengths as two shorts followed by their UTF-8
+ * bytes; the zeroed space past the last record ends the file.
+ */
+public class FileSocialCheckpointStore extends ServiceSupport implements SocialCheckpointStore {
+
+	private static final transient Log LOG = LogFactory.getLog(FileSocialCheckpointStore.class);
+
+	private static final int HEADER_SIZE = 4;
+
+	private final File file;
+	private int maxIdsPerKey = 200;
+	private long flushInterval = 1000;
+	private long compactInterval = 60000;
+	private int compactRatio = 4;
+	private int growSize = 1024 * 1024;
+
+	private CamelContext camelContext;
+	private ScheduledExecutorService scheduler;
+
+	private FileChannel channel;
+	private MappedByteBuffer mapping;
+	private int records;
+	private int kept;
+	private boolean dirty;
+	private final Map<String, ArrayDeque<String>> entries = new HashMap<String, ArrayDeque<String>>();
+
+	public FileSocialCheckpointStore(File file) {
+		this.file = file;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public void setCamelContext(CamelContext camelContext) {
+		this.camelContext = camelContext;
+	}
+
+	public synchronized List<String> load(String key) throws IOException {
+		ensureOpen();
+		ArrayDeque<String> ids = entries.get(key);
+		if (ids == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<String>(ids);
+	}
+
+	public synchronized void append(String key, String id) throws IOException {
+		ensureOpen();
+		byte[] keyBytes = encode(key);
+		byte[] idBytes = encode(id);
+		if (keyBytes.length == 0) {
+			throw new IllegalArgumentException("Checkpoint key must not be empty");
+		}
+
+		int size = HEADER_SIZE + keyBytes.length + idBytes.length;
+		if (mapping.remaining() < size + HEADER_SIZE) {
+			remap(mapping.position() + Math.max(size + HEADER_SIZE, growSize));
+		}
+
+		int start = mapping.position();
+		// lengths last, a record is complete once it has them
+		mapping.position(start + HEADER_SIZE);
+		mapping.put(keyBytes);
+		mapping.put(idBytes);
+		int end = mapping.position();
+		mapping.putShort(start, (short) keyBytes.length);
+		mapping.putShort(start + 2, (short) idBytes.length);
+		mapping.position(end);
+
+		records++;
+		dirty = true;
+		keep(key, id);
+	}
+
+	/**
+	 * Forces the appended records to the disk.
+	 */
+	public synchronized void flush() {
+		if (mapping != null && dirty) {
+			mapping.force();
+			dirty = false;
+		}
+	}
+
+	/**
+	 * Rewrites the file with the kept ids only.
+	 */
+	public synchronized void compact() throws IOException {
+		ensureOpen();
+		File tmp = new File(file.getPath() + ".tmp");
+		RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+		try {
+			out.setLength(0);
+			FileChannel tmpChannel = out.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			for (Map.Entry<String, ArrayDeque<String>> e : entries.entrySet()) {
+				byte[] keyBytes = encode(e.getKey());
+				for (String id : e.getValue()) {
+					byte[] idBytes = encode(id);
+					int size = HEADER_SIZE + keyBytes.length + idBytes.length;
+					if (buffer.remaining() < size) {
+						buffer.flip();
+						tmpChannel.write(buffer);
+						buffer.clear();
+						if (buffer.remaining() < size) {
+							buffer = ByteBuffer.allocate(size);
+						}
+					}
+					buffer.putShort((short) keyBytes.length);
+					buffer.putShort((short) idBytes.length);
+					buffer.put(keyBytes);
+					buffer.put(idBytes);
+				}
+			}
+			buffer.flip();
+			tmpChannel.write(buffer);
+			tmpChannel.force(true);
+		} finally {
+			IOHelper.close(out, tmp.getName());
+		}
+
+		int before = records;
+		close();
+		if (!tmp.renameTo(file)) {
+			if (!file.delete() || !tmp.renameTo(file)) {
+				throw new IOException("Could not replace " + file + " with " + tmp);
+			}
+		}
+		open();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Compacted " + file + " from " + before + " to " + records + " records");
+		}
+	}
+
+	public synchronized boolean isCompactionNeeded() {
+		return records > compactRatio * Math.max(kept, maxIdsPerKey);
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		synchronized (this) {
+			ensureOpen();
+		}
+
+		if (camelContext != null) {
+			scheduler = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(this,
+					"SocialCheckpointStore", 1);
+			if (flushInterval > 0) {
+				scheduler.scheduleWithFixedDelay(new Runnable() {
+					public void run() {
+						flush();
+					}
+				}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+			}
+			if (compactInterval > 0) {
+				scheduler.scheduleWithFixedDelay(new Runnable() {
+					public void run() {
+						try {
+							if (isCompactionNeeded()) {
+								compact();
+							}
+						} catch (IOException e) {
+							LOG.warn("Could not compact checkpoint file " + file, e);
+						}
+					}
+				}, compactInterval, compactInterval, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (scheduler != null) {
+			camelContext.getExecutorServiceStrategy().shutdownNow(scheduler);
+			scheduler = null;
+		}
+		synchronized (this) {
+			flush();
+			close();
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (channel == null) {
+			open();
+		}
+	}
+
+	private void open() throws IOException {
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		channel = new RandomAccessFile(file, "rw").getChannel();
+		mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), growSize));
+
+		entries.clear();
+		records = 0;
+		kept = 0;
+		while (mapping.remaining() >= HEADER_SIZE) {
+			int start = mapping.position();
+			int keyLength = mapping.getShort(start);
+			int idLength = mapping.getShort(start + 2);
+			if (keyLength <= 0 || idLength < 0
+					|| start + HEADER_SIZE + keyLength + idLength > mapping.limit()) {
+				break;
+			}
+			mapping.position(start + HEADER_SIZE);
+			String key = decode(keyLength);
+			String id = decode(idLength);
+			records++;
+			keep(key, id);
+		}
+	}
+
+	private void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+			mapping = null;
+		}
+	}
+
+	private void remap(int size) throws IOException {
+		int position = mapping.position();
+		mapping.force();
+		mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		mapping.position(position);
+	}
+
+	private void keep(String key, String id) {
+		ArrayDeque<String> ids = entries.get(key);
+		if (ids == null) {
+			ids = new ArrayDeque<String>();
+			entries.put(key, ids);
+		}
+		ids.addLast(id);
+		kept++;
+		if (ids.size() > maxIdsPerKey) {
+			ids.removeFirst();
+			kept--;
+		}
+	}
+
+	private String decode(int length) throws UnsupportedEncodingException {
+		byte[] bytes = new byte[length];
+		mapping.get(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	private static byte[] encode(String value) throws UnsupportedEncodingException {
+		byte[] bytes = value.getBytes("UTF-8");
+		if (bytes.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Checkpoint value too long: " + value);
+		}
+		return bytes;
+	}
+
+	public int getMaxIdsPerKey() {
+		return maxIdsPerKey;
+	}
+
+	public void setMaxIdsPerKey(int maxIdsPerKey) {
+		this.maxIdsPerKey = maxIdsPerKey;
+	}
+
+	public long getFlushInterval() {
+		return flushInterval;
+	}
+
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	public long getCompactInterval() {
+		return compactInterval;
+	}
+
+	public void setCompactInterval(long compactInterval) {
+		this.compactInterval = compactInterval;
+	}
+
+	public int getCompactRatio() {
+		return compactRatio;
+	}
+
+	public void setCompactRatio(int compactRatio) {
+		this.compactRatio = compactRatio;
+	}
+
+	public int getGrowSize() {
+		return growSize;
+	}
+
+	/**
+	 * Bytes the file is extended by when the mapping is full.
+	 */
+	public void setGrowSize(int growSize) {
+		this.growSize = growSize;
+	}
+
+	/**
+	 * Records in the file, including the ones compaction will drop.
+	 */
+	public synchronized int getRecords() {
+		return records;
+	}
+
+}
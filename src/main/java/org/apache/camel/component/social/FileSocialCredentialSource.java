@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.camel.util.IOHelper;
+
+/**
+ * Reads user credentials from a properties file, one <code>token=secret</code>
+ * pair per line. The file is read again whenever it changes.
+ */
+public class FileSocialCredentialSource implements SocialCredentialSource {
+
+	private final File file;
+	private long lastModified = -1;
+	private List<SocialOAuth> credentials = Collections.emptyList();
+
+	public FileSocialCredentialSource(File file) {
+		this.file = file;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public synchronized Collection<SocialOAuth> getCredentials() throws Exception {
+		long modified = file.lastModified();
+		if (modified != lastModified) {
+			Properties properties = new Properties();
+			InputStream in = new FileInputStream(file);
+			try {
+				properties.load(in);
+			} finally {
+				IOHelper.close(in, file.getName());
+			}
+
+			List<SocialOAuth> list = new ArrayList<SocialOAuth>(properties.size());
+			for (String token : properties.stringPropertyNames()) {
+				list.add(new SocialOAuth(token, properties.getProperty(token)));
+			}
+			credentials = Collections.unmodifiableList(list);
+			lastModified = modified;
+		}
+		return credentials;
+	}
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+
+/**
+ * {@link SocialData} whose body is a slice of a response buffer. Nothing is
+ * decoded until the body is first read, either through {@link #toString()} or
+ * through the type converters of {@link SocialDataConverter} (String,
+ * <code>byte[]</code>, streams, <code>JsonNode</code>, DOM or POJOs).
+ */
+public class LazySocialData implements SocialData {
+
+	public enum Format {
+		JSON, XML
+	}
+
+	private static final String UTF_8 = "UTF-8";
+
+	private final String id;
+	private final byte[] buffer;
+	private final int offset;
+	private final int length;
+	private final Format format;
+	private Map<String, Object> headers;
+
+	private volatile String text;
+
+	public LazySocialData(String id, byte[] buffer, int offset, int length, Format format) {
+		this.id = id;
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+		this.format = format;
+	}
+
+	public LazySocialData(String id, byte[] buffer, int offset, int length, Format format,
+			Map<String, Object> headers) {
+		this(id, buffer, offset, length, format);
+		this.headers = headers;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * The body of a lazy social data is the social data itself, converters
+	 * decode it on demand.
+	 */
+	public Object getData() {
+		return this;
+	}
+
+	public Map<String, Object> getHeaders() {
+		return headers;
+	}
+
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	public byte[] toByteArray() {
+		byte[] copy = new byte[length];
+		System.arraycopy(buffer, offset, copy, 0, length);
+		return copy;
+	}
+
+	@Override
+	public String toString() {
+		String answer = text;
+		if (answer == null) {
+			try {
+				answer = new String(buffer, offset, length, UTF_8);
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+			text = answer;
+		}
+		return answer;
+	}
+
+}
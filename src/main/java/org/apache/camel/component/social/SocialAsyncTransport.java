@@ -0,0 +1,291 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.Enumeration;
+
+import org.apache.camel.component.social.util.ResponseBuffer;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.jetty.client.ContentExchange;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.io.Buffer;
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * Non-blocking HTTP transport shared by the endpoints of a
+ * {@link SocialComponent}. Requests are regular, already signed, httpclient
+ * requests; they are sent through a selector based Jetty client so a few I/O
+ * threads drive any number of requests in flight. Responses are handed back
+ * as buffered httpclient responses, so paths process them exactly like the
+ * ones of the blocking client.
+ * <p>
+ * The Jetty client and its threads are only created on the first request.
+ */
+public class SocialAsyncTransport extends ServiceSupport {
+
+	private static final transient Log LOG = LogFactory.getLog(SocialAsyncTransport.class);
+
+	private int maxConnectionsPerAddress = 20;
+	private int ioThreads = 8;
+	private long timeout = 30000;
+
+	private HttpClient client;
+
+	/**
+	 * Sends the request, the callback is invoked on an I/O thread once the
+	 * whole response has been read or the exchange failed.
+	 */
+	public void send(HttpUriRequest request, SocialHttpCallback callback) {
+		send(request, -1, callback);
+	}
+
+	/**
+	 * Sends the request like {@link #send(HttpUriRequest, SocialHttpCallback)},
+	 * failing it with a {@link ResponseBuffer.ResponseTooLargeException} as
+	 * soon as the announced or the received content exceeds the maximum
+	 * size, unless it is negative.
+	 */
+	public void send(HttpUriRequest request, final int maxResponseSize,
+			final SocialHttpCallback callback) {
+		ContentExchange exchange = new ContentExchange(true) {
+
+			private String reason;
+			private long received;
+			private boolean done;
+
+			@Override
+			protected synchronized void onResponseStatus(Buffer version, int status,
+					Buffer reason) throws IOException {
+				super.onResponseStatus(version, status, reason);
+				this.reason = reason != null ? reason.toString() : null;
+			}
+
+			@Override
+			protected synchronized void onResponseHeaderComplete() throws IOException {
+				super.onResponseHeaderComplete();
+				long contentLength;
+				try {
+					contentLength = getResponseFields().getLongField(HttpHeaders.CONTENT_LENGTH);
+				} catch (NumberFormatException e) {
+					contentLength = -1;
+				}
+				if (maxResponseSize >= 0 && contentLength > maxResponseSize) {
+					tooLarge();
+				}
+			}
+
+			@Override
+			protected synchronized void onResponseContent(Buffer content) throws IOException {
+				if (done) {
+					return;
+				}
+				received += content.length();
+				if (maxResponseSize >= 0 && received > maxResponseSize) {
+					tooLarge();
+					return;
+				}
+				super.onResponseContent(content);
+			}
+
+			@Override
+			protected void onResponseComplete() throws IOException {
+				super.onResponseComplete();
+				if (finish()) {
+					callback.completed(toHttpResponse(this, reason));
+				}
+			}
+
+			@Override
+			protected void onConnectionFailed(Throwable cause) {
+				if (finish()) {
+					callback.failed(toException(cause));
+				}
+			}
+
+			@Override
+			protected void onException(Throwable cause) {
+				if (finish()) {
+					callback.failed(toException(cause));
+				}
+			}
+
+			@Override
+			protected void onExpire() {
+				if (finish()) {
+					callback.failed(new IOException("Request timed out after " + timeout + " ms"));
+				}
+			}
+
+			private synchronized boolean finish() {
+				if (done) {
+					return false;
+				}
+				done = true;
+				return true;
+			}
+
+			/**
+			 * Drops the connection instead of buffering the rest.
+			 */
+			private void tooLarge() {
+				if (finish()) {
+					cancel();
+					callback.failed(new ResponseBuffer.ResponseTooLargeException(maxResponseSize));
+				}
+			}
+		};
+
+		try {
+			exchange.setMethod(request.getMethod());
+			exchange.setURL(request.getURI().toString());
+			for (Header header : request.getAllHeaders()) {
+				exchange.addRequestHeader(header.getName(), header.getValue());
+			}
+
+			if (request instanceof HttpEntityEnclosingRequest) {
+				HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+				if (entity != null) {
+					if (entity.getContentType() != null) {
+						exchange.setRequestContentType(entity.getContentType().getValue());
+					}
+					exchange.setRequestContent(new ByteArrayBuffer(EntityUtils.toByteArray(entity)));
+				}
+			}
+
+			getClient().send(exchange);
+		} catch (Exception e) {
+			callback.failed(e);
+		}
+	}
+
+	private static BasicHttpResponse toHttpResponse(ContentExchange exchange, String reason) {
+		BasicHttpResponse response = new BasicHttpResponse(new BasicStatusLine(
+				HttpVersion.HTTP_1_1, exchange.getResponseStatus(), reason));
+
+		HttpFields fields = exchange.getResponseFields();
+		for (Enumeration<String> names = fields.getFieldNames(); names.hasMoreElements();) {
+			String name = names.nextElement();
+			for (Enumeration<String> values = fields.getValues(name); values.hasMoreElements();) {
+				response.addHeader(name, values.nextElement());
+			}
+		}
+
+		byte[] content = exchange.getResponseContentBytes();
+		if (content != null) {
+			ByteArrayEntity entity = new ByteArrayEntity(content);
+			entity.setContentType(fields.getStringField(HTTP.CONTENT_TYPE));
+			response.setEntity(entity);
+		}
+		return response;
+	}
+
+	private static Exception toException(Throwable cause) {
+		if (cause instanceof Exception) {
+			return (Exception) cause;
+		}
+		return new IOException(String.valueOf(cause));
+	}
+
+	protected synchronized HttpClient getClient() throws Exception {
+		if (!isStarted()) {
+			throw new IllegalStateException("Asynchronous transport is not started");
+		}
+		if (client == null) {
+			QueuedThreadPool threadPool = new QueuedThreadPool();
+			threadPool.setName("SocialAsyncTransport");
+			threadPool.setMaxThreads(ioThreads);
+			threadPool.setMinThreads(Math.min(2, ioThreads));
+			threadPool.setDaemon(true);
+
+			HttpClient httpClient = new HttpClient();
+			httpClient.setConnectorType(HttpClient.CONNECTOR_SELECT_CHANNEL);
+			httpClient.setMaxConnectionsPerAddress(maxConnectionsPerAddress);
+			httpClient.setThreadPool(threadPool);
+			httpClient.setTimeout(timeout);
+			httpClient.start();
+
+			LOG.debug("Started asynchronous transport with " + ioThreads + " I/O threads");
+			client = httpClient;
+		}
+		return client;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		HttpClient toStop;
+		synchronized (this) {
+			toStop = client;
+			client = null;
+		}
+		if (toStop != null) {
+			toStop.stop();
+		}
+	}
+
+	public int getMaxConnectionsPerAddress() {
+		return maxConnectionsPerAddress;
+	}
+
+	public void setMaxConnectionsPerAddress(int maxConnectionsPerAddress) {
+		this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+	}
+
+	public int getIoThreads() {
+		return ioThreads;
+	}
+
+	/**
+	 * Threads running the selector and the response callbacks. The selector
+	 * keeps one of them busy, so use at least 3.
+	 */
+	public void setIoThreads(int ioThreads) {
+		this.ioThreads = ioThreads;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Milliseconds a request may take, from sending it to the end of the
+	 * response.
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk operation, per item id: the data the provider returned
+ * for the items it processed and the error of the others. Filled in
+ * concurrently as the items complete.
+ */
+public class SocialBulkResult {
+
+	private final Map<String, SocialData> succeeded = new LinkedHashMap<String, SocialData>();
+	private final Map<String, Exception> failed = new LinkedHashMap<String, Exception>();
+
+	public synchronized void success(String id, SocialData data) {
+		succeeded.put(id, data);
+	}
+
+	public synchronized void failure(String id, Exception cause) {
+		failed.put(id, cause);
+	}
+
+	/**
+	 * The ids processed, in completion order, with the returned data.
+	 */
+	public synchronized Map<String, SocialData> getSucceeded() {
+		return Collections.unmodifiableMap(new LinkedHashMap<String, SocialData>(succeeded));
+	}
+
+	/**
+	 * The ids not processed, in completion order, with their error.
+	 */
+	public synchronized Map<String, Exception> getFailed() {
+		return Collections.unmodifiableMap(new LinkedHashMap<String, Exception>(failed));
+	}
+
+	public synchronized boolean hasFailures() {
+		return !failed.isEmpty();
+	}
+
+	public synchronized int size() {
+		return succeeded.size() + failed.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "SocialBulkResult[succeeded=" + succeeded.keySet() + ", failed=" + failed.keySet()
+				+ "]";
+	}
+
+}
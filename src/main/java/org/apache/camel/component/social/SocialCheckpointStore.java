@@ -0,0 +1,43 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Persists the ids consumed by a {@link SocialConsumer}, so a restarted
+ * consumer resumes from its last since_id and keeps discarding the data it
+ * already emitted. Keys identify a consumer and a credential.
+ * <p>
+ * A store implementing {@link org.apache.camel.Service} is started by the
+ * consumers using it.
+ */
+public interface SocialCheckpointStore {
+
+	/**
+	 * The most recent ids recorded for the key, oldest first, or an empty list.
+	 */
+	List<String> load(String key) throws IOException;
+
+	/**
+	 * Records an id consumed for the key. Called for every consumed item, so
+	 * it should not wait for the data to reach the disk.
+	 */
+	void append(String key, String id) throws IOException;
+
+}
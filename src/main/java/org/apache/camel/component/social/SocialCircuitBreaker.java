@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per host circuits shared by the endpoints of a {@link SocialComponent}.
+ * After failureThreshold consecutive failures a host's circuit opens and its
+ * requests fail fast for openTime ms. Then a single trial request is let
+ * through: its success closes the circuit, its failure opens it again.
+ */
+public class SocialCircuitBreaker {
+
+	private int failureThreshold = 5;
+	private long openTime = 30000;
+
+	private final Map<String, Circuit> circuits = new HashMap<String, Circuit>();
+
+	private final AtomicLong trips = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * Whether a request to the host may be sent now, otherwise it should
+	 * fail without trying.
+	 */
+	public boolean allowRequest(String host) {
+		if (failureThreshold <= 0) {
+			return true;
+		}
+		long now = System.currentTimeMillis();
+		Circuit circuit = getCircuit(host);
+		synchronized (circuit) {
+			if (circuit.openedAt == 0) {
+				return true;
+			}
+			if (!circuit.trial && now - circuit.openedAt >= openTime) {
+				circuit.trial = true;
+				return true;
+			}
+		}
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	public void onSuccess(String host) {
+		Circuit circuit = getCircuit(host);
+		synchronized (circuit) {
+			circuit.failures = 0;
+			circuit.openedAt = 0;
+			circuit.trial = false;
+		}
+	}
+
+	public void onFailure(String host) {
+		if (failureThreshold <= 0) {
+			return;
+		}
+		Circuit circuit = getCircuit(host);
+		synchronized (circuit) {
+			circuit.failures++;
+			if (circuit.trial || (circuit.openedAt == 0 && circuit.failures >= failureThreshold)) {
+				circuit.openedAt = System.currentTimeMillis();
+				circuit.trial = false;
+				trips.incrementAndGet();
+			}
+		}
+	}
+
+	public boolean isOpen(String host) {
+		Circuit circuit = getCircuit(host);
+		synchronized (circuit) {
+			return circuit.openedAt != 0;
+		}
+	}
+
+	private synchronized Circuit getCircuit(String host) {
+		Circuit circuit = circuits.get(host);
+		if (circuit == null) {
+			circuit = new Circuit();
+			circuits.put(host, circuit);
+		}
+		return circuit;
+	}
+
+	/**
+	 * Hosts whose circuit is open at the moment.
+	 */
+	public synchronized int getOpenCircuitCount() {
+		int open = 0;
+		for (Circuit circuit : circuits.values()) {
+			synchronized (circuit) {
+				if (circuit.openedAt != 0) {
+					open++;
+				}
+			}
+		}
+		return open;
+	}
+
+	/**
+	 * Times a circuit opened.
+	 */
+	public long getTripCount() {
+		return trips.get();
+	}
+
+	/**
+	 * Requests failed fast by an open circuit.
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	/**
+	 * Consecutive failures opening the circuit of a host, 0 or less never
+	 * opens it.
+	 */
+	public void setFailureThreshold(int failureThreshold) {
+		this.failureThreshold = failureThreshold;
+	}
+
+	public long getOpenTime() {
+		return openTime;
+	}
+
+	public void setOpenTime(long openTime) {
+		this.openTime = openTime;
+	}
+
+	@Override
+	public String toString() {
+		return "SocialCircuitBreaker[open=" + getOpenCircuitCount() + ", trips=" + trips
+				+ ", rejected=" + rejected + "]";
+	}
+
+	private static final class Circuit {
+		int failures;
+		long openedAt;
+		boolean trial;
+	}
+
+}
@@ -16,20 +16,58 @@
  */
 package org.apache.camel.component.social;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.camel.Endpoint;
 import org.apache.camel.component.social.providers.ProviderManager;
 import org.apache.camel.impl.DefaultComponent;
+import org.apache.camel.util.ServiceHelper;
 
 public class SocialComponent extends DefaultComponent {
 
+	private final SocialConnectionPool connectionPool = new SocialConnectionPool();
+
+	private final SocialAsyncTransport asyncTransport = new SocialAsyncTransport();
+
+	private final SocialRateLimitManager rateLimitManager = new SocialRateLimitManager();
+
+	private final SocialSessionPool sessionPool = new SocialSessionPool();
+
+	private final SocialCircuitBreaker circuitBreaker = new SocialCircuitBreaker();
+
+	private final SocialWarmUp warmUp = new SocialWarmUp();
+
+	private final Map<File, FileSocialCheckpointStore> checkpointStores = new HashMap<File, FileSocialCheckpointStore>();
+
 	@Override
 	protected Endpoint createEndpoint(String uri, String remaining, Map<String, Object> parameters) throws Exception {
 
 		SocialConfiguration config = new SocialConfiguration();
+		Object credentials = resolveAndRemoveReferenceParameter(parameters,
+				"credentialSource", Object.class);
+		SocialCheckpointStore checkpointStore = resolveAndRemoveReferenceParameter(
+				parameters, "checkpointStore", SocialCheckpointStore.class);
 		setProperties(config, parameters);
 
+		if (credentials != null) {
+			config.setCredentialSource(toCredentialSource(credentials));
+		} else if (config.getCredentialFile() != null) {
+			config.setCredentialSource(new FileSocialCredentialSource(new File(
+					config.getCredentialFile())));
+		}
+
+		if (checkpointStore != null) {
+			config.setCheckpointStore(checkpointStore);
+		} else if (config.getCheckpointFile() != null) {
+			config.setCheckpointStore(getCheckpointStore(new File(config
+					.getCheckpointFile()), config.getMaxKeepId()));
+		}
+
 		SocialURIParser parser = new SocialURIParser(uri);
 		config.setProvider(ProviderManager.locate(parser.getProvider()));
 		config.setOauthToken(parser.getUser());
@@ -39,4 +77,228 @@ public class SocialComponent extends DefaultComponent {
 		return new SocialEndpoint(uri, this, config);
 	}
 
+	/**
+	 * Accepts a {@link SocialCredentialSource} bean or a plain collection of
+	 * {@link SocialOAuth} credentials.
+	 */
+	private SocialCredentialSource toCredentialSource(Object bean) {
+		if (bean instanceof SocialCredentialSource) {
+			return (SocialCredentialSource) bean;
+		}
+		if (bean instanceof Collection) {
+			final List<SocialOAuth> list = new ArrayList<SocialOAuth>();
+			for (Object o : (Collection<?>) bean) {
+				list.add((SocialOAuth) o);
+			}
+			return new SocialCredentialSource() {
+				public Collection<SocialOAuth> getCredentials() {
+					return list;
+				}
+			};
+		}
+		throw new IllegalArgumentException("credentialSource must be a "
+				+ SocialCredentialSource.class.getName()
+				+ " or a collection of SocialOAuth, was: " + bean);
+	}
+
+	/**
+	 * One store per checkpoint file, shared by the endpoints naming it.
+	 */
+	private synchronized FileSocialCheckpointStore getCheckpointStore(File file,
+			int maxIdsPerKey) {
+		File key = file.getAbsoluteFile();
+		FileSocialCheckpointStore store = checkpointStores.get(key);
+		if (store == null) {
+			store = new FileSocialCheckpointStore(key);
+			store.setCamelContext(getCamelContext());
+			checkpointStores.put(key, store);
+		}
+		store.setMaxIdsPerKey(Math.max(store.getMaxIdsPerKey(), maxIdsPerKey));
+		return store;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		super.doStart();
+		connectionPool.setCamelContext(getCamelContext());
+		connectionPool.start();
+		asyncTransport.start();
+		rateLimitManager.setCamelContext(getCamelContext());
+		rateLimitManager.start();
+		sessionPool.setCamelContext(getCamelContext());
+		sessionPool.start();
+		warmUp.setCamelContext(getCamelContext());
+		warmUp.start();
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		warmUp.stop();
+		sessionPool.stop();
+		rateLimitManager.stop();
+		asyncTransport.stop();
+		connectionPool.stop();
+		synchronized (this) {
+			ServiceHelper.stopServices(checkpointStores.values());
+			checkpointStores.clear();
+		}
+		super.doStop();
+	}
+
+	/**
+	 * HTTP connections shared by every endpoint of this component, also
+	 * exposing the pool statistics.
+	 */
+	public SocialConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	/**
+	 * Non-blocking transport of the asynchronous path operations.
+	 */
+	public SocialAsyncTransport getAsyncTransport() {
+		return asyncTransport;
+	}
+
+	/**
+	 * Rate limit budgets of the credentials used by the endpoints of this
+	 * component.
+	 */
+	public SocialRateLimitManager getRateLimitManager() {
+		return rateLimitManager;
+	}
+
+	/**
+	 * Signed in sessions of the producers, per endpoint and credentials.
+	 */
+	public SocialSessionPool getSessionPool() {
+		return sessionPool;
+	}
+
+	/**
+	 * Per host circuits of the calls of every endpoint of this component.
+	 */
+	public SocialCircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Background warm ups of the endpoints started with warmUp.
+	 */
+	public SocialWarmUp getWarmUp() {
+		return warmUp;
+	}
+
+	public int getWarmUpThreads() {
+		return warmUp.getThreads();
+	}
+
+	public void setWarmUpThreads(int threads) {
+		warmUp.setThreads(threads);
+	}
+
+	public long getWarmUpStagger() {
+		return warmUp.getStagger();
+	}
+
+	public void setWarmUpStagger(long stagger) {
+		warmUp.setStagger(stagger);
+	}
+
+	public int getCircuitFailureThreshold() {
+		return circuitBreaker.getFailureThreshold();
+	}
+
+	public void setCircuitFailureThreshold(int failureThreshold) {
+		circuitBreaker.setFailureThreshold(failureThreshold);
+	}
+
+	public long getCircuitOpenTime() {
+		return circuitBreaker.getOpenTime();
+	}
+
+	public void setCircuitOpenTime(long openTime) {
+		circuitBreaker.setOpenTime(openTime);
+	}
+
+	public int getMaxIdleSessions() {
+		return sessionPool.getMaxIdleSessions();
+	}
+
+	public void setMaxIdleSessions(int maxIdleSessions) {
+		sessionPool.setMaxIdleSessions(maxIdleSessions);
+	}
+
+	public long getSessionIdleTimeout() {
+		return sessionPool.getIdleTimeout();
+	}
+
+	public void setSessionIdleTimeout(long idleTimeout) {
+		sessionPool.setIdleTimeout(idleTimeout);
+	}
+
+	public long getSessionTimeToLive() {
+		return sessionPool.getTimeToLive();
+	}
+
+	public void setSessionTimeToLive(long timeToLive) {
+		sessionPool.setTimeToLive(timeToLive);
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return connectionPool.getMaxConnectionsPerRoute();
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		connectionPool.setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+	}
+
+	public int getMaxTotalConnections() {
+		return connectionPool.getMaxTotalConnections();
+	}
+
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		connectionPool.setMaxTotalConnections(maxTotalConnections);
+	}
+
+	public long getConnectionKeepAlive() {
+		return connectionPool.getKeepAlive();
+	}
+
+	public void setConnectionKeepAlive(long keepAlive) {
+		connectionPool.setKeepAlive(keepAlive);
+	}
+
+	public long getConnectionIdleTimeout() {
+		return connectionPool.getIdleTimeout();
+	}
+
+	public void setConnectionIdleTimeout(long idleTimeout) {
+		connectionPool.setIdleTimeout(idleTimeout);
+	}
+
+	public int getAsyncMaxConnectionsPerAddress() {
+		return asyncTransport.getMaxConnectionsPerAddress();
+	}
+
+	public void setAsyncMaxConnectionsPerAddress(int maxConnectionsPerAddress) {
+		asyncTransport.setMaxConnectionsPerAddress(maxConnectionsPerAddress);
+	}
+
+	public int getAsyncIoThreads() {
+		return asyncTransport.getIoThreads();
+	}
+
+	public void setAsyncIoThreads(int ioThreads) {
+		asyncTransport.setIoThreads(ioThreads);
+	}
+
+	public long getAsyncTimeout() {
+		return asyncTransport.getTimeout();
+	}
+
+	public void setAsyncTimeout(long timeout) {
+		asyncTransport.setTimeout(timeout);
+	}
+
 }
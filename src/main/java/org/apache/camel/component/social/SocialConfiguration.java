@@ -48,6 +48,94 @@ public class SocialConfiguration {
 
 	private boolean poll;
 
+	private String xmlParser = "stax";
+
+	private boolean lazyBody;
+
+	private int maxResponseSize = 8 * 1024 * 1024;
+
+	private String apiUrl;
+
+	private SocialCredentialSource credentialSource;
+
+	private String credentialFile;
+
+	private int maxConcurrentPolls = 10;
+
+	private long credentialIdleTimeout = 600000;
+
+	private SocialCheckpointStore checkpointStore;
+
+	private String checkpointFile;
+
+	private String checkpointKey;
+
+	private boolean emitOldestFirst;
+
+	private boolean backfill;
+
+	private int backfillParallelism = 4;
+
+	private int maxBackfillPages = 50;
+
+	private boolean adaptivePoll;
+
+	private long minPollDelay = 2000;
+
+	private long maxPollDelay = 300000;
+
+	private long pollTick = 500;
+
+	private int maxMessagesPerPoll;
+
+	private boolean batchExchange;
+
+	private int dispatchThreads;
+
+	private String dispatchOrderBy;
+
+	private String dispatchOrderByLanguage = "simple";
+
+	private long streamReconnectDelay = 1000;
+
+	private long streamMaxReconnectDelay = 240000;
+
+	private int streamStallTimeout = 90000;
+
+	private boolean conditionalGet = true;
+
+	private String oauthSigner = "signpost";
+
+	private int maxRetries = 2;
+
+	private long retryDelay = 200;
+
+	private long maxRetryDelay = 10000;
+
+	private double retryJitter = 0.5;
+
+	private boolean retryNonIdempotent;
+
+	private int maxInFlight = 16;
+
+	private String inFlightPolicy = "block";
+
+	private int maxSpill = 1000;
+
+	private boolean updateQueue;
+
+	private int bulkParallelism = 4;
+
+	private int updateQueueSize = 1000;
+
+	private int updateMaxRetries = 3;
+
+	private long updateRetryDelay = 5000;
+
+	private boolean warmUp;
+
+	private int warmUpConnections = 2;
+
 	protected String getOauthConsumerToken() {
 		return oauthConsumerToken;
 	}
@@ -124,6 +212,12 @@ public class SocialConfiguration {
 		return rateLimit;
 	}
 
+	/**
+	 * Calls per rateLimitPeriod, seeding the budget shared by the paths and
+	 * producers of the credential. Reads over budget fail with a
+	 * RateLimitExceededException and suspend the consumer, updates wait for
+	 * the budget. -1 leaves the budget to the provider's rate limit headers.
+	 */
 	public void setRateLimit(Integer rateLimit) {
 		this.rateLimit = rateLimit;
 	}
@@ -160,4 +254,457 @@ public class SocialConfiguration {
 		this.query = q;
 	}
 
+	public String getXmlParser() {
+		return xmlParser;
+	}
+
+	public void setXmlParser(String xmlParser) {
+		this.xmlParser = xmlParser;
+	}
+
+	public boolean isLazyBody() {
+		return lazyBody;
+	}
+
+	public void setLazyBody(boolean lazyBody) {
+		this.lazyBody = lazyBody;
+	}
+
+	public int getMaxResponseSize() {
+		return maxResponseSize;
+	}
+
+	public void setMaxResponseSize(int maxResponseSize) {
+		this.maxResponseSize = maxResponseSize;
+	}
+
+	public String getApiUrl() {
+		return apiUrl;
+	}
+
+	public void setApiUrl(String apiUrl) {
+		this.apiUrl = apiUrl;
+	}
+
+	public SocialCredentialSource getCredentialSource() {
+		return credentialSource;
+	}
+
+	public void setCredentialSource(SocialCredentialSource credentialSource) {
+		this.credentialSource = credentialSource;
+	}
+
+	public boolean hasCredentialSource() {
+		return credentialSource != null;
+	}
+
+	public String getCredentialFile() {
+		return credentialFile;
+	}
+
+	public void setCredentialFile(String credentialFile) {
+		this.credentialFile = credentialFile;
+	}
+
+	public int getMaxConcurrentPolls() {
+		return maxConcurrentPolls;
+	}
+
+	public void setMaxConcurrentPolls(int maxConcurrentPolls) {
+		this.maxConcurrentPolls = maxConcurrentPolls;
+	}
+
+	public long getCredentialIdleTimeout() {
+		return credentialIdleTimeout;
+	}
+
+	/**
+	 * Time in ms after which a credential that was not polled any more has
+	 * its session closed, 0 or less to keep them until the consumer stops.
+	 * Mainly for credentials polled from message headers, those of a
+	 * credential source are dropped as soon as the source loses them.
+	 */
+	public void setCredentialIdleTimeout(long credentialIdleTimeout) {
+		this.credentialIdleTimeout = credentialIdleTimeout;
+	}
+
+	public SocialCheckpointStore getCheckpointStore() {
+		return checkpointStore;
+	}
+
+	public void setCheckpointStore(SocialCheckpointStore checkpointStore) {
+		this.checkpointStore = checkpointStore;
+	}
+
+	public String getCheckpointFile() {
+		return checkpointFile;
+	}
+
+	public void setCheckpointFile(String checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+
+	public String getCheckpointKey() {
+		return checkpointKey;
+	}
+
+	/**
+	 * Prefix of the keys this endpoint checkpoints under, the path by default.
+	 * Endpoints sharing a store on the same path need distinct keys.
+	 */
+	public void setCheckpointKey(String checkpointKey) {
+		this.checkpointKey = checkpointKey;
+	}
+
+	public boolean isEmitOldestFirst() {
+		return emitOldestFirst;
+	}
+
+	/**
+	 * Emits each polled batch from its oldest to its newest item instead of
+	 * in the provider order. Items routed one by one with skipRead are always
+	 * emitted oldest first, so a batch cut short by a shutdown does not move
+	 * the since_id past items that were not routed.
+	 */
+	public void setEmitOldestFirst(boolean emitOldestFirst) {
+		this.emitOldestFirst = emitOldestFirst;
+	}
+
+	public boolean isBackfill() {
+		return backfill;
+	}
+
+	public void setBackfill(boolean backfill) {
+		this.backfill = backfill;
+	}
+
+	public int getBackfillParallelism() {
+		return backfillParallelism;
+	}
+
+	public void setBackfillParallelism(int backfillParallelism) {
+		this.backfillParallelism = backfillParallelism;
+	}
+
+	public int getMaxBackfillPages() {
+		return maxBackfillPages;
+	}
+
+	public void setMaxBackfillPages(int maxBackfillPages) {
+		this.maxBackfillPages = maxBackfillPages;
+	}
+
+	public boolean isAdaptivePoll() {
+		return adaptivePoll;
+	}
+
+	/**
+	 * Adapts the poll interval and page size to the traffic of the path and
+	 * to the rate limit reported by the provider.
+	 */
+	public void setAdaptivePoll(boolean adaptivePoll) {
+		this.adaptivePoll = adaptivePoll;
+	}
+
+	public long getMinPollDelay() {
+		return minPollDelay;
+	}
+
+	public void setMinPollDelay(long minPollDelay) {
+		this.minPollDelay = minPollDelay;
+	}
+
+	public long getMaxPollDelay() {
+		return maxPollDelay;
+	}
+
+	public void setMaxPollDelay(long maxPollDelay) {
+		this.maxPollDelay = maxPollDelay;
+	}
+
+	public long getPollTick() {
+		return pollTick;
+	}
+
+	/**
+	 * How often in ms an adaptive consumer checks whether a poll is due.
+	 */
+	public void setPollTick(long pollTick) {
+		this.pollTick = pollTick;
+	}
+
+	public int getMaxMessagesPerPoll() {
+		return maxMessagesPerPoll;
+	}
+
+	/**
+	 * Items routed per poll at most, 0 for no limit.
+	 */
+	public void setMaxMessagesPerPoll(int maxMessagesPerPoll) {
+		this.maxMessagesPerPoll = maxMessagesPerPoll;
+	}
+
+	public boolean isBatchExchange() {
+		return batchExchange;
+	}
+
+	/**
+	 * Routes the items of a poll as a single exchange whose body is the
+	 * <code>List</code> of their {@link SocialData}.
+	 */
+	public void setBatchExchange(boolean batchExchange) {
+		this.batchExchange = batchExchange;
+	}
+
+	public int getDispatchThreads() {
+		return dispatchThreads;
+	}
+
+	/**
+	 * Threads routing the polled items, 0 routes them on the polling thread.
+	 */
+	public void setDispatchThreads(int dispatchThreads) {
+		this.dispatchThreads = dispatchThreads;
+	}
+
+	public String getDispatchOrderBy() {
+		return dispatchOrderBy;
+	}
+
+	/**
+	 * Expression keying the polled items, items with the same key are
+	 * routed one at a time in poll order, e.g. by author.
+	 */
+	public void setDispatchOrderBy(String dispatchOrderBy) {
+		this.dispatchOrderBy = dispatchOrderBy;
+	}
+
+	public String getDispatchOrderByLanguage() {
+		return dispatchOrderByLanguage;
+	}
+
+	public void setDispatchOrderByLanguage(String dispatchOrderByLanguage) {
+		this.dispatchOrderByLanguage = dispatchOrderByLanguage;
+	}
+
+	public long getStreamReconnectDelay() {
+		return streamReconnectDelay;
+	}
+
+	/**
+	 * Delay in ms before reconnecting a dropped stream, doubled after each
+	 * failed attempt.
+	 */
+	public void setStreamReconnectDelay(long streamReconnectDelay) {
+		this.streamReconnectDelay = streamReconnectDelay;
+	}
+
+	public long getStreamMaxReconnectDelay() {
+		return streamMaxReconnectDelay;
+	}
+
+	public void setStreamMaxReconnectDelay(long streamMaxReconnectDelay) {
+		this.streamMaxReconnectDelay = streamMaxReconnectDelay;
+	}
+
+	public int getStreamStallTimeout() {
+		return streamStallTimeout;
+	}
+
+	/**
+	 * Time in ms a stream may stay silent before it is reconnected.
+	 */
+	public void setStreamStallTimeout(int streamStallTimeout) {
+		this.streamStallTimeout = streamStallTimeout;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	/**
+	 * Most updates a producer sends at once for one credential, 0 for no
+	 * limit.
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	public String getInFlightPolicy() {
+		return inFlightPolicy;
+	}
+
+	/**
+	 * What the producer does with an update over maxInFlight: "block" the
+	 * caller until one completes, "reject" the exchange, or "spill" it to a
+	 * queue of at most maxSpill exchanges sent as the others complete.
+	 */
+	public void setInFlightPolicy(String inFlightPolicy) {
+		this.inFlightPolicy = inFlightPolicy;
+	}
+
+	public int getMaxSpill() {
+		return maxSpill;
+	}
+
+	public void setMaxSpill(int maxSpill) {
+		this.maxSpill = maxSpill;
+	}
+
+	public boolean isUpdateQueue() {
+		return updateQueue;
+	}
+
+	/**
+	 * Sends the updates of the producer through a {@link SocialUpdateQueue},
+	 * paced, retried and coalesced, instead of one request per exchange.
+	 */
+	public void setUpdateQueue(boolean updateQueue) {
+		this.updateQueue = updateQueue;
+	}
+
+	public int getBulkParallelism() {
+		return bulkParallelism;
+	}
+
+	/**
+	 * Most items of a bulk update, such as a collection of ids to delete,
+	 * sent at once.
+	 */
+	public void setBulkParallelism(int bulkParallelism) {
+		this.bulkParallelism = bulkParallelism;
+	}
+
+	public int getUpdateQueueSize() {
+		return updateQueueSize;
+	}
+
+	public void setUpdateQueueSize(int updateQueueSize) {
+		this.updateQueueSize = updateQueueSize;
+	}
+
+	public int getUpdateMaxRetries() {
+		return updateMaxRetries;
+	}
+
+	public void setUpdateMaxRetries(int updateMaxRetries) {
+		this.updateMaxRetries = updateMaxRetries;
+	}
+
+	public long getUpdateRetryDelay() {
+		return updateRetryDelay;
+	}
+
+	/**
+	 * Delay in ms before the first retry of an update, doubled on each
+	 * following one.
+	 */
+	public void setUpdateRetryDelay(long updateRetryDelay) {
+		this.updateRetryDelay = updateRetryDelay;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * Retries of a request failing with an I/O error or a server error, 0
+	 * disables them.
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+
+	/**
+	 * Delay in ms before the first retry, doubled on each following one up
+	 * to maxRetryDelay.
+	 */
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	public long getMaxRetryDelay() {
+		return maxRetryDelay;
+	}
+
+	public void setMaxRetryDelay(long maxRetryDelay) {
+		this.maxRetryDelay = maxRetryDelay;
+	}
+
+	public double getRetryJitter() {
+		return retryJitter;
+	}
+
+	/**
+	 * Fraction of each retry delay taken off at random.
+	 */
+	public void setRetryJitter(double retryJitter) {
+		this.retryJitter = retryJitter;
+	}
+
+	public boolean isRetryNonIdempotent() {
+		return retryNonIdempotent;
+	}
+
+	/**
+	 * Also retries updates, which may then be posted twice.
+	 */
+	public void setRetryNonIdempotent(boolean retryNonIdempotent) {
+		this.retryNonIdempotent = retryNonIdempotent;
+	}
+
+	public String getOauthSigner() {
+		return oauthSigner;
+	}
+
+	/**
+	 * Signs the requests with signpost's own HMAC-SHA1 signer,
+	 * "signpost", or with the equivalent "hmac" one reusing its keyed Mac
+	 * and buffers between requests.
+	 */
+	public void setOauthSigner(String oauthSigner) {
+		this.oauthSigner = oauthSigner;
+	}
+
+	public boolean isWarmUp() {
+		return warmUp;
+	}
+
+	/**
+	 * Resolves the host, opens pooled connections and loads the parsers and
+	 * the signer in the background when the endpoint starts, rather than on
+	 * its first call.
+	 */
+	public void setWarmUp(boolean warmUp) {
+		this.warmUp = warmUp;
+	}
+
+	public int getWarmUpConnections() {
+		return warmUpConnections;
+	}
+
+	/**
+	 * Connections opened by the warm up, zero only resolves the host.
+	 */
+	public void setWarmUpConnections(int warmUpConnections) {
+		this.warmUpConnections = warmUpConnections;
+	}
+
+	public boolean isConditionalGet() {
+		return conditionalGet;
+	}
+
+	/**
+	 * Skips the responses that did not change since the previous poll, using
+	 * the ETag/Last-Modified validators or a checksum of the body. Only
+	 * applies with skipRead, which would drop their items anyway.
+	 */
+	public void setConditionalGet(boolean conditionalGet) {
+		this.conditionalGet = conditionalGet;
+	}
+
 }
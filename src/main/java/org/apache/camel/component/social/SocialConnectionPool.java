@@ -0,0 +1,272 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Thread safe pool of HTTP connections shared by every {@link SocialHttpClient}
+ * of a {@link SocialComponent}. The pool hands out a single
+ * {@link DefaultHttpClient}; OAuth signing stays with each
+ * {@link SocialHttpClient}, so one pool serves any number of credentials.
+ * Idle and expired connections are evicted in the background while the
+ * component is started.
+ */
+public class SocialConnectionPool extends ServiceSupport {
+
+	private static final transient Log LOG = LogFactory.getLog(SocialConnectionPool.class);
+
+	// longest wait for a connection to warm up, busy routes are warm anyway
+	private static final long WARM_UP_TIMEOUT = 5000;
+
+	private int maxConnectionsPerRoute = 20;
+	private int maxTotalConnections = 200;
+	private long keepAlive = 30000;
+	private long idleTimeout = 60000;
+
+	private CamelContext camelContext;
+	private ThreadSafeClientConnManager connectionManager;
+	private DefaultHttpClient httpClient;
+	private ScheduledExecutorService evictor;
+
+	public SocialConnectionPool() {
+	}
+
+	public SocialConnectionPool(CamelContext camelContext) {
+		this.camelContext = camelContext;
+	}
+
+	public void setCamelContext(CamelContext camelContext) {
+		this.camelContext = camelContext;
+	}
+
+	/**
+	 * The shared client, created with the pool settings on first use.
+	 */
+	public synchronized DefaultHttpClient getHttpClient() {
+		if (httpClient == null) {
+			HttpParams params = new BasicHttpParams();
+			ConnManagerParams.setMaxTotalConnections(params, maxTotalConnections);
+			ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(
+					maxConnectionsPerRoute));
+
+			SchemeRegistry schemes = new SchemeRegistry();
+			schemes.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+			schemes.register(new Scheme("https", SSLSocketFactory.getSocketFactory(), 443));
+
+			connectionManager = new ThreadSafeClientConnManager(params, schemes);
+			httpClient = new DefaultHttpClient(connectionManager, params);
+			httpClient.setKeepAliveStrategy(new BoundedKeepAliveStrategy());
+
+			// the client is shared between credentials, never share cookies
+			httpClient.removeRequestInterceptorByClass(RequestAddCookies.class);
+			httpClient.removeResponseInterceptorByClass(ResponseProcessCookies.class);
+		}
+		return httpClient;
+	}
+
+	public synchronized ThreadSafeClientConnManager getConnectionManager() {
+		getHttpClient();
+		return connectionManager;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		getHttpClient();
+
+		if (camelContext != null && idleTimeout > 0) {
+			long period = Math.max(1000, idleTimeout / 2);
+			evictor = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(this,
+					"SocialConnectionEvictor", 1);
+			evictor.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					evictIdleConnections();
+				}
+			}, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (evictor != null) {
+			camelContext.getExecutorServiceStrategy().shutdownNow(evictor);
+			evictor = null;
+		}
+
+		synchronized (this) {
+			if (connectionManager != null) {
+				connectionManager.shutdown();
+				connectionManager = null;
+				httpClient = null;
+			}
+		}
+	}
+
+	public void evictIdleConnections() {
+		ThreadSafeClientConnManager manager = connectionManager;
+		if (manager != null) {
+			manager.closeExpiredConnections();
+			if (idleTimeout > 0) {
+				manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+			}
+			if (LOG.isTraceEnabled()) {
+				LOG.trace("Connections in pool after eviction: " + manager.getConnectionsInPool());
+			}
+		}
+	}
+
+	/**
+	 * Resolves the host and opens connections to it, left idle in the pool
+	 * for the first requests. Connections already idle in the pool count,
+	 * and at most the connections per route are opened.
+	 * 
+	 * @return the number of connections opened
+	 */
+	public int warmUp(HttpHost target, int connections) throws Exception {
+		InetAddress.getByName(target.getHostName());
+
+		HttpRoute route = new HttpRoute(target, null, "https".equalsIgnoreCase(target
+				.getSchemeName()));
+		ThreadSafeClientConnManager manager = getConnectionManager();
+		HttpParams params = getHttpClient().getParams();
+		int wanted = Math.min(connections, maxConnectionsPerRoute);
+
+		// hold them all, released ones would be leased again
+		List<ManagedClientConnection> leased = new ArrayList<ManagedClientConnection>(wanted);
+		int opened = 0;
+		try {
+			while (leased.size() < wanted) {
+				ManagedClientConnection conn = manager.requestConnection(route, null)
+						.getConnection(WARM_UP_TIMEOUT, TimeUnit.MILLISECONDS);
+				leased.add(conn);
+				if (!conn.isOpen()) {
+					conn.open(route, new BasicHttpContext(), params);
+					opened++;
+				}
+				conn.markReusable();
+			}
+		} finally {
+			for (ManagedClientConnection conn : leased) {
+				manager.releaseConnection(conn, keepAlive, TimeUnit.MILLISECONDS);
+			}
+		}
+		return opened;
+	}
+
+	/**
+	 * Connections currently allocated by the pool, leased or idle.
+	 */
+	public int getConnectionsInPool() {
+		ThreadSafeClientConnManager manager = connectionManager;
+		return manager != null ? manager.getConnectionsInPool() : 0;
+	}
+
+	/**
+	 * Connections currently allocated to the given host.
+	 */
+	public int getConnectionsInPool(HttpHost target) {
+		ThreadSafeClientConnManager manager = connectionManager;
+		return manager != null ? manager.getConnectionsInPool(new HttpRoute(target)) : 0;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public int getMaxTotalConnections() {
+		return maxTotalConnections;
+	}
+
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		this.maxTotalConnections = maxTotalConnections;
+	}
+
+	public long getKeepAlive() {
+		return keepAlive;
+	}
+
+	/**
+	 * Longest time, in milliseconds, an idle connection is kept for reuse when
+	 * the server does not send a shorter <code>Keep-Alive</code> timeout.
+	 */
+	public void setKeepAlive(long keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Idle time, in milliseconds, after which the evictor closes a pooled
+	 * connection. Zero or less disables idle eviction.
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	@Override
+	public String toString() {
+		return "SocialConnectionPool[inPool=" + getConnectionsInPool() + ", maxTotal="
+				+ maxTotalConnections + ", maxPerRoute=" + maxConnectionsPerRoute + "]";
+	}
+
+	private class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+		private final ConnectionKeepAliveStrategy serverStrategy = new DefaultConnectionKeepAliveStrategy();
+
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			long duration = serverStrategy.getKeepAliveDuration(response, context);
+			return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+		}
+
+	}
+
+}
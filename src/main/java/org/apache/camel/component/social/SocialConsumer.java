@@ -16,34 +16,85 @@
  */
 package org.apache.camel.component.social;
 
-import java.util.Deque;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.camel.BatchConsumer;
 import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
+import org.apache.camel.ShutdownRunningTask;
+import org.apache.camel.component.social.SocialSessionPool.PooledSession;
 import org.apache.camel.component.social.path.RateLimitExceededException;
+import org.apache.camel.component.social.path.RateLimitStatus;
+import org.apache.camel.component.social.path.SocialDataCallback;
 import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.component.social.path.SocialPathConditional;
 import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.apache.camel.component.social.path.SocialPathPageable;
+import org.apache.camel.component.social.path.SocialPathRateLimitAware;
 import org.apache.camel.component.social.path.SocialPathSessionAware;
 import org.apache.camel.component.social.path.SocialPathSessionAwareWrapper;
+import org.apache.camel.component.social.path.SocialPathStreaming;
+import org.apache.camel.component.social.util.OrderedCompletionTracker;
+import org.apache.camel.component.social.util.SocialIdHistory;
 import org.apache.camel.impl.ScheduledPollConsumer;
+import org.apache.camel.spi.ExecutorServiceStrategy;
+import org.apache.camel.spi.ShutdownAware;
+import org.apache.camel.util.ServiceHelper;
 
-public class SocialConsumer extends ScheduledPollConsumer implements Processor {
+public class SocialConsumer extends ScheduledPollConsumer implements Processor,
+		BatchConsumer, ShutdownAware {
+
+	private static final String HISTORY_TOKEN = "CamelSocialHistoryToken";
 
 	private SocialEndpoint endpoint;
 	private SocialPathConsumer socialPathConsumer;
 	SocialConfiguration config;
 	private Object MASTER_USER = new Object();
-	private Map<Object, Deque<String>> lastIdMap;
+	private ConcurrentHashMap<Object, SocialIdHistory> lastIdMap;
 	private boolean autoDelay;
 	private long startedOn;
 
+	private final ConcurrentMap<String, CredentialPoller> pollers = new ConcurrentHashMap<String, CredentialPoller>();
+	private ExecutorService fanOutExecutor;
+	private SocialCheckpointStore checkpointStore;
+
+	private long adaptiveDelay;
+	private AdaptivePollSchedule schedule;
+
+	private int maxMessagesPerPoll;
+	private volatile ShutdownRunningTask shutdownRunningTask;
+	private final AtomicInteger pendingExchanges = new AtomicInteger();
+
+	private Expression dispatchOrderBy;
+	private ExecutorService[] dispatchLanes;
+
+	private ExecutorService streamExecutor;
+	private Future<?> streamTask;
+	private final ConcurrentHashMap<Object, OrderedCompletionTracker> trackers = new ConcurrentHashMap<Object, OrderedCompletionTracker>();
+
 	public SocialConsumer(SocialEndpoint endpoint, Processor processor)
 			throws Exception {
 		super(endpoint, processor);
@@ -63,12 +114,20 @@ public class SocialConsumer extends ScheduledPollConsumer implements Processor {
 					userCredentials);
 		}
 
-		lastIdMap = new HashMap<Object, Deque<String>>(config.getMaxKeepId());
+		lastIdMap = new ConcurrentHashMap<Object, SocialIdHistory>();
+		checkpointStore = config.getCheckpointStore();
 	}
 
 	@Override
 	public void start() throws Exception {
 		startedOn = System.currentTimeMillis();
+		ServiceHelper.startService(checkpointStore);
+		if (config.getDispatchOrderBy() != null) {
+			dispatchOrderBy = endpoint.getCamelContext().resolveLanguage(
+					config.getDispatchOrderByLanguage()).createExpression(
+					config.getDispatchOrderBy());
+		}
+		endpoint.warmUp();
 		super.start();
 	}
 
@@ -85,19 +144,132 @@ public class SocialConsumer extends ScheduledPollConsumer implements Processor {
 
 	@Override
 	protected void poll() throws Exception {
+		if (socialPathConsumer instanceof SocialPathStreaming) {
+			startStream();
+			return;
+		}
+
+		evictIdlePollers();
+		if (config.hasCredentialSource()) {
+			Collection<SocialOAuth> credentials = config.getCredentialSource()
+					.getCredentials();
+			pollCredentials(credentials, endpoint.getOAuthConsumer(null),
+					getQueryParams(), config.isAdaptivePoll());
+			removeStalePollers(credentials);
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		if (config.isAdaptivePoll() && schedule == null) {
+			schedule = createSchedule(socialPathConsumer);
+		}
+		if (schedule != null && !schedule.isDue(now)) {
+			return;
+		}
+
 		SocialOAuth oAuthUser = endpoint.getOAuthUser(null);
 		Object token = oAuthUser != null ? oAuthUser.getToken() : MASTER_USER;
-		pollSocialPath(socialPathConsumer, getLastId(token),
-				oAuthUser, endpoint.getOAuthConsumer(null), getQueryParams());
+		int items = pollSocialPath(socialPathConsumer, getLastId(token),
+				oAuthUser, endpoint.getOAuthConsumer(null),
+				getQueryParams(socialPathConsumer, schedule));
+		if (schedule != null) {
+			schedule.update(items, getRateLimitStatus(socialPathConsumer), now);
+		}
+	}
+
+	/**
+	 * Opens the stream of a streaming path on its own thread, unless it is
+	 * already open. Polls only check the stream is still running.
+	 */
+	private synchronized void startStream() {
+		if (streamTask != null && !streamTask.isDone()) {
+			return;
+		}
+		if (streamExecutor == null) {
+			streamExecutor = endpoint.getCamelContext().getExecutorServiceStrategy()
+					.newSingleThreadExecutor(this, "SocialStream");
+		}
+
+		final SocialPathStreaming stream = (SocialPathStreaming) socialPathConsumer;
+		final SocialOAuth userOAuth = endpoint.getOAuthUser(null);
+		final SocialOAuth consumerOAuth = endpoint.getOAuthConsumer(null);
+		stream.open();
+		streamTask = streamExecutor.submit(new Runnable() {
+			public void run() {
+				stream.stream(getQueryParams(), new SocialDataCallback<SocialData>() {
+					public void onData(SocialData data) {
+						try {
+							consumeItems(Collections.singletonList(data), userOAuth,
+									consumerOAuth);
+						} catch (Exception e) {
+							getExceptionHandler().handleException(e);
+						}
+					}
+
+					public void onError(Exception cause) {
+						log.warn("Social stream " + config.getPath()
+								+ " dropped, reconnecting: " + cause.getMessage());
+					}
+				});
+			}
+		});
+	}
+
+	private synchronized void closeStream() {
+		if (streamTask != null) {
+			((SocialPathStreaming) socialPathConsumer).close();
+			streamTask = null;
+		}
+	}
+
+	@Override
+	protected void doSuspend() throws Exception {
+		super.doSuspend();
+		closeStream();
+	}
+
+	/**
+	 * Schedule of a path starting from the configured, rate based delay.
+	 */
+	private AdaptivePollSchedule createSchedule(SocialPathConsumer path) {
+		long initialDelay = adaptiveDelay > 0 ? adaptiveDelay : config
+				.getMinPollDelay();
+		if (path instanceof SocialPathPageable) {
+			SocialPathPageable pageable = (SocialPathPageable) path;
+			return new AdaptivePollSchedule(initialDelay, config.getMinPollDelay(),
+					config.getMaxPollDelay(), pageable.getDefaultPageSize(),
+					pageable.getMaxPageSize());
+		}
+		// page size unknown: a poll is never taken as full
+		return new AdaptivePollSchedule(initialDelay, config.getMinPollDelay(),
+				config.getMaxPollDelay(), Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	private static RateLimitStatus getRateLimitStatus(SocialPathConsumer path) {
+		if (path instanceof SocialPathRateLimitAware) {
+			return ((SocialPathRateLimitAware) path).getRateLimitStatus();
+		}
+		return null;
 	}
 
-	private void pollSocialPath(SocialPathConsumer socialPathConsumer,
+	/**
+	 * Delay the schedules of an adaptive consumer start from, the consumer
+	 * itself then only ticks to check which poll is due.
+	 */
+	void setAdaptiveDelay(long adaptiveDelay) {
+		this.adaptiveDelay = adaptiveDelay;
+	}
+
+	AdaptivePollSchedule getSchedule() {
+		return schedule;
+	}
+
+	private int pollSocialPath(SocialPathConsumer socialPathConsumer,
 			String sinceSocialId, SocialOAuth userOAuth, SocialOAuth consumerOAuth, Map<String, Object> specificParams) throws Exception {
 
-		// TODO remover
-		Iterable<SocialData> socialData = null;
 		try {
-			socialData = socialPathConsumer.readData(sinceSocialId, specificParams);
+			return readSocialPath(socialPathConsumer, sinceSocialId, userOAuth,
+					consumerOAuth, specificParams);
 		} catch (RateLimitExceededException e) {
 			long timeToWait = e.getDelay();
 			if (autoDelay == true) {
@@ -109,68 +281,609 @@ public class SocialConsumer extends ScheduledPollConsumer implements Processor {
 				timeToWait = e.getDelay();
 			}
 
-			Timer timer = new Timer();
-			timer.schedule(new TimerTask() {
-				@Override
+			synchronized (this) {
+				suspend();
+			}
+			Runnable resume = new Runnable() {
 				public void run() {
-					try {
-						synchronized (SocialConsumer.this) {
-							SocialConsumer.this.resume();
-						}
-					} catch (Exception e) {
-						e.printStackTrace();
+					synchronized (SocialConsumer.this) {
+						SocialConsumer.this.resume();
 					}
 				}
-			}, timeToWait);
+			};
 
-			synchronized (this) {
-				suspend();
+			SocialRateLimitManager rateLimitManager = endpoint.getRateLimitManager();
+			if (rateLimitManager != null) {
+				// resumed from the scheduler shared by the component
+				rateLimitManager.schedule(resume, timeToWait);
+			} else {
+				scheduleResume(resume, timeToWait);
 			}
+			return 0;
+		}
+	}
 
-		} catch (SocialDataFetchError e) {
+	/**
+	 * Reads the path and consumes its new items.
+	 * 
+	 * @return the number of items read, consumed or not
+	 */
+	private int readSocialPath(SocialPathConsumer socialPathConsumer,
+			String sinceSocialId, SocialOAuth userOAuth,
+			SocialOAuth consumerOAuth, Map<String, Object> specificParams)
+			throws Exception {
+		Iterable<SocialData> socialData = socialPathConsumer.readData(
+				sinceSocialId, specificParams);
+
+		if (socialData == null) {
+			return 0;
+		}
+		try {
+			return consumeItems(socialData, userOAuth, consumerOAuth);
+		} catch (Exception e) {
+			if (socialPathConsumer instanceof SocialPathConditional) {
+				// the same response comes again, it must not be skipped
+				((SocialPathConditional) socialPathConsumer).forgetReads();
+			}
 			throw e;
 		}
+	}
 
-		if (socialData == null) {
-			return;
+	/**
+	 * Routes the items not seen yet, the way the endpoint is configured to.
+	 * 
+	 * @return the number of items given, consumed or not
+	 */
+	private int consumeItems(Iterable<SocialData> socialData,
+			SocialOAuth userOAuth, SocialOAuth consumerOAuth) throws Exception {
+		boolean oldestFirst = config.isEmitOldestFirst();
+		if (oldestFirst) {
+			socialData = sortOldestFirst(socialData);
 		}
 
+		Object token = userOAuth != null ? userOAuth.getToken() : MASTER_USER;
+		int items = 0;
+		List<SocialData> fresh = new ArrayList<SocialData>();
 		for (SocialData sd : socialData) {
-			if (config.isSkipRead()) {
-				Object token = userOAuth != null ? userOAuth.getToken() : MASTER_USER;
-				Deque<String> idHistory = lastIdMap.get(token);
-				if (idHistory != null && idHistory.contains(sd.getId())) {
-					continue;
+			items++;
+			if (!isSeen(token, sd.getId())) {
+				fresh.add(sd);
+			}
+		}
+
+		if (maxMessagesPerPoll > 0 && fresh.size() > maxMessagesPerPoll) {
+			// keep the oldest ones, the newer are read again by the next poll
+			if (!oldestFirst) {
+				fresh = sortOldestFirst(fresh);
+				oldestFirst = true;
+			}
+			fresh = new ArrayList<SocialData>(fresh.subList(0, maxMessagesPerPoll));
+		}
+		if (fresh.isEmpty()) {
+			return items;
+		}
+
+		if (config.isBatchExchange()) {
+			consumeBatch(fresh, token, userOAuth, consumerOAuth);
+			return items;
+		}
+
+		if (config.getDispatchThreads() > 0) {
+			// ids are committed in dispatch order, the since id and the
+			// checkpoint must not pass items still in flight
+			if (!oldestFirst) {
+				fresh = sortOldestFirst(fresh);
+			}
+			dispatch(fresh, token, userOAuth, consumerOAuth);
+			return items;
+		}
+
+		if (!oldestFirst && config.isSkipRead()) {
+			// a shutdown may cut the batch short, the ids recorded until then
+			// must not pass the items left out
+			fresh = sortOldestFirst(fresh);
+		}
+		Queue<Object> exchanges = new LinkedList<Object>();
+		for (SocialData sd : fresh) {
+			Exchange e = createExchange(sd, userOAuth, consumerOAuth);
+			e.setProperty(HISTORY_TOKEN, token);
+			exchanges.add(e);
+		}
+		processBatch(exchanges);
+		return items;
+	}
+
+	public void setMaxMessagesPerPoll(int maxMessagesPerPoll) {
+		this.maxMessagesPerPoll = maxMessagesPerPoll;
+	}
+
+	public int getMaxMessagesPerPoll() {
+		return maxMessagesPerPoll;
+	}
+
+	/**
+	 * Routes the exchanges of a poll one by one, marking each with its place
+	 * in the batch, and records their ids once processed.
+	 */
+	public void processBatch(Queue<Object> exchanges) throws Exception {
+		int total = exchanges.size();
+		pendingExchanges.addAndGet(total);
+		try {
+			for (int index = 0; index < total && isBatchAllowed(); index++) {
+				Exchange exchange = (Exchange) exchanges.poll();
+				exchange.setProperty(Exchange.BATCH_INDEX, index);
+				exchange.setProperty(Exchange.BATCH_SIZE, total);
+				exchange.setProperty(Exchange.BATCH_COMPLETE, index == total - 1);
+
+				try {
+					getProcessor().process(exchange);
+				} finally {
+					pendingExchanges.decrementAndGet();
 				}
+
+				addToHistory(exchange.getProperty(HISTORY_TOKEN),
+						exchange.getIn().getHeader(SocialHeaders.SOCIAL_DATA_ID, String.class));
 			}
+		} finally {
+			pendingExchanges.addAndGet(-exchanges.size());
+		}
+	}
+
+	/**
+	 * Hands the exchanges of a poll to the dispatch lanes and returns without
+	 * waiting for them. Ids enter the history in poll order, each once every
+	 * exchange polled before it has completed, so the since_id never passes
+	 * an item still in flight.
+	 */
+	private void dispatch(List<SocialData> batch, final Object token,
+			SocialOAuth userOAuth, SocialOAuth consumerOAuth) throws Exception {
+		final OrderedCompletionTracker tracker = getTracker(token);
+		int total = batch.size();
+		for (int index = 0; index < total && isBatchAllowed(); index++) {
+			SocialData sd = batch.get(index);
+			final Exchange exchange = createExchange(sd, userOAuth, consumerOAuth);
+			exchange.setProperty(Exchange.BATCH_INDEX, index);
+			exchange.setProperty(Exchange.BATCH_SIZE, total);
+			exchange.setProperty(Exchange.BATCH_COMPLETE, index == total - 1);
+
+			final long sequence = tracker.dispatch(sd.getId());
+			pendingExchanges.incrementAndGet();
+			getDispatchLane(exchange, sequence).execute(new Runnable() {
+				public void run() {
+					try {
+						getProcessor().process(exchange);
+					} catch (Exception e) {
+						exchange.setException(e);
+					} finally {
+						pendingExchanges.decrementAndGet();
+						commit(token, tracker, sequence);
+					}
+					if (exchange.getException() != null) {
+						getExceptionHandler().handleException(
+								"Error processing exchange", exchange,
+								exchange.getException());
+					}
+				}
+			});
+		}
+	}
+
+	private void commit(Object token, OrderedCompletionTracker tracker,
+			long sequence) {
+		// in order: the tracker lock also orders the history appends
+		synchronized (tracker) {
+			for (String id : tracker.complete(sequence)) {
+				try {
+					addToHistory(token, id);
+				} catch (IOException e) {
+					log.warn("Could not checkpoint social data id " + id, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Whether the id was consumed or is still being dispatched. Both are
+	 * checked under the tracker lock so a commit in between is not missed.
+	 */
+	private boolean isSeen(Object token, String id) throws IOException {
+		OrderedCompletionTracker tracker = trackers.get(token);
+		if (tracker == null) {
+			return config.isSkipRead() && isInHistory(token, id);
+		}
+		synchronized (tracker) {
+			return tracker.isPending(id)
+					|| (config.isSkipRead() && isInHistory(token, id));
+		}
+	}
+
+	private OrderedCompletionTracker getTracker(Object token) {
+		OrderedCompletionTracker tracker = trackers.get(token);
+		if (tracker == null) {
+			OrderedCompletionTracker created = new OrderedCompletionTracker();
+			tracker = trackers.putIfAbsent(token, created);
+			if (tracker == null) {
+				tracker = created;
+			}
+		}
+		return tracker;
+	}
+
+	/**
+	 * Lane of an exchange: exchanges with the same dispatchOrderBy key share a
+	 * single threaded lane and complete in poll order.
+	 */
+	private ExecutorService getDispatchLane(Exchange exchange, long sequence) {
+		ExecutorService[] lanes = getDispatchLanes();
+		if (lanes.length == 1) {
+			return lanes[0];
+		}
+		String key = dispatchOrderBy.evaluate(exchange, String.class);
+		int hash = key != null ? key.hashCode() : (int) sequence;
+		return lanes[(hash & Integer.MAX_VALUE) % lanes.length];
+	}
+
+	private synchronized ExecutorService[] getDispatchLanes() {
+		if (dispatchLanes == null) {
+			ExecutorServiceStrategy strategy = endpoint.getCamelContext()
+					.getExecutorServiceStrategy();
+			int threads = config.getDispatchThreads();
+			if (dispatchOrderBy == null) {
+				dispatchLanes = new ExecutorService[] { strategy.newFixedThreadPool(
+						this, "SocialDispatcher", threads) };
+			} else {
+				dispatchLanes = new ExecutorService[threads];
+				for (int i = 0; i < threads; i++) {
+					dispatchLanes[i] = strategy.newSingleThreadExecutor(this,
+							"SocialDispatcher");
+				}
+			}
+		}
+		return dispatchLanes;
+	}
+
+	public boolean isBatchAllowed() {
+		if (!isRunAllowed()) {
+			return false;
+		}
+		// the remaining exchanges are newer than the ids recorded so far, they
+		// are read again after a restart
+		return shutdownRunningTask != ShutdownRunningTask.CompleteCurrentTaskOnly;
+	}
 
-			consume(socialPathConsumer, sd, userOAuth, consumerOAuth);
+	public boolean deferShutdown(ShutdownRunningTask shutdownRunningTask) {
+		this.shutdownRunningTask = shutdownRunningTask;
+		return false;
+	}
+
+	public int getPendingExchangesSize() {
+		if (shutdownRunningTask == ShutdownRunningTask.CompleteCurrentTaskOnly) {
+			return 0;
 		}
+		return pendingExchanges.get();
 	}
 
-	private void addToHistory(Object userToken, String id) {
+	/**
+	 * Routes the items of a poll as a single exchange with a
+	 * <code>List&lt;SocialData&gt;</code> body.
+	 */
+	private void consumeBatch(List<SocialData> batch, Object token,
+			SocialOAuth userOAuth, SocialOAuth consumerOAuth) throws Exception {
+		Exchange e = getEndpoint().createExchange();
+		e.getIn().setBody(batch);
+		e.getIn().setHeader(SocialHeaders.SOCIAL_BATCH_SIZE, batch.size());
+		e.getIn().setHeader(SocialHeaders.SOCIAL_CONSUMER_OAUTH, consumerOAuth);
+		e.getIn().setHeader(SocialHeaders.SOCIAL_USER_OAUTH, userOAuth);
+		e.setProperty(Exchange.BATCH_INDEX, 0);
+		e.setProperty(Exchange.BATCH_SIZE, 1);
+		e.setProperty(Exchange.BATCH_COMPLETE, true);
+		getProcessor().process(e);
+
+		for (SocialData sd : batch) {
+			addToHistory(token, sd.getId());
+		}
+	}
+
+	/**
+	 * Sorts a batch with the provider id order, or reverses it when the
+	 * provider has none since batches come newest first.
+	 */
+	private List<SocialData> sortOldestFirst(Iterable<SocialData> socialData) {
+		List<SocialData> list = new ArrayList<SocialData>();
+		for (SocialData sd : socialData) {
+			list.add(sd);
+		}
+
+		final Comparator<String> comparator = config.getProvider().getIdComparator();
+		if (comparator == null) {
+			Collections.reverse(list);
+		} else {
+			Collections.sort(list, new Comparator<SocialData>() {
+				public int compare(SocialData a, SocialData b) {
+					return comparator.compare(a.getId(), b.getId());
+				}
+			});
+		}
+		return list;
+	}
+
+	private void addToHistory(Object userToken, String id) throws IOException {
 		if (userToken == null) {
 			userToken = MASTER_USER;
 		}
-		Deque<String> history = lastIdMap.get(userToken);
+		if (getHistory(userToken, true).add(id) && checkpointStore != null) {
+			checkpointStore.append(getCheckpointKey(userToken), id);
+		}
+	}
+
+	private boolean isInHistory(Object userToken, String id) throws IOException {
+		SocialIdHistory history = getHistory(userToken, false);
+		return history != null && history.contains(id);
+	}
+
+	private String getLastId(Object userToken) throws IOException {
+		if (!config.isSkipRead() || userToken == null) {
+			return null;
+		}
+
+		SocialIdHistory history = getHistory(userToken, false);
 		if (history == null) {
-			history = new LinkedList<String>();
-			lastIdMap.put(userToken, history);
+			return null;
+		}
+
+		// the highest id seen, not the last consumed one: batches may come
+		// newest first
+		String highest = history.getHighest();
+		return highest != null ? highest : history.getLast();
+	}
+
+	/**
+	 * Resumes with a timer of its own, for endpoints outside of a
+	 * {@link SocialComponent}.
+	 */
+	private static void scheduleResume(final Runnable resume, long delay) {
+		final Timer timer = new Timer("SocialConsumerResume", true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					resume.run();
+				} finally {
+					timer.cancel();
+				}
+			}
+		}, delay);
+	}
+
+	/**
+	 * History of the token, restored from the checkpoint store the first time
+	 * it is needed.
+	 */
+	private SocialIdHistory getHistory(Object userToken, boolean create) throws IOException {
+		SocialIdHistory history = lastIdMap.get(userToken);
+		if (history != null) {
+			return history;
 		}
 
-		if (history.size() + 1 == config.getMaxKeepId()) {
-			history.removeFirst();
+		List<String> checkpoint = Collections.emptyList();
+		if (checkpointStore != null) {
+			checkpoint = checkpointStore.load(getCheckpointKey(userToken));
+		}
+		if (checkpoint.isEmpty() && !create) {
+			return null;
 		}
 
-		history.add(id);
+		history = new SocialIdHistory(config.getMaxKeepId(), config.getProvider()
+				.getIdComparator());
+		for (String id : checkpoint) {
+			history.add(id);
+		}
+		SocialIdHistory existing = lastIdMap.putIfAbsent(userToken, history);
+		return existing != null ? existing : history;
 	}
 
-	private String getLastId(Object userToken) {
-		if (config.isSkipRead() && lastIdMap.containsKey(userToken)) {
-			return lastIdMap.get(userToken).getLast();
+	private String getCheckpointKey(Object userToken) {
+		String prefix = config.getCheckpointKey() != null ? config.getCheckpointKey()
+				: config.getPath();
+		return prefix + "/" + (userToken == MASTER_USER ? "-" : userToken);
+	}
+
+	/**
+	 * Polls every credential on the fan-out executor and waits for all of
+	 * them. A credential failing or being rate limited does not hold back the
+	 * others.
+	 */
+	private void pollCredentials(Collection<SocialOAuth> credentials,
+			SocialOAuth consumerOAuth, final Map<String, Object> specificParams,
+			final boolean adaptive) throws Exception {
+		List<CredentialPoller> polled = new ArrayList<CredentialPoller>(
+				credentials.size());
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(
+				credentials.size());
+		for (SocialOAuth credential : credentials) {
+			final CredentialPoller task = getPoller(credential, consumerOAuth);
+			polled.add(task);
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					task.poll(specificParams, adaptive);
+					return null;
+				}
+			});
 		}
 
-		return null;
+		List<Future<Object>> results = getFanOutExecutor().invokeAll(tasks);
+		for (int i = 0; i < results.size(); i++) {
+			try {
+				results.get(i).get();
+			} catch (ExecutionException e) {
+				log.warn("Could not poll social path for token "
+						+ polled.get(i).userOAuth.getToken(), e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * The poller of the credential, a new one when it has none yet or its
+	 * secrets changed. A scheduled poll and a message may ask at the same
+	 * time, only one poller is kept per token.
+	 */
+	private CredentialPoller getPoller(SocialOAuth credential,
+			SocialOAuth consumerOAuth) {
+		String token = credential.getToken();
+		while (true) {
+			CredentialPoller poller = pollers.get(token);
+			if (poller != null && poller.matches(credential, consumerOAuth)) {
+				poller.touch();
+				return poller;
+			}
+
+			CredentialPoller created = new CredentialPoller(credential, consumerOAuth);
+			boolean won = poller == null ? pollers.putIfAbsent(token, created) == null
+					: pollers.replace(token, poller, created);
+			if (won) {
+				if (poller != null) {
+					poller.close();
+				}
+				return created;
+			}
+			created.close();
+		}
+	}
+
+	/**
+	 * Closes the sessions of the credentials not polled for the idle timeout.
+	 */
+	private void evictIdlePollers() {
+		long idleTimeout = config.getCredentialIdleTimeout();
+		if (idleTimeout <= 0 || pollers.isEmpty()) {
+			return;
+		}
+
+		long oldestUse = System.currentTimeMillis() - idleTimeout;
+		for (Map.Entry<String, CredentialPoller> entry : pollers.entrySet()) {
+			CredentialPoller poller = entry.getValue();
+			if (poller.lastUsed < oldestUse && pollers.remove(entry.getKey(), poller)) {
+				poller.close();
+			}
+		}
+	}
+
+	/**
+	 * Number of credentials with a poller, for tests.
+	 */
+	int getCredentialPollerCount() {
+		return pollers.size();
+	}
+
+	private void removeStalePollers(Collection<SocialOAuth> credentials) {
+		Set<String> tokens = new HashSet<String>();
+		for (SocialOAuth credential : credentials) {
+			tokens.add(credential.getToken());
+		}
+
+		for (String token : new ArrayList<String>(pollers.keySet())) {
+			if (!tokens.contains(token)) {
+				CredentialPoller poller = pollers.remove(token);
+				if (poller != null) {
+					poller.close();
+				}
+				lastIdMap.remove(token);
+				trackers.remove(token);
+			}
+		}
+	}
+
+	private synchronized ExecutorService getFanOutExecutor() {
+		if (fanOutExecutor == null) {
+			fanOutExecutor = endpoint.getCamelContext()
+					.getExecutorServiceStrategy().newFixedThreadPool(this,
+							"SocialFanOutPoller", config.getMaxConcurrentPolls());
+		}
+		return fanOutExecutor;
+	}
+
+	/**
+	 * Polling state of a single credential: its own authenticated path, kept
+	 * between polls, the time it is rate limited until and its own schedule
+	 * when polling adaptively.
+	 */
+	private final class CredentialPoller {
+
+		private final SocialOAuth userOAuth;
+		private final SocialOAuth consumerOAuth;
+		private SocialPathConsumer path;
+		private volatile long suspendedUntil;
+		private volatile long lastUsed = System.currentTimeMillis();
+		private boolean closed;
+		private AdaptivePollSchedule schedule;
+
+		CredentialPoller(SocialOAuth userOAuth, SocialOAuth consumerOAuth) {
+			this.userOAuth = userOAuth;
+			this.consumerOAuth = consumerOAuth;
+		}
+
+		void touch() {
+			lastUsed = System.currentTimeMillis();
+		}
+
+		boolean matches(SocialOAuth user, SocialOAuth consumer) {
+			return userOAuth.getSecret().equals(user.getSecret())
+					&& sameCredentials(consumerOAuth, consumer);
+		}
+
+		synchronized void poll(Map<String, Object> params, boolean adaptive)
+				throws Exception {
+			if (closed) {
+				// replaced or evicted while waiting for its turn
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if (now < suspendedUntil) {
+				return;
+			}
+			if (schedule != null && !schedule.isDue(now)) {
+				return;
+			}
+
+			if (path == null) {
+				SocialPathConsumer newPath = endpoint.createSocialPath();
+				SocialPathSessionAwareWrapper.wrapper(newPath).initSession(
+						consumerOAuth, userOAuth);
+				path = newPath;
+			}
+			if (adaptive && schedule == null) {
+				schedule = createSchedule(path);
+			}
+
+			try {
+				int items = readSocialPath(path, getLastId(userOAuth.getToken()),
+						userOAuth, consumerOAuth, getQueryParams(params, path,
+								schedule));
+				if (schedule != null) {
+					schedule.update(items, getRateLimitStatus(path), now);
+				}
+			} catch (RateLimitExceededException e) {
+				suspendedUntil = System.currentTimeMillis() + e.getDelay();
+				log.warn("Rate limit exceeded for token " + userOAuth.getToken()
+						+ ", skipping it for " + e.getDelay() + " ms");
+			}
+		}
+
+		synchronized void close() {
+			closed = true;
+			if (path != null) {
+				SocialPathSessionAwareWrapper.wrapper(path).endSession();
+				path = null;
+			}
+		}
+	}
+
+	private static boolean sameCredentials(SocialOAuth a, SocialOAuth b) {
+		if (a == null || b == null) {
+			return a == b;
+		}
+		return a.getToken().equals(b.getToken())
+				&& a.getSecret().equals(b.getSecret());
 	}
 
 	@Override
@@ -183,21 +896,53 @@ public class SocialConsumer extends ScheduledPollConsumer implements Processor {
 			}
 		}
 
+		for (CredentialPoller poller : pollers.values()) {
+			poller.close();
+		}
+		pollers.clear();
+		closeStream();
+
+		synchronized (this) {
+			if (fanOutExecutor != null) {
+				endpoint.getCamelContext().getExecutorServiceStrategy()
+						.shutdownNow(fanOutExecutor);
+				fanOutExecutor = null;
+			}
+			if (streamExecutor != null) {
+				endpoint.getCamelContext().getExecutorServiceStrategy()
+						.shutdownNow(streamExecutor);
+				streamExecutor = null;
+			}
+			if (dispatchLanes != null) {
+				for (ExecutorService lane : dispatchLanes) {
+					endpoint.getCamelContext().getExecutorServiceStrategy()
+							.shutdownNow(lane);
+				}
+				dispatchLanes = null;
+			}
+		}
+
 		super.stop();
 	}
 
 	private void consume(SocialPathConsumer socialPC, SocialData socialData,
 			SocialOAuth userOAuth, SocialOAuth consumerOAuth) throws Exception {
-		Exchange e = getEndpoint().createExchange();
-		endpoint.configureMessage(e.getIn(), socialData);
-		e.getIn().setHeader(SocialHeaders.SOCIAL_CONSUMER_OAUTH, consumerOAuth);
-		e.getIn().setHeader(SocialHeaders.SOCIAL_USER_OAUTH, userOAuth);
+		Exchange e = createExchange(socialData, userOAuth, consumerOAuth);
 		getProcessor().process(e);
 
 		Object token = userOAuth != null ? userOAuth.getToken() : MASTER_USER;
 		addToHistory(token, socialData.getId());
 	}
 
+	private Exchange createExchange(SocialData socialData, SocialOAuth userOAuth,
+			SocialOAuth consumerOAuth) throws Exception {
+		Exchange e = getEndpoint().createExchange();
+		endpoint.configureMessage(e.getIn(), socialData);
+		e.getIn().setHeader(SocialHeaders.SOCIAL_CONSUMER_OAUTH, consumerOAuth);
+		e.getIn().setHeader(SocialHeaders.SOCIAL_USER_OAUTH, userOAuth);
+		return e;
+	}
+
 	public void process(Exchange arg0) throws Exception {
 		Message in = arg0.getIn();
 		SocialOAuth userOAuth = endpoint.getOAuthUser(arg0);
@@ -209,12 +954,36 @@ public class SocialConsumer extends ScheduledPollConsumer implements Processor {
 		}
 
 		SocialPathConsumer spc = socialPathConsumer;
+		SocialSessionPool pool = endpoint.getSessionPool();
+		PooledSession session = null;
 		if (userOAuth != null && consumerOAuth != null) {
-			spc = endpoint.createSocialPath();
-			SocialPathSessionAware wrapper = SocialPathSessionAwareWrapper
-					.wrapper(spc);
-			wrapper.initSession(consumerOAuth, userOAuth);
+			if (pool != null) {
+				// the same few users keep coming back, reuse their sessions
+				session = pool.borrow(endpoint, consumerOAuth, userOAuth);
+				spc = session.getPath();
+			} else {
+				spc = endpoint.createSocialPath();
+				SocialPathSessionAware wrapper = SocialPathSessionAwareWrapper
+						.wrapper(spc);
+				wrapper.initSession(consumerOAuth, userOAuth);
+			}
+		}
+
+		try {
+			process(in, spc, userOAuth, consumerOAuth);
+		} finally {
+			if (session != null) {
+				pool.release(session);
+			} else if (userOAuth != null) {
+				SocialPathSessionAware wrapper = SocialPathSessionAwareWrapper
+						.wrapper(spc);
+				wrapper.endSession();
+			}
 		}
+	}
+
+	private void process(Message in, SocialPathConsumer spc, SocialOAuth userOAuth,
+			SocialOAuth consumerOAuth) throws Exception {
 
 		boolean pollPath = in.getHeader(SocialHeaders.SOCIAL_POLL_PATH,
 				Boolean.FALSE, Boolean.class);
@@ -226,8 +995,22 @@ public class SocialConsumer extends ScheduledPollConsumer implements Processor {
 					.getOauthToken());
 		}
 
-		if (pollPath) {
-			Map<String, Object> specificParams = in.getHeader(SocialHeaders.SOCIAL_PROVIDER_PARAMS, getQueryParams(), Map.class);
+		Collection<?> credentials = in.getHeader(SocialHeaders.SOCIAL_CREDENTIALS,
+				Collection.class);
+		if (pollPath && credentials != null) {
+			if (consumerOAuth == null) {
+				log.warn("Message with a list of user OAuth credentials was found. But this social endpoint has no consumer OAuth credentials to poll them.");
+				return;
+			}
+			Map<String, Object> specificParams = getProviderParams(in);
+			List<SocialOAuth> list = new ArrayList<SocialOAuth>(credentials.size());
+			for (Object credential : credentials) {
+				list.add((SocialOAuth) credential);
+			}
+			pollCredentials(list, consumerOAuth, specificParams, false);
+			evictIdlePollers();
+		} else if (pollPath) {
+			Map<String, Object> specificParams = getProviderParams(in);
 			pollSocialPath(spc, sinceSocialId, userOAuth, consumerOAuth, specificParams);
 		}
 
@@ -239,12 +1022,11 @@ public class SocialConsumer extends ScheduledPollConsumer implements Processor {
 			updateSocialPath(spc, in.getBody(),
 					new HashMap<String, Object>(in.getHeaders()), userOAuth, consumerOAuth);
 		}
+	}
 
-		if (userOAuth != null) {
-			SocialPathSessionAware wrapper = SocialPathSessionAwareWrapper
-					.wrapper(spc);
-			wrapper.endSession();
-		}
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> getProviderParams(Message in) {
+		return in.getHeader(SocialHeaders.SOCIAL_PROVIDER_PARAMS, getQueryParams(), Map.class);
 	}
 
 	private Map<String, Object> getQueryParams() {
@@ -253,6 +1035,25 @@ public class SocialConsumer extends ScheduledPollConsumer implements Processor {
 		return queryParams;
 	}
 
+	private Map<String, Object> getQueryParams(SocialPathConsumer path,
+			AdaptivePollSchedule schedule) {
+		return getQueryParams(getQueryParams(), path, schedule);
+	}
+
+	/**
+	 * Copy of the params asking for the page size of the schedule.
+	 */
+	private static Map<String, Object> getQueryParams(Map<String, Object> params,
+			SocialPathConsumer path, AdaptivePollSchedule schedule) {
+		if (schedule == null || !(path instanceof SocialPathPageable)) {
+			return params;
+		}
+		Map<String, Object> queryParams = new HashMap<String, Object>(params);
+		queryParams.put(((SocialPathPageable) path).getPageSizeParam(),
+				String.valueOf(schedule.getPageSize()));
+		return queryParams;
+	}
+
 	private void updateSocialPath(SocialPathConsumer spc, Object body,
 			HashMap<String, Object> headers, SocialOAuth userOAuth, SocialOAuth consumerOAuth) throws Exception {
 		try {
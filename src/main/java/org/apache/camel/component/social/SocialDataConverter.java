@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.camel.Converter;
+import org.apache.camel.Exchange;
+import org.apache.camel.FallbackConverter;
+import org.apache.camel.spi.TypeConverterRegistry;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Decodes {@link LazySocialData} bodies on first access.
+ */
+@Converter
+public final class SocialDataConverter {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final DocumentBuilderFactory DOM_FACTORY = DocumentBuilderFactory.newInstance();
+
+	static {
+		MAPPER.configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		DOM_FACTORY.setNamespaceAware(true);
+	}
+
+	private SocialDataConverter() {
+	}
+
+	@Converter
+	public static String toString(LazySocialData data) {
+		return data.toString();
+	}
+
+	@Converter
+	public static byte[] toByteArray(LazySocialData data) {
+		return data.toByteArray();
+	}
+
+	@Converter
+	public static InputStream toInputStream(LazySocialData data) {
+		return new ByteArrayInputStream(data.getBuffer(), data.getOffset(), data.getLength());
+	}
+
+	@Converter
+	public static Reader toReader(LazySocialData data) throws IOException {
+		return new InputStreamReader(toInputStream(data), "UTF-8");
+	}
+
+	@Converter
+	public static JsonNode toJsonNode(LazySocialData data) throws IOException {
+		return MAPPER.readValue(data.getBuffer(), data.getOffset(), data.getLength(), JsonNode.class);
+	}
+
+	@Converter
+	public static Document toDocument(LazySocialData data) throws ParserConfigurationException,
+			SAXException, IOException {
+		return DOM_FACTORY.newDocumentBuilder().parse(toInputStream(data));
+	}
+
+	/**
+	 * Binds JSON bodies to any other requested type (maps, POJOs) with a shared
+	 * {@link ObjectMapper}.
+	 */
+	@FallbackConverter
+	public static <T> T convertTo(Class<T> type, Exchange exchange, Object value,
+			TypeConverterRegistry registry) {
+		if (!(value instanceof LazySocialData)) {
+			return null;
+		}
+
+		LazySocialData data = (LazySocialData) value;
+		if (data.getFormat() != LazySocialData.Format.JSON || type.isPrimitive()
+				|| type.getName().startsWith("java.lang.")) {
+			return null;
+		}
+
+		try {
+			return MAPPER.readValue(data.getBuffer(), data.getOffset(), data.getLength(), type);
+		} catch (Exception e) {
+			// not bindable to this type, let other converters try
+			return null;
+		}
+	}
+
+}
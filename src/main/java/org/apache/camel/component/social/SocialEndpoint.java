@@ -18,6 +18,8 @@ package org.apache.camel.component.social;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.camel.Consumer;
 import org.apache.camel.Exchange;
@@ -25,6 +27,7 @@ import org.apache.camel.ExchangePattern;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.apache.camel.Producer;
+import org.apache.camel.component.social.path.SocialPathConfigurable;
 import org.apache.camel.component.social.path.SocialPathConsumer;
 import org.apache.camel.component.social.util.SocialUtils;
 import org.apache.camel.impl.ScheduledPollEndpoint;
@@ -49,6 +52,10 @@ public class SocialEndpoint extends ScheduledPollEndpoint {
 	private SocialOAuth consumerOAuth;
 	private SocialOAuth userOAuth;
 
+	private SocialRetryPolicy retryPolicy;
+
+	private Future<Boolean> warmUp;
+
 	public SocialEndpoint(String uri, SocialComponent component,
 			SocialConfiguration config) {
 		super(uri, component);
@@ -70,7 +77,8 @@ public class SocialEndpoint extends ScheduledPollEndpoint {
 
 	public Consumer createConsumer(Processor processor) throws Exception {
 		SocialConsumer tc = new SocialConsumer(this, processor);
-		if ((!configuration.hasAuth() && tc.isSocialPathAuthRequired())
+		if ((!configuration.hasAuth() && !configuration.hasCredentialSource() && tc
+				.isSocialPathAuthRequired())
 				|| !configuration.isPoll()) {
 			tc.suspend(); // no auth given but path requires auth
 							// so it is event-driven consumer based
@@ -80,6 +88,7 @@ public class SocialEndpoint extends ScheduledPollEndpoint {
 
 		consumer = tc;
 		configureConsumer(tc);
+		tc.setMaxMessagesPerPoll(configuration.getMaxMessagesPerPoll());
 
 		if (configuration.getRateLimit() != null
 				&& configuration.getRateLimit() > -1) {
@@ -98,6 +107,13 @@ public class SocialEndpoint extends ScheduledPollEndpoint {
 					+ calculatedDelay + " " + tc.getTimeUnit());
 		}
 
+		if (configuration.isAdaptivePoll()) {
+			// the schedules decide when to poll, the consumer only ticks
+			tc.setAdaptiveDelay(tc.getTimeUnit().toMillis(tc.getDelay()));
+			tc.setDelay(tc.getTimeUnit().convert(configuration.getPollTick(),
+					TimeUnit.MILLISECONDS));
+		}
+
 		return tc;
 	}
 
@@ -133,7 +149,90 @@ public class SocialEndpoint extends ScheduledPollEndpoint {
 
 	protected SocialPathConsumer createSocialPath() throws Exception {
 		String path = configuration.getPath();
-		return configuration.getProvider().createPath(path);
+		SocialPathConsumer socialPath = configuration.getProvider().createPath(path);
+		if (socialPath instanceof SocialPathConfigurable) {
+			((SocialPathConfigurable) socialPath).configure(this);
+		}
+		return socialPath;
+	}
+
+	/**
+	 * The HTTP connection pool of the owning component, if any.
+	 */
+	public SocialConnectionPool getConnectionPool() {
+		if (getComponent() instanceof SocialComponent) {
+			return ((SocialComponent) getComponent()).getConnectionPool();
+		}
+		return null;
+	}
+
+	/**
+	 * The asynchronous transport of the owning component, if any.
+	 */
+	public SocialAsyncTransport getAsyncTransport() {
+		if (getComponent() instanceof SocialComponent) {
+			return ((SocialComponent) getComponent()).getAsyncTransport();
+		}
+		return null;
+	}
+
+	/**
+	 * The rate limit budgets of the owning component, if any.
+	 */
+	public SocialRateLimitManager getRateLimitManager() {
+		if (getComponent() instanceof SocialComponent) {
+			return ((SocialComponent) getComponent()).getRateLimitManager();
+		}
+		return null;
+	}
+
+	/**
+	 * The circuit breaker of the owning component, if any.
+	 */
+	public SocialCircuitBreaker getCircuitBreaker() {
+		if (getComponent() instanceof SocialComponent) {
+			return ((SocialComponent) getComponent()).getCircuitBreaker();
+		}
+		return null;
+	}
+
+	/**
+	 * The retry policy of the paths of this endpoint, also counting their
+	 * retries.
+	 */
+	public synchronized SocialRetryPolicy getRetryPolicy() {
+		if (retryPolicy == null) {
+			retryPolicy = new SocialRetryPolicy();
+			retryPolicy.setMaxRetries(configuration.getMaxRetries());
+			retryPolicy.setDelay(configuration.getRetryDelay());
+			retryPolicy.setMaxDelay(configuration.getMaxRetryDelay());
+			retryPolicy.setJitter(configuration.getRetryJitter());
+			retryPolicy.setRetryNonIdempotent(configuration.isRetryNonIdempotent());
+		}
+		return retryPolicy;
+	}
+
+	/**
+	 * The session pool of the owning component, if any.
+	 */
+	public SocialSessionPool getSessionPool() {
+		if (getComponent() instanceof SocialComponent) {
+			return ((SocialComponent) getComponent()).getSessionPool();
+		}
+		return null;
+	}
+
+	/**
+	 * Warms this endpoint up in the background, once, when warmUp is set.
+	 * 
+	 * @return the pending warm up, <code>null</code> when disabled
+	 */
+	public synchronized Future<Boolean> warmUp() {
+		if (warmUp == null && configuration.isWarmUp()
+				&& getComponent() instanceof SocialComponent) {
+			warmUp = ((SocialComponent) getComponent()).getWarmUp().submit(this);
+		}
+		return warmUp;
 	}
 
 	public SocialOAuth getOAuthConsumer(Exchange exchange) {
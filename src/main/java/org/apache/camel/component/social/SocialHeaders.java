@@ -25,5 +25,8 @@ public class SocialHeaders {
 	public static final String SOCIAL_SINCE_ID = "SocialSinceId";
 	public static final String SOCIAL_CONSUMER_OAUTH = "SocialConsumerOAuth";
 	public static final String SOCIAL_PROVIDER_PARAMS = "SocialProviderParams";
+	public static final String SOCIAL_CREDENTIALS = "SocialCredentials";
+	public static final String SOCIAL_BATCH_SIZE = "SocialBatchSize";
+	public static final String SOCIAL_BULK_RESULT = "SocialBulkResult";
 
 }
@@ -18,6 +18,7 @@ package org.apache.camel.component.social;
 
 import java.io.IOException;
 
+import oauth.signpost.OAuth;
 import oauth.signpost.OAuthConsumer;
 import oauth.signpost.commonshttp.CommonsHttpOAuthConsumer;
 
@@ -37,6 +38,9 @@ public class SocialHttpClient implements HttpClient {
 
 	private DefaultHttpClient client;
 	private OAuthConsumer consumer;
+	private boolean sharedClient;
+	private SocialAsyncTransport asyncTransport;
+	private int maxResponseSize = -1;
 
 	public SocialHttpClient(String token, String secret, String consumerToken, String consumerSecret) {
 		this.client = new DefaultHttpClient();
@@ -44,8 +48,83 @@ public class SocialHttpClient implements HttpClient {
 		consumer.setTokenWithSecret(token, secret);
 	}
 
+	/**
+	 * Client signing its requests with the given consumer and sending them
+	 * through the connections of a shared pool.
+	 */
+	public SocialHttpClient(SocialConnectionPool pool, OAuthConsumer oauthConsumer) {
+		this.client = pool.getHttpClient();
+		this.consumer = oauthConsumer;
+		this.sharedClient = true;
+	}
+
+	public SocialHttpClient(SocialConnectionPool pool) {
+		this(pool, null);
+	}
+
+	/**
+	 * Releases the connections of this client. Pooled connections belong to
+	 * the component and are left open.
+	 */
 	public void shutdown() {
-		client.getConnectionManager().shutdown();
+		if (!sharedClient) {
+			client.getConnectionManager().shutdown();
+		}
+	}
+
+	public boolean isSharedClient() {
+		return sharedClient;
+	}
+
+	public SocialAsyncTransport getAsyncTransport() {
+		return asyncTransport;
+	}
+
+	/**
+	 * Transport of {@link #executeAsync(HttpUriRequest, SocialHttpCallback)},
+	 * without one asynchronous requests run on the calling thread.
+	 */
+	public void setAsyncTransport(SocialAsyncTransport asyncTransport) {
+		this.asyncTransport = asyncTransport;
+	}
+
+	public int getMaxResponseSize() {
+		return maxResponseSize;
+	}
+
+	/**
+	 * Upper bound, in bytes, of the responses read by the asynchronous
+	 * transport, a negative value disables the check.
+	 */
+	public void setMaxResponseSize(int maxResponseSize) {
+		this.maxResponseSize = maxResponseSize;
+	}
+
+	/**
+	 * Signs the request and sends it without blocking the caller when an
+	 * asynchronous transport is set.
+	 */
+	public void executeAsync(HttpUriRequest request, SocialHttpCallback callback) {
+		try {
+			signOAuth(request);
+		} catch (ClientProtocolException e) {
+			callback.failed(e);
+			return;
+		}
+
+		if (asyncTransport != null && asyncTransport.isStarted()) {
+			asyncTransport.send(request, maxResponseSize, callback);
+			return;
+		}
+
+		HttpResponse response;
+		try {
+			response = client.execute(request);
+		} catch (Exception e) {
+			callback.failed(e);
+			return;
+		}
+		callback.completed(response);
 	}
 
 	public SocialHttpClient(CommonsHttpOAuthConsumer oauthConsumer) {
@@ -70,8 +149,18 @@ public class SocialHttpClient implements HttpClient {
 		return client.execute(request);
 	}
 
+	/**
+	 * Signs the request without sending it.
+	 */
+	public void sign(HttpUriRequest request) throws ClientProtocolException {
+		signOAuth(request);
+	}
+
 	private void signOAuth(HttpUriRequest request) throws ClientProtocolException {
 		if (consumer != null) {
+			// signpost keeps the nonce and timestamp of an existing header, a
+			// request sent again must not replay them
+			request.removeHeaders(OAuth.HTTP_AUTHORIZATION_HEADER);
 			try {
 				consumer.sign(request);
 			} catch (Exception e) {
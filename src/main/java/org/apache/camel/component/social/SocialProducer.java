@@ -16,47 +16,324 @@
  */
 package org.apache.camel.component.social;
 
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.Producer;
+import org.apache.camel.component.social.SocialSessionPool.PooledSession;
+import org.apache.camel.component.social.path.SocialDataCallback;
 import org.apache.camel.component.social.path.SocialPathConsumer;
 import org.apache.camel.component.social.path.SocialPathSessionAware;
 import org.apache.camel.component.social.path.SocialPathSessionAwareWrapper;
-import org.apache.camel.impl.DefaultProducer;
+import org.apache.camel.impl.DefaultAsyncProducer;
+
+/**
+ * Sends the updates without blocking the route: the exchange completes from
+ * the transport callback. At most maxInFlight updates of one credential are
+ * sent at once, the others are blocked, rejected or spilled to a bounded
+ * queue depending on the inFlightPolicy. With updateQueue the updates go
+ * through a {@link SocialUpdateQueue} instead.
+ */
+public class SocialProducer extends DefaultAsyncProducer implements Producer {
 
-public class SocialProducer extends DefaultProducer implements Producer {
+	static final String POLICY_BLOCK = "block";
+	static final String POLICY_REJECT = "reject";
+	static final String POLICY_SPILL = "spill";
 
 	private SocialEndpoint endpoint;
-	private SocialPathConsumer socialPath;
+
+	private int maxInFlight;
+	private String policy;
+	private int maxSpill;
+
+	private SocialUpdateQueue updateQueue;
+
+	// guards the in flight counters and is their wait monitor
+	private final Map<String, InFlight> inFlight = new HashMap<String, InFlight>();
 
 	public SocialProducer(Endpoint endpoint) {
 		super(endpoint);
 		this.endpoint = (SocialEndpoint) endpoint;
+
+		SocialConfiguration config = this.endpoint.getConfiguration();
+		maxInFlight = config.getMaxInFlight();
+		maxSpill = config.getMaxSpill();
+		policy = config.getInFlightPolicy();
+		if (!POLICY_BLOCK.equals(policy) && !POLICY_REJECT.equals(policy)
+				&& !POLICY_SPILL.equals(policy)) {
+			throw new IllegalArgumentException("inFlightPolicy must be one of block, reject or spill, was: "
+					+ policy);
+		}
+
+		if (config.isUpdateQueue()) {
+			updateQueue = new SocialUpdateQueue(getEndpoint().getCamelContext(),
+					new SocialUpdateQueue.Sender() {
+						public void send(Exchange exchange, SocialDataCallback<SocialData> callback) {
+							sendUpdate(exchange, SocialProducer.this.endpoint.getOAuthConsumer(exchange),
+									SocialProducer.this.endpoint.getOAuthUser(exchange), callback);
+						}
+					});
+			updateQueue.setMaxSize(config.getUpdateQueueSize());
+			updateQueue.setMaxRetries(config.getUpdateMaxRetries());
+			updateQueue.setRetryDelay(config.getUpdateRetryDelay());
+		}
 	}
 
-	public void process(Exchange exchange) throws Exception {
-		boolean consumingEndpoint = endpoint.notifyConsumer(exchange);
+	public boolean process(Exchange exchange, AsyncCallback callback) {
+		boolean consumingEndpoint;
+		try {
+			consumingEndpoint = endpoint.notifyConsumer(exchange);
+		} catch (Exception e) {
+			exchange.setException(e);
+			callback.done(true);
+			return true;
+		}
+		if (consumingEndpoint) {
+			callback.done(true);
+			return true;
+		}
 
 		SocialOAuth consumerOAuth = endpoint.getOAuthConsumer(exchange);
 		SocialOAuth userOAuth = endpoint.getOAuthUser(exchange);
+		if (updateQueue != null) {
+			return !updateQueue.offer(userOAuth != null ? userOAuth.token : null, exchange,
+					callback);
+		}
+
+		Update update = new Update(exchange, callback, consumerOAuth, userOAuth);
 
-		if (!consumingEndpoint) {
-			SocialPathConsumer socialPath = initSocialPath();
-			SocialPathSessionAware wrapper = SocialPathSessionAwareWrapper
-					.wrapper(socialPath);
-			wrapper.initSession(consumerOAuth, userOAuth);
-			socialPath.updateData(exchange.getIn().getBody(), exchange.getIn()
-					.getHeaders());
-			wrapper.endSession();
+		if (maxInFlight > 0 && !acquire(update)) {
+			return update.rejected;
 		}
+
+		send(update);
+		return false;
+	}
+
+	/**
+	 * Takes a slot of the credential of the update.
+	 * 
+	 * @return whether the update can be sent now, otherwise it was spilled
+	 *         or rejected
+	 */
+	private boolean acquire(Update update) {
+		synchronized (inFlight) {
+			InFlight slots;
+			// the counters of idle credentials are dropped, look them up again
+			// after waiting
+			while ((slots = getInFlight(update.key)).running >= maxInFlight) {
+				if (POLICY_SPILL.equals(policy) && slots.spilled.size() < maxSpill) {
+					slots.spilled.add(update);
+					return false;
+				}
+				if (!POLICY_BLOCK.equals(policy)) {
+					reject(update);
+					return false;
+				}
+				try {
+					inFlight.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					reject(update);
+					return false;
+				}
+			}
+			slots.running++;
+			return true;
+		}
+	}
+
+	private InFlight getInFlight(String key) {
+		InFlight slots = inFlight.get(key);
+		if (slots == null) {
+			slots = new InFlight();
+			inFlight.put(key, slots);
+		}
+		return slots;
 	}
 
-	private SocialPathConsumer initSocialPath() throws Exception {
-		if (socialPath == null) {
-			socialPath = endpoint.createSocialPath();
+	/**
+	 * Gives the slot of a completed update to the next spilled one, if any.
+	 */
+	private void release(String key) {
+		Update next;
+		synchronized (inFlight) {
+			InFlight slots = inFlight.get(key);
+			next = slots.spilled.poll();
+			if (next == null) {
+				slots.running--;
+				if (slots.running == 0) {
+					inFlight.remove(key);
+				}
+				inFlight.notifyAll();
+			}
 		}
+		if (next != null) {
+			send(next);
+		}
+	}
+
+	private void reject(Update update) {
+		update.exchange.setException(new RejectedExecutionException(
+				"Too many social updates in flight for the credential: " + maxInFlight));
+		update.rejected = true;
+		update.callback.done(true);
+	}
+
+	private void send(final Update update) {
+		sendUpdate(update.exchange, update.consumerOAuth, update.userOAuth,
+				new SocialDataCallback<SocialData>() {
+					public void onData(SocialData data) {
+						complete(update);
+					}
+
+					public void onError(Exception cause) {
+						update.exchange.setException(cause);
+						complete(update);
+					}
+				});
+	}
 
-		return socialPath;
+	/**
+	 * Sends the update of the exchange on a session of the credentials.
+	 */
+	private void sendUpdate(final Exchange exchange, SocialOAuth consumerOAuth,
+			SocialOAuth userOAuth, final SocialDataCallback<SocialData> callback) {
+		final SocialSessionPool pool = endpoint.getSessionPool();
+		final PooledSession session;
+		final SocialPathConsumer socialPath;
+		try {
+			if (pool != null) {
+				session = pool.borrow(endpoint, consumerOAuth, userOAuth);
+				socialPath = session.getPath();
+			} else {
+				session = null;
+				socialPath = endpoint.createSocialPath();
+				if (userOAuth != null) {
+					SocialPathSessionAwareWrapper.wrapper(socialPath).initSession(
+							consumerOAuth, userOAuth);
+				}
+			}
+		} catch (Exception e) {
+			callback.onError(e);
+			return;
+		}
+
+		SocialDataCallback<SocialData> sessionCallback = new SocialDataCallback<SocialData>() {
+			public void onData(SocialData data) {
+				endSession();
+				if (data != null && data.getData() instanceof SocialBulkResult) {
+					exchange.getIn().setHeader(SocialHeaders.SOCIAL_BULK_RESULT,
+							data.getData());
+				}
+				callback.onData(data);
+			}
+
+			public void onError(Exception cause) {
+				endSession();
+				callback.onError(cause);
+			}
+
+			private void endSession() {
+				if (session != null) {
+					pool.release(session);
+				} else {
+					SocialPathSessionAware wrapper = SocialPathSessionAwareWrapper
+							.wrapper(socialPath);
+					wrapper.endSession();
+				}
+			}
+		};
+		try {
+			socialPath.updateDataAsync(exchange.getIn().getBody(), exchange.getIn().getHeaders(),
+					sessionCallback);
+		} catch (RuntimeException e) {
+			// e.g. a body the path cannot build a request from, the slot and
+			// the session must be given back all the same
+			sessionCallback.onError(e);
+		}
+	}
+
+	private void complete(Update update) {
+		if (maxInFlight > 0) {
+			release(update.key);
+		}
+		update.callback.done(false);
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		super.doStart();
+		endpoint.warmUp();
+		if (updateQueue != null) {
+			updateQueue.start();
+		}
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (updateQueue != null) {
+			updateQueue.stop();
+		}
+
+		LinkedList<Update> spilled = new LinkedList<Update>();
+		synchronized (inFlight) {
+			for (InFlight slots : inFlight.values()) {
+				spilled.addAll(slots.spilled);
+				slots.spilled.clear();
+			}
+		}
+		for (Update update : spilled) {
+			update.exchange.setException(new RejectedExecutionException(
+					"Social producer stopped before the update was sent"));
+			update.callback.done(false);
+		}
+		super.doStop();
+	}
+
+	/**
+	 * The outbound queue, <code>null</code> unless updateQueue is set.
+	 */
+	public SocialUpdateQueue getUpdateQueue() {
+		return updateQueue;
+	}
+
+	/**
+	 * Updates of the credential in flight at the moment.
+	 */
+	public int getInFlight(SocialOAuth userOAuth) {
+		synchronized (inFlight) {
+			InFlight slots = inFlight.get(userOAuth != null ? userOAuth.token : null);
+			return slots != null ? slots.running : 0;
+		}
+	}
+
+	private static final class InFlight {
+		int running;
+		final LinkedList<Update> spilled = new LinkedList<Update>();
+	}
+
+	private static final class Update {
+		final Exchange exchange;
+		final AsyncCallback callback;
+		final SocialOAuth consumerOAuth;
+		final SocialOAuth userOAuth;
+		final String key;
+		boolean rejected;
+
+		Update(Exchange exchange, AsyncCallback callback, SocialOAuth consumerOAuth,
+				SocialOAuth userOAuth) {
+			this.exchange = exchange;
+			this.callback = callback;
+			this.consumerOAuth = consumerOAuth;
+			this.userOAuth = userOAuth;
+			this.key = userOAuth != null ? userOAuth.token : null;
+		}
 	}
 
 }
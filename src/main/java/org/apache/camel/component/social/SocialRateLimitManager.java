@@ -0,0 +1,254 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.component.social.path.RateLimitStatus;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Rate limit budget shared by every path and producer of a
+ * {@link SocialComponent}. Each (provider, credential) pair owns a token
+ * bucket, seeded from the endpoint rate limit and corrected with the limits
+ * the provider reports. Callers take a token before calling out; those that
+ * have to wait are parked on a single scheduler of the component.
+ */
+public class SocialRateLimitManager extends ServiceSupport {
+
+	private static final transient Log LOG = LogFactory.getLog(SocialRateLimitManager.class);
+
+	private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+
+	private CamelContext camelContext;
+	private ScheduledExecutorService scheduler;
+
+	public SocialRateLimitManager() {
+	}
+
+	public SocialRateLimitManager(CamelContext camelContext) {
+		this.camelContext = camelContext;
+	}
+
+	public void setCamelContext(CamelContext camelContext) {
+		this.camelContext = camelContext;
+	}
+
+	/**
+	 * Key of the budget of a credential token, <code>null</code> for calls
+	 * without one.
+	 */
+	public static String key(String provider, String token) {
+		return provider + "/" + (token != null ? token : "-");
+	}
+
+	/**
+	 * Seeds the budget of a key with a limit per window, unless it already
+	 * has one. A limit below 1 leaves it unlimited until the provider reports
+	 * one.
+	 */
+	public void configure(String key, int limit, long window) {
+		TokenBucket bucket = getBucket(key);
+		synchronized (bucket) {
+			if (bucket.capacity <= 0 && limit > 0 && window > 0) {
+				bucket.capacity = limit;
+				bucket.tokens = limit;
+				bucket.refillPerMs = (double) limit / window;
+				bucket.lastRefill = System.currentTimeMillis();
+			}
+		}
+	}
+
+	/**
+	 * Takes a token of the key without waiting.
+	 * 
+	 * @return 0 when a token was taken, else the time in ms until one is
+	 *         expected
+	 */
+	public long tryAcquire(String key) {
+		return getBucket(key).tryAcquire(System.currentTimeMillis());
+	}
+
+	/**
+	 * Runs the task with a token of the key, right away when one is left,
+	 * else from the shared scheduler once the budget allows.
+	 */
+	public void acquire(final String key, final Runnable task) {
+		long wait = tryAcquire(key);
+		if (wait <= 0) {
+			task.run();
+			return;
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Rate limit of " + key + " exhausted, parking call for " + wait + " ms");
+		}
+		schedule(new Runnable() {
+			public void run() {
+				acquire(key, task);
+			}
+		}, wait);
+	}
+
+	/**
+	 * Corrects the budget of the key with the status the provider reported.
+	 */
+	public void update(String key, RateLimitStatus status) {
+		if (status != null) {
+			getBucket(key).update(status, System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Spends the budget of the key until the given time, after the provider
+	 * refused a call.
+	 */
+	public void block(String key, long until) {
+		TokenBucket bucket = getBucket(key);
+		synchronized (bucket) {
+			bucket.blockedUntil = Math.max(bucket.blockedUntil, until);
+		}
+	}
+
+	/**
+	 * Tokens left for the key, -1 when it is unlimited.
+	 */
+	public int getRemaining(String key) {
+		TokenBucket bucket = buckets.get(key);
+		if (bucket == null) {
+			return -1;
+		}
+		synchronized (bucket) {
+			bucket.refill(System.currentTimeMillis());
+			return bucket.capacity > 0 ? (int) bucket.tokens : -1;
+		}
+	}
+
+	/**
+	 * Runs a task on the shared scheduler after the delay in ms.
+	 */
+	public synchronized ScheduledFuture<?> schedule(Runnable task, long delay) {
+		if (scheduler == null) {
+			scheduler = camelContext != null ? camelContext.getExecutorServiceStrategy()
+					.newScheduledThreadPool(this, "SocialRateLimit", 1) : Executors
+					.newSingleThreadScheduledExecutor();
+		}
+		return scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private TokenBucket getBucket(String key) {
+		TokenBucket bucket = buckets.get(key);
+		if (bucket == null) {
+			TokenBucket created = new TokenBucket();
+			bucket = buckets.putIfAbsent(key, created);
+			if (bucket == null) {
+				bucket = created;
+			}
+		}
+		return bucket;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+	}
+
+	@Override
+	protected synchronized void doStop() throws Exception {
+		if (scheduler != null) {
+			if (camelContext != null) {
+				camelContext.getExecutorServiceStrategy().shutdownNow(scheduler);
+			} else {
+				scheduler.shutdownNow();
+			}
+			scheduler = null;
+		}
+		buckets.clear();
+	}
+
+	/**
+	 * Tokens refill continuously at the seeded rate, or all at once when the
+	 * window the provider reported resets.
+	 */
+	static final class TokenBucket {
+
+		double capacity;
+		double tokens;
+		double refillPerMs;
+		long lastRefill;
+		long resetTime;
+		long blockedUntil;
+
+		synchronized long tryAcquire(long now) {
+			if (now < blockedUntil) {
+				return blockedUntil - now;
+			}
+			if (capacity <= 0) {
+				return 0;
+			}
+
+			refill(now);
+			if (tokens >= 1) {
+				tokens--;
+				return 0;
+			}
+			if (resetTime > now) {
+				return resetTime - now;
+			}
+			if (refillPerMs > 0) {
+				return Math.max(1, (long) Math.ceil((1 - tokens) / refillPerMs));
+			}
+			// empty without a known reset, start a new window
+			tokens = capacity - 1;
+			return 0;
+		}
+
+		synchronized void update(RateLimitStatus status, long now) {
+			if (status.getLimit() > 0) {
+				capacity = status.getLimit();
+			} else if (capacity <= 0) {
+				capacity = Math.max(1, status.getRemaining());
+			}
+			tokens = Math.min(capacity, Math.max(0, status.getRemaining()));
+			resetTime = status.getResetTime();
+			lastRefill = now;
+			if (status.getRemaining() <= 0 && resetTime > now) {
+				blockedUntil = Math.max(blockedUntil, resetTime);
+			}
+		}
+
+		void refill(long now) {
+			if (resetTime > 0) {
+				if (now >= resetTime) {
+					tokens = capacity;
+					resetTime = 0;
+				}
+			} else if (refillPerMs > 0 && now > lastRefill) {
+				tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMs);
+			}
+			lastRefill = now;
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.component.social.util.ResponseBuffer;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * When and how long to wait before sending a failed request again: on an
+ * I/O error or a server error, with an exponential backoff randomised by a
+ * jitter so the clients of a failing host do not retry in lockstep. Only
+ * idempotent requests are retried unless told otherwise, an update sent
+ * twice posts twice. Counts the retries of the endpoint it belongs to.
+ */
+public class SocialRetryPolicy {
+
+	private int maxRetries = 2;
+	private long delay = 200;
+	private long maxDelay = 10000;
+	private double jitter = 0.5;
+	private boolean retryNonIdempotent;
+
+	private final Random random = new Random();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong exhausted = new AtomicLong();
+
+	/**
+	 * Whether the request, after the given failed attempts, should be sent
+	 * again for the I/O error or the response it got.
+	 */
+	public boolean shouldRetry(HttpUriRequest request, int attempts, Exception cause,
+			HttpResponse response) {
+		if (!isFailure(cause, response)) {
+			return false;
+		}
+		if (!retryNonIdempotent && !isIdempotent(request)) {
+			return false;
+		}
+		if (attempts > maxRetries) {
+			exhausted.incrementAndGet();
+			return false;
+		}
+		retries.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * An I/O error or a 5xx response, the failures worth retrying and which
+	 * count against the circuit of the host.
+	 */
+	public static boolean isFailure(Exception cause, HttpResponse response) {
+		if (cause != null) {
+			// an oversized response would be just as big the next time
+			return cause instanceof IOException
+					&& !(cause instanceof ResponseBuffer.ResponseTooLargeException);
+		}
+		return response != null && response.getStatusLine().getStatusCode() >= 500;
+	}
+
+	public static boolean isIdempotent(HttpUriRequest request) {
+		String method = request.getMethod();
+		return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+	}
+
+	/**
+	 * Delay in ms before the retry following the given failed attempts: the
+	 * base delay doubled on each attempt, up to the max delay, less a random
+	 * part of up to jitter times that.
+	 */
+	public long getDelay(int attempts) {
+		long backoff = delay;
+		for (int i = 1; i < attempts && backoff < maxDelay; i++) {
+			backoff *= 2;
+		}
+		backoff = Math.min(backoff, maxDelay);
+		double spread;
+		synchronized (random) {
+			spread = random.nextDouble();
+		}
+		return backoff - (long) (backoff * jitter * spread);
+	}
+
+	/**
+	 * Requests sent again so far.
+	 */
+	public long getRetryCount() {
+		return retries.get();
+	}
+
+	/**
+	 * Requests given up after all their retries failed.
+	 */
+	public long getExhaustedCount() {
+		return exhausted.get();
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	public long getDelay() {
+		return delay;
+	}
+
+	public void setDelay(long delay) {
+		this.delay = delay;
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	public void setMaxDelay(long maxDelay) {
+		this.maxDelay = maxDelay;
+	}
+
+	public double getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * Fraction, between 0 and 1, of a backoff delay taken off at random.
+	 */
+	public void setJitter(double jitter) {
+		this.jitter = Math.max(0, Math.min(1, jitter));
+	}
+
+	public boolean isRetryNonIdempotent() {
+		return retryNonIdempotent;
+	}
+
+	public void setRetryNonIdempotent(boolean retryNonIdempotent) {
+		this.retryNonIdempotent = retryNonIdempotent;
+	}
+
+	@Override
+	public String toString() {
+		return "SocialRetryPolicy[maxRetries=" + maxRetries + ", delay=" + delay + ", retries="
+				+ retries + ", exhausted=" + exhausted + "]";
+	}
+
+}
@@ -0,0 +1,408 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.apache.camel.component.social.path.SocialPathSessionAwareWrapper;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.util.ObjectHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Thread safe pool of signed in social paths, keyed by endpoint, consumer key
+ * and user token, so producers do not build an OAuth consumer and an HTTP
+ * client for every message. A session is used by one exchange at a time:
+ * {@link #borrow(SocialEndpoint, SocialOAuth, SocialOAuth)} hands out an idle
+ * session of the credentials or signs in a new one, and
+ * {@link #release(PooledSession)} makes it idle again. At most
+ * {@link #getMaxIdleSessions()} idle sessions are kept, the least recently
+ * used one being ended first, and sessions idle for longer than
+ * {@link #getIdleTimeout()} or signed in for longer than
+ * {@link #getTimeToLive()} are ended in the background. Borrows served by an
+ * idle session count as hits, the others as misses.
+ */
+public class SocialSessionPool extends ServiceSupport {
+
+	private static final transient Log LOG = LogFactory.getLog(SocialSessionPool.class);
+
+	private int maxIdleSessions = 100;
+	private long idleTimeout = 300000;
+	private long timeToLive;
+
+	private CamelContext camelContext;
+	private ScheduledExecutorService evictor;
+
+	// most recently released last, over all the keys and per key
+	private final LinkedHashMap<PooledSession, Boolean> idle = new LinkedHashMap<PooledSession, Boolean>();
+	private final Map<SessionKey, ArrayDeque<PooledSession>> idlePerKey = new HashMap<SessionKey, ArrayDeque<PooledSession>>();
+	private int active;
+
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong ended = new AtomicLong();
+
+	public void setCamelContext(CamelContext camelContext) {
+		this.camelContext = camelContext;
+	}
+
+	/**
+	 * An idle session of the credentials, or a new one signed in with them.
+	 * Without user credentials the path is used unauthenticated.
+	 */
+	public PooledSession borrow(SocialEndpoint endpoint, SocialOAuth consumer,
+			SocialOAuth user) throws Exception {
+		SessionKey key = new SessionKey(endpoint.getEndpointUri(), consumer, user);
+		LinkedList<PooledSession> expired = null;
+		PooledSession session = null;
+		synchronized (this) {
+			ArrayDeque<PooledSession> sessions = idlePerKey.get(key);
+			long oldest = getOldestSignIn();
+			// most recently used first, it is the warmest
+			while (sessions != null && session == null && !sessions.isEmpty()) {
+				PooledSession candidate = removeIdle(sessions.peekLast());
+				if (candidate.createdAt > oldest) {
+					session = candidate;
+				} else {
+					if (expired == null) {
+						expired = new LinkedList<PooledSession>();
+					}
+					expired.add(candidate);
+				}
+			}
+			active++;
+		}
+		if (expired != null) {
+			for (PooledSession e : expired) {
+				end(e);
+			}
+		}
+		if (session != null) {
+			hits.incrementAndGet();
+			return session;
+		}
+
+		misses.incrementAndGet();
+		try {
+			SocialPathConsumer path = endpoint.createSocialPath();
+			if (user != null) {
+				SocialPathSessionAwareWrapper.wrapper(path).initSession(consumer, user);
+			}
+			created.incrementAndGet();
+			return new PooledSession(key, path, System.currentTimeMillis());
+		} catch (Exception e) {
+			synchronized (this) {
+				active--;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a borrowed session to the pool.
+	 */
+	public void release(PooledSession session) {
+		PooledSession eldest = null;
+		synchronized (this) {
+			active--;
+			if (!isStarted() || maxIdleSessions <= 0
+					|| session.createdAt <= getOldestSignIn()) {
+				eldest = session;
+			} else {
+				session.lastUsed = System.currentTimeMillis();
+				idle.put(session, Boolean.TRUE);
+				ArrayDeque<PooledSession> sessions = idlePerKey.get(session.key);
+				if (sessions == null) {
+					sessions = new ArrayDeque<PooledSession>(2);
+					idlePerKey.put(session.key, sessions);
+				}
+				sessions.addLast(session);
+				if (idle.size() > maxIdleSessions) {
+					eldest = removeIdle(idle.keySet().iterator().next());
+				}
+			}
+		}
+		if (eldest != null) {
+			end(eldest);
+		}
+	}
+
+	/**
+	 * Ends a borrowed session which should not be used again.
+	 */
+	public void invalidate(PooledSession session) {
+		synchronized (this) {
+			active--;
+		}
+		end(session);
+	}
+
+	/**
+	 * Ends the sessions idle for longer than the idle timeout or older than
+	 * the time to live.
+	 */
+	public void evictIdleSessions() {
+		long now = System.currentTimeMillis();
+		long oldestUse = now - idleTimeout;
+		long oldestSignIn = getOldestSignIn();
+		LinkedList<PooledSession> expired = new LinkedList<PooledSession>();
+		synchronized (this) {
+			// released in order, the idle ones are at the head
+			for (Iterator<PooledSession> it = idle.keySet().iterator(); it.hasNext();) {
+				PooledSession session = it.next();
+				boolean unused = session.lastUsed <= oldestUse;
+				if (!unused && oldestSignIn == Long.MIN_VALUE) {
+					break;
+				}
+				if (unused || session.createdAt <= oldestSignIn) {
+					it.remove();
+					removeFromKey(session);
+					expired.add(session);
+				}
+			}
+		}
+		for (PooledSession session : expired) {
+			end(session);
+		}
+		if (LOG.isTraceEnabled()) {
+			LOG.trace("Evicted " + expired.size() + " idle sessions: " + this);
+		}
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		long timeout = idleTimeout > 0 && timeToLive > 0 ? Math.min(idleTimeout, timeToLive)
+				: Math.max(idleTimeout, timeToLive);
+		if (camelContext != null && timeout > 0) {
+			long period = Math.max(1000, timeout / 2);
+			evictor = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(this,
+					"SocialSessionEvictor", 1);
+			evictor.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					evictIdleSessions();
+				}
+			}, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (evictor != null) {
+			camelContext.getExecutorServiceStrategy().shutdownNow(evictor);
+			evictor = null;
+		}
+
+		LinkedList<PooledSession> sessions;
+		synchronized (this) {
+			sessions = new LinkedList<PooledSession>(idle.keySet());
+			idle.clear();
+			idlePerKey.clear();
+		}
+		for (PooledSession session : sessions) {
+			end(session);
+		}
+	}
+
+	private PooledSession removeIdle(PooledSession session) {
+		idle.remove(session);
+		removeFromKey(session);
+		return session;
+	}
+
+	private void removeFromKey(PooledSession session) {
+		ArrayDeque<PooledSession> sessions = idlePerKey.get(session.key);
+		sessions.remove(session);
+		if (sessions.isEmpty()) {
+			idlePerKey.remove(session.key);
+		}
+	}
+
+	/**
+	 * Sessions signed in at or before this time have outlived the time to
+	 * live.
+	 */
+	private long getOldestSignIn() {
+		return timeToLive > 0 ? System.currentTimeMillis() - timeToLive : Long.MIN_VALUE;
+	}
+
+	private void end(PooledSession session) {
+		ended.incrementAndGet();
+		try {
+			SocialPathSessionAwareWrapper.wrapper(session.path).endSession();
+		} catch (RuntimeException e) {
+			LOG.warn("Could not end social session of " + session.key.endpointUri, e);
+		}
+	}
+
+	public synchronized int getIdleCount() {
+		return idle.size();
+	}
+
+	public synchronized int getActiveCount() {
+		return active;
+	}
+
+	/**
+	 * Sessions signed in so far.
+	 */
+	public long getCreatedCount() {
+		return created.get();
+	}
+
+	/**
+	 * Borrows served by an idle session.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Borrows finding no idle session of their credentials.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Share of the borrows served by an idle session, zero before the first
+	 * borrow.
+	 */
+	public double getHitRatio() {
+		long hits = this.hits.get();
+		long total = hits + misses.get();
+		return total > 0 ? (double) hits / total : 0;
+	}
+
+	public long getEndedCount() {
+		return ended.get();
+	}
+
+	public int getMaxIdleSessions() {
+		return maxIdleSessions;
+	}
+
+	/**
+	 * Most idle sessions kept over all the credentials, zero ends every
+	 * session once released.
+	 */
+	public void setMaxIdleSessions(int maxIdleSessions) {
+		this.maxIdleSessions = maxIdleSessions;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Idle time, in milliseconds, after which the evictor ends a session.
+	 * Zero or less disables idle eviction.
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * Time, in milliseconds, after which a session is signed in again
+	 * however often it is used. Zero or less keeps sessions until they are
+	 * idle for too long.
+	 */
+	public void setTimeToLive(long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	@Override
+	public String toString() {
+		return "SocialSessionPool[idle=" + getIdleCount() + ", active=" + getActiveCount()
+				+ ", created=" + created + ", hits=" + hits + ", misses=" + misses + "]";
+	}
+
+	/**
+	 * A signed in path borrowed from the pool.
+	 */
+	public static final class PooledSession {
+
+		private final SessionKey key;
+		private final SocialPathConsumer path;
+		private final long createdAt;
+		private long lastUsed;
+
+		PooledSession(SessionKey key, SocialPathConsumer path, long createdAt) {
+			this.key = key;
+			this.path = path;
+			this.createdAt = createdAt;
+		}
+
+		public SocialPathConsumer getPath() {
+			return path;
+		}
+
+	}
+
+	private static final class SessionKey {
+
+		private final String endpointUri;
+		private final String consumerToken, consumerSecret;
+		private final String userToken, userSecret;
+
+		SessionKey(String endpointUri, SocialOAuth consumer, SocialOAuth user) {
+			this.endpointUri = endpointUri;
+			this.consumerToken = consumer != null ? consumer.token : null;
+			this.consumerSecret = consumer != null ? consumer.secret : null;
+			this.userToken = user != null ? user.token : null;
+			this.userSecret = user != null ? user.secret : null;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof SessionKey)) {
+				return false;
+			}
+			SessionKey other = (SessionKey) o;
+			return endpointUri.equals(other.endpointUri)
+					&& ObjectHelper.equal(consumerToken, other.consumerToken)
+					&& ObjectHelper.equal(consumerSecret, other.consumerSecret)
+					&& ObjectHelper.equal(userToken, other.userToken)
+					&& ObjectHelper.equal(userSecret, other.userSecret);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = endpointUri.hashCode();
+			hash = 31 * hash + (consumerToken != null ? consumerToken.hashCode() : 0);
+			hash = 31 * hash + (userToken != null ? userToken.hashCode() : 0);
+			return hash;
+		}
+
+	}
+
+}
@@ -0,0 +1,380 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.component.social.path.RateLimitExceededException;
+import org.apache.camel.component.social.path.SocialDataCallback;
+import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.camel.util.ObjectHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Outbound queue of the updates of a producer. Each credential has its own
+ * lane sending one update at a time, in order, at the pace of the rate limit
+ * budget of the credential. Updates failing for a transient reason, a rate
+ * limit, an I/O error or a server error, are retried later with a growing
+ * delay instead of being lost. A pending update with the same body and
+ * {@link SocialHeaders#SOCIAL_DATA_ID} as a new one absorbs it: both
+ * exchanges complete with the outcome of a single send, the headers and the
+ * body it set on the exchange sent are copied onto the absorbed one.
+ */
+public class SocialUpdateQueue extends ServiceSupport {
+
+	private static final transient Log LOG = LogFactory.getLog(SocialUpdateQueue.class);
+
+	/**
+	 * Sends the update of an exchange and reports the outcome.
+	 */
+	interface Sender {
+		void send(Exchange exchange, SocialDataCallback<SocialData> callback);
+	}
+
+	private final CamelContext camelContext;
+	private final Sender sender;
+	private ScheduledExecutorService scheduler;
+
+	private int maxSize = 1000;
+	private int maxRetries = 3;
+	private long retryDelay = 5000;
+
+	private final Map<String, Lane> lanes = new HashMap<String, Lane>();
+	private int size;
+
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong retried = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private volatile long startTime;
+
+	SocialUpdateQueue(CamelContext camelContext, Sender sender) {
+		this.camelContext = camelContext;
+		this.sender = sender;
+	}
+
+	/**
+	 * Queues the update of the exchange of the credential, the callback is
+	 * called once it is sent, failed or coalesced with one that was.
+	 * 
+	 * @return <code>false</code> if the queue is full or stopped and the
+	 *         exchange was failed synchronously
+	 */
+	public boolean offer(String credential, Exchange exchange, AsyncCallback callback) {
+		String key = coalesceKey(exchange);
+		Lane lane;
+		synchronized (this) {
+			if (!isStarted()) {
+				return reject(exchange, callback, "Social update queue is stopped");
+			}
+
+			lane = lanes.get(credential);
+			if (lane == null) {
+				lane = new Lane(credential);
+				lanes.put(credential, lane);
+			}
+
+			Entry entry = lane.byKey.get(key);
+			if (entry != null) {
+				entry.add(exchange, callback);
+				coalesced.incrementAndGet();
+				return true;
+			}
+
+			if (size >= maxSize) {
+				return reject(exchange, callback, "Social update queue is full: " + maxSize);
+			}
+			entry = new Entry(key);
+			entry.add(exchange, callback);
+			lane.pending.add(entry);
+			lane.byKey.put(key, entry);
+			size++;
+
+			if (lane.busy) {
+				return true;
+			}
+			lane.busy = true;
+		}
+		schedule(lane, 0);
+		return true;
+	}
+
+	private boolean reject(Exchange exchange, AsyncCallback callback, String message) {
+		exchange.setException(new RejectedExecutionException(message));
+		callback.done(true);
+		return false;
+	}
+
+	private static String coalesceKey(Exchange exchange) {
+		return exchange.getIn().getHeader(SocialHeaders.SOCIAL_DATA_ID, "", String.class) + "\n"
+				+ exchange.getIn().getBody(String.class);
+	}
+
+	private void schedule(final Lane lane, long delay) {
+		try {
+			scheduler.schedule(new Runnable() {
+				public void run() {
+					drain(lane);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// stopping, doStop fails what is left
+		}
+	}
+
+	private void drain(final Lane lane) {
+		final Entry entry;
+		synchronized (this) {
+			entry = lane.pending.peek();
+			if (entry == null) {
+				lane.busy = false;
+				lanes.remove(lane.credential);
+				return;
+			}
+		}
+
+		entry.sending();
+		sender.send(entry.exchanges.get(0), new SocialDataCallback<SocialData>() {
+			public void onData(SocialData data) {
+				sent.incrementAndGet();
+				finish(lane, entry, null);
+			}
+
+			public void onError(Exception cause) {
+				if (entry.attempts < maxRetries && isRetryable(cause)) {
+					long delay = retryDelay << entry.attempts;
+					entry.attempts++;
+					retried.incrementAndGet();
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Retrying social update in " + delay + " ms, attempt "
+								+ entry.attempts + ": " + cause);
+					}
+					schedule(lane, delay);
+					return;
+				}
+				failed.incrementAndGet();
+				finish(lane, entry, cause);
+			}
+		});
+	}
+
+	private void finish(Lane lane, Entry entry, Exception cause) {
+		synchronized (this) {
+			lane.pending.remove(entry);
+			lane.byKey.remove(entry.key);
+			size--;
+		}
+		entry.complete(cause);
+		schedule(lane, 0);
+	}
+
+	/**
+	 * Rate limits, I/O errors and server errors are worth another try, a
+	 * refused update is not.
+	 */
+	static boolean isRetryable(Throwable cause) {
+		for (Throwable t = cause; t != null; t = t.getCause()) {
+			if (t instanceof RateLimitExceededException || t instanceof IOException) {
+				return true;
+			}
+			if (t instanceof SocialDataFetchError
+					&& ((SocialDataFetchError) t).getStatusCode() >= 500) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		scheduler = camelContext.getExecutorServiceStrategy().newScheduledThreadPool(this,
+				"SocialUpdateQueue", 1);
+		startTime = System.currentTimeMillis();
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		camelContext.getExecutorServiceStrategy().shutdownNow(scheduler);
+
+		List<Entry> left = new ArrayList<Entry>();
+		synchronized (this) {
+			for (Lane lane : lanes.values()) {
+				left.addAll(lane.pending);
+			}
+			lanes.clear();
+			size = 0;
+		}
+		for (Entry entry : left) {
+			entry.complete(new RejectedExecutionException(
+					"Social producer stopped before the update was sent"));
+		}
+	}
+
+	/**
+	 * Updates waiting or being sent, coalesced ones not counted.
+	 */
+	public synchronized int getQueueSize() {
+		return size;
+	}
+
+	public long getSentCount() {
+		return sent.get();
+	}
+
+	/**
+	 * Updates absorbed by an identical pending one.
+	 */
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	public long getRetriedCount() {
+		return retried.get();
+	}
+
+	/**
+	 * Updates given up, after their retries for transient failures.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * Updates sent per second since the queue started.
+	 */
+	public double getThroughput() {
+		long elapsed = System.currentTimeMillis() - startTime;
+		return startTime > 0 && elapsed > 0 ? sent.get() * 1000.0 / elapsed : 0;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	@Override
+	public String toString() {
+		return "SocialUpdateQueue[size=" + getQueueSize() + ", sent=" + sent + ", coalesced="
+				+ coalesced + ", retried=" + retried + ", failed=" + failed + "]";
+	}
+
+	private static final class Lane {
+		final String credential;
+		final LinkedList<Entry> pending = new LinkedList<Entry>();
+		final Map<String, Entry> byKey = new HashMap<String, Entry>();
+		boolean busy;
+
+		Lane(String credential) {
+			this.credential = credential;
+		}
+	}
+
+	private static final class Entry {
+		final String key;
+		final List<Exchange> exchanges = new ArrayList<Exchange>(1);
+		final List<AsyncCallback> callbacks = new ArrayList<AsyncCallback>(1);
+		int attempts;
+		private Map<String, Object> sentHeaders;
+		private Object sentBody;
+
+		Entry(String key) {
+			this.key = key;
+		}
+
+		void add(Exchange exchange, AsyncCallback callback) {
+			exchanges.add(exchange);
+			callbacks.add(callback);
+		}
+
+		/**
+		 * Remembers the message sent, before its first attempt, to tell what
+		 * the send added to it.
+		 */
+		void sending() {
+			if (sentHeaders == null) {
+				Message in = exchanges.get(0).getIn();
+				sentHeaders = new HashMap<String, Object>(in.getHeaders());
+				sentBody = in.getBody();
+			}
+		}
+
+		/**
+		 * Completes every exchange of the entry, its list does not change
+		 * once it left the lane.
+		 */
+		void complete(Exception cause) {
+			for (int i = 0; i < exchanges.size(); i++) {
+				if (cause != null) {
+					exchanges.get(i).setException(cause);
+				} else if (i > 0) {
+					copyOutcome(exchanges.get(0), exchanges.get(i));
+				}
+				callbacks.get(i).done(false);
+			}
+		}
+
+		private void copyOutcome(Exchange sent, Exchange coalesced) {
+			Message result = sent.getIn();
+			for (Map.Entry<String, Object> header : result.getHeaders().entrySet()) {
+				if (!ObjectHelper.equal(header.getValue(), sentHeaders.get(header.getKey()))) {
+					coalesced.getIn().setHeader(header.getKey(), header.getValue());
+				}
+			}
+			if (result.getBody() != sentBody) {
+				coalesced.getIn().setBody(result.getBody());
+			}
+			if (sent.hasOut()) {
+				coalesced.getOut().copyFrom(sent.getOut());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.component.social.SocialSessionPool.PooledSession;
+import org.apache.camel.component.social.path.SocialPathWarmable;
+import org.apache.camel.impl.ServiceSupport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Warms the endpoints of a component up in the background as they start, so
+ * their first calls do not pay for host resolution, connection setup and
+ * parser loading. After a rolling deploy hundreds of routes start together:
+ * each warm up waits a random delay of up to {@link #getStagger()} and at
+ * most {@link #getThreads()} run at once. The warmed up session is left in
+ * the session pool for the producers of the endpoint. A failed warm up is
+ * only logged, the endpoint then initializes on its first call as before.
+ */
+public class SocialWarmUp extends ServiceSupport {
+
+	private static final transient Log LOG = LogFactory.getLog(SocialWarmUp.class);
+
+	private int threads = 4;
+	private long stagger = 1000;
+
+	private CamelContext camelContext;
+	private ScheduledExecutorService executor;
+	private final Random random = new Random();
+
+	private final AtomicLong warmedUp = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+
+	public void setCamelContext(CamelContext camelContext) {
+		this.camelContext = camelContext;
+	}
+
+	/**
+	 * Schedules the warm up of the endpoint.
+	 * 
+	 * @return the pending warm up, completing once it succeeded or failed
+	 */
+	public Future<Boolean> submit(final SocialEndpoint endpoint) {
+		ScheduledExecutorService executor = this.executor;
+		if (executor == null) {
+			throw new IllegalStateException("SocialWarmUp is not started");
+		}
+		long delay = stagger > 0 ? (long) (random.nextDouble() * stagger) : 0;
+		return executor.schedule(new Callable<Boolean>() {
+			public Boolean call() {
+				return warmUp(endpoint);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Warms the endpoint up on the calling thread.
+	 * 
+	 * @return whether the warm up succeeded
+	 */
+	public boolean warmUp(SocialEndpoint endpoint) {
+		long start = System.currentTimeMillis();
+		SocialSessionPool pool = endpoint.getSessionPool();
+		SocialOAuth consumer = endpoint.getOAuthConsumer(null);
+		SocialOAuth user = consumer != null ? endpoint.getOAuthUser(null) : null;
+		try {
+			PooledSession session = pool.borrow(endpoint, consumer, user);
+			try {
+				if (session.getPath() instanceof SocialPathWarmable) {
+					((SocialPathWarmable) session.getPath()).warmUp(endpoint
+							.getConfiguration().getWarmUpConnections());
+				}
+			} catch (Exception e) {
+				pool.invalidate(session);
+				throw e;
+			}
+			pool.release(session);
+		} catch (Exception e) {
+			failed.incrementAndGet();
+			LOG.warn("Could not warm up " + endpoint.getEndpointUri(), e);
+			return false;
+		}
+
+		warmedUp.incrementAndGet();
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Warmed up " + endpoint.getEndpointUri() + " in "
+					+ (System.currentTimeMillis() - start) + " ms");
+		}
+		return true;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		executor = camelContext != null ? camelContext.getExecutorServiceStrategy()
+				.newScheduledThreadPool(this, "SocialWarmUp", threads) : Executors
+				.newScheduledThreadPool(threads);
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (executor != null) {
+			if (camelContext != null) {
+				camelContext.getExecutorServiceStrategy().shutdownNow(executor);
+			} else {
+				executor.shutdownNow();
+			}
+			executor = null;
+		}
+	}
+
+	/**
+	 * Endpoints warmed up so far.
+	 */
+	public long getWarmedUpCount() {
+		return warmedUp.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Most warm ups running at once.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public long getStagger() {
+		return stagger;
+	}
+
+	/**
+	 * Longest random delay, in milliseconds, before an endpoint is warmed
+	 * up. Zero warms up as soon as a thread is free.
+	 */
+	public void setStagger(long stagger) {
+		this.stagger = stagger;
+	}
+
+	@Override
+	public String toString() {
+		return "SocialWarmUp[warmedUp=" + warmedUp + ", failed=" + failed + "]";
+	}
+
+}
@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.path;
+
+/**
+ * Thrown instead of sending a request to a host whose circuit is open.
+ */
+public class CircuitOpenException extends SocialDataFetchError {
+
+	private static final long serialVersionUID = -2915378416214806135L;
+
+	private final String host;
+
+	public CircuitOpenException(String host) {
+		super("Circuit open, not calling host: " + host);
+		this.host = host;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.path;
+
+/**
+ * Rate limit state reported by a provider along with a response: the calls
+ * allowed per window, the calls left and when the window resets.
+ */
+public class RateLimitStatus {
+
+	private final int limit;
+	private final int remaining;
+	private final long resetTime;
+	private final long observedTime;
+
+	public RateLimitStatus(int limit, int remaining, long resetTime, long observedTime) {
+		this.limit = limit;
+		this.remaining = remaining;
+		this.resetTime = resetTime;
+		this.observedTime = observedTime;
+	}
+
+	/**
+	 * Parses the <code>X-RateLimit-*</code> header values. The reset is in
+	 * seconds since the epoch, small values are taken as seconds from now.
+	 * 
+	 * @return the status, or <code>null</code> without a remaining count
+	 */
+	public static RateLimitStatus parse(String limit, String remaining, String reset) {
+		if (remaining == null) {
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		try {
+			long resetTime = 0;
+			if (reset != null) {
+				long seconds = Long.parseLong(reset.trim());
+				resetTime = seconds > 1000000000L ? seconds * 1000 : now + seconds * 1000;
+			}
+			return new RateLimitStatus(limit != null ? Integer.parseInt(limit.trim()) : -1,
+					Integer.parseInt(remaining.trim()), resetTime, now);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Calls allowed per window, -1 if unknown.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getRemaining() {
+		return remaining;
+	}
+
+	/**
+	 * Time in ms the window resets at, 0 if unknown.
+	 */
+	public long getResetTime() {
+		return resetTime;
+	}
+
+	public long getObservedTime() {
+		return observedTime;
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimitStatus[" + remaining + "/" + limit + " until " + resetTime + "]";
+	}
+
+}
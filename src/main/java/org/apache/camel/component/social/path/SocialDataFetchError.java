@@ -20,12 +20,27 @@ public class SocialDataFetchError extends Exception {
 
 	private static final long serialVersionUID = 4880808025140160464L;
 
+	private int statusCode;
+
 	public SocialDataFetchError(String message) {
 		super(message);
 	}
 
+	public SocialDataFetchError(String message, int statusCode) {
+		super(message);
+		this.statusCode = statusCode;
+	}
+
 	public SocialDataFetchError(Exception e) {
 		super(e);
 	}
 
+	/**
+	 * HTTP status of the response the provider refused, 0 when there was no
+	 * response.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
 }
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.path;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Result of an asynchronous path operation, completed once by the transport
+ * and forwarding the outcome to an optional {@link SocialDataCallback}.
+ */
+public class SocialDataFuture<T> implements Future<T> {
+
+	private final CountDownLatch done = new CountDownLatch(1);
+	private final SocialDataCallback<T> callback;
+
+	private volatile T result;
+	private volatile Exception cause;
+	private volatile boolean cancelled;
+
+	public SocialDataFuture(SocialDataCallback<T> callback) {
+		this.callback = callback;
+	}
+
+	public void complete(T data) {
+		if (finish(data, null) && callback != null) {
+			callback.onData(data);
+		}
+	}
+
+	public void fail(Exception e) {
+		if (finish(null, e) && callback != null) {
+			callback.onError(e);
+		}
+	}
+
+	private synchronized boolean finish(T data, Exception e) {
+		if (done.getCount() == 0) {
+			return false;
+		}
+		result = data;
+		cause = e;
+		done.countDown();
+		return true;
+	}
+
+	/**
+	 * Stops waiting for the result, the request itself is not interrupted.
+	 */
+	public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+		if (done.getCount() == 0) {
+			return false;
+		}
+		cancelled = true;
+		done.countDown();
+		return true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	public T get() throws InterruptedException, ExecutionException {
+		done.await();
+		return getResult();
+	}
+
+	public T get(long timeout, TimeUnit unit) throws InterruptedException,
+			ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return getResult();
+	}
+
+	private T getResult() throws ExecutionException {
+		if (cancelled) {
+			throw new CancellationException();
+		}
+		if (cause != null) {
+			throw new ExecutionException(cause);
+		}
+		return result;
+	}
+
+}
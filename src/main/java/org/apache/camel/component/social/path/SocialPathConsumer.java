@@ -17,6 +17,7 @@
 package org.apache.camel.component.social.path;
 
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.apache.camel.component.social.SocialData;
 
@@ -33,4 +34,17 @@ public interface SocialPathConsumer {
 	SocialData updateData(Object data, Map<String, Object> headers)
 			throws SocialDataFetchError;
 
+	/**
+	 * Non-blocking {@link #readData(String, Map)}, the callback may be null.
+	 */
+	Future<Iterable<SocialData>> readDataAsync(String lastId,
+			Map<String, Object> params,
+			SocialDataCallback<Iterable<SocialData>> callback);
+
+	/**
+	 * Non-blocking {@link #updateData(Object, Map)}, the callback may be null.
+	 */
+	Future<SocialData> updateDataAsync(Object data,
+			Map<String, Object> headers, SocialDataCallback<SocialData> callback);
+
 }
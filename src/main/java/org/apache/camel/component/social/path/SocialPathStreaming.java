@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.path;
+
+import java.util.Map;
+
+import org.apache.camel.component.social.SocialData;
+
+/**
+ * Path pushing its data over a long lived connection instead of being polled.
+ */
+public interface SocialPathStreaming {
+
+	/**
+	 * Keeps the stream open and hands every item to the callback as it
+	 * arrives, until {@link #close()} is called. Connection failures are
+	 * reported to the callback and followed by a reconnection. Blocks the
+	 * calling thread. Returns at once when closed and not opened again.
+	 */
+	void stream(Map<String, Object> params, SocialDataCallback<SocialData> callback);
+
+	/**
+	 * Allows {@link #stream(Map, SocialDataCallback)} to run again after a
+	 * {@link #close()}. Called before the stream is handed to its thread, so
+	 * a close coming before that thread starts is not undone.
+	 */
+	void open();
+
+	/**
+	 * Ends the stream, making {@link #stream(Map, SocialDataCallback)} return.
+	 */
+	void close();
+
+}
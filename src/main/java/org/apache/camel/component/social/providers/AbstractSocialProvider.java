@@ -16,6 +16,7 @@
  */
 package org.apache.camel.component.social.providers;
 
+import java.util.Comparator;
 import java.util.Map;
 
 import oauth.signpost.OAuthConsumer;
@@ -54,6 +55,10 @@ public abstract class AbstractSocialProvider implements SocialProvider {
 	public void configureHeaders(Map<String, Object> headers, SocialData data) throws Exception {
 	}
 
+	public Comparator<String> getIdComparator() {
+		return null;
+	}
+
 	public final String getProviderName() {
 		return providerName;
 	}
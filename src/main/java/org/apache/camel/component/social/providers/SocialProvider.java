@@ -16,6 +16,7 @@
  */
 package org.apache.camel.component.social.providers;
 
+import java.util.Comparator;
 import java.util.Map;
 
 import org.apache.camel.component.social.SocialData;
@@ -29,4 +30,10 @@ public interface SocialProvider {
 
 	void configureHeaders(Map<String, Object> headers, SocialData data) throws Exception;
 
+	/**
+	 * Orders the ids of the provider data from the oldest to the newest, or
+	 * <code>null</code> when they carry no order.
+	 */
+	Comparator<String> getIdComparator();
+
 }
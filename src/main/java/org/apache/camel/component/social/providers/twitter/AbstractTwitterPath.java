@@ -17,13 +17,18 @@
 package org.apache.camel.component.social.providers.twitter;
 
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -42,36 +47,65 @@ import oauth.signpost.OAuthConsumer;
 import oauth.signpost.commonshttp.CommonsHttpOAuthConsumer;
 
 import org.apache.camel.component.social.DefaultSocialData;
+import org.apache.camel.component.social.SocialAsyncTransport;
+import org.apache.camel.component.social.SocialCircuitBreaker;
+import org.apache.camel.component.social.SocialConfiguration;
+import org.apache.camel.component.social.SocialConnectionPool;
 import org.apache.camel.component.social.SocialData;
+import org.apache.camel.component.social.SocialEndpoint;
+import org.apache.camel.component.social.SocialHttpCallback;
 import org.apache.camel.component.social.SocialHttpClient;
 import org.apache.camel.component.social.SocialOAuth;
+import org.apache.camel.component.social.SocialRateLimitManager;
+import org.apache.camel.component.social.SocialRetryPolicy;
+import org.apache.camel.component.social.path.CircuitOpenException;
 import org.apache.camel.component.social.path.RateLimitExceededException;
+import org.apache.camel.component.social.path.RateLimitStatus;
+import org.apache.camel.component.social.path.SocialDataCallback;
 import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.component.social.path.SocialDataFuture;
+import org.apache.camel.component.social.path.SocialPathConditional;
+import org.apache.camel.component.social.path.SocialPathConfigurable;
 import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.apache.camel.component.social.path.SocialPathPageable;
+import org.apache.camel.component.social.path.SocialPathRateLimitAware;
 import org.apache.camel.component.social.path.SocialPathSessionAware;
+import org.apache.camel.component.social.path.SocialPathWarmable;
+import org.apache.camel.component.social.util.CachedHmacSha1MessageSigner;
+import org.apache.camel.component.social.util.ConditionalGetCache;
+import org.apache.camel.component.social.util.ResponseBuffer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
-import org.apache.http.ParseException;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.params.CoreProtocolPNames;
 import org.apache.http.protocol.HTTP;
-import org.apache.http.util.EntityUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 public abstract class AbstractTwitterPath implements SocialPathConsumer,
-		SocialPathSessionAware {
+		SocialPathSessionAware, SocialPathConfigurable, SocialPathPageable,
+		SocialPathRateLimitAware, SocialPathWarmable, SocialPathConditional {
+
+	public static final String STAX_PARSER = "stax";
+
+	public static final String DOM_PARSER = "dom";
+
+	private static final String WARM_UP_STATUSES = "<statuses type=\"array\"><status>"
+			+ "<id>0</id><text>warm up</text><user><id>0</id></user></status></statuses>";
 
 	private static final String STATUS_UPDATE = "statuses/update";
 
@@ -83,13 +117,49 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 
 	private static final String SINCE_ID_PARAM = "since_id";
 
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	// Content-Length sizes the buffer up to here, larger bodies grow it as read
+	private static final int MAX_INITIAL_BUFFER_SIZE = DEFAULT_BUFFER_SIZE * 128;
+
+	private static final String COUNT_PARAM = "count";
+
+	private static final int DEFAULT_PAGE_SIZE = 20;
+
+	private static final int MAX_PAGE_SIZE = 200;
+
 	private volatile boolean sessionActive;
 	private String path;
 	private TwitterProvider provider;
 	private SocialHttpClient httpClient;
+	private SocialConnectionPool connectionPool;
+	private SocialAsyncTransport asyncTransport;
+	private SocialRetryPolicy retryPolicy;
+	private SocialCircuitBreaker circuitBreaker;
+	private boolean cachedSigner;
+	private String apiUrl;
 
 	private DocumentBuilderFactory domFac;
 
+	private final TwitterStatusStaxParser staxParser = new TwitterStatusStaxParser();
+
+	private boolean useStaxParser = true;
+
+	private int maxResponseSize = -1;
+
+	private volatile RateLimitStatus rateLimitStatus;
+
+	private SocialRateLimitManager rateLimitManager;
+	private String rateLimitKey;
+	private int rateLimit = -1;
+	private long rateLimitWindow;
+
+	private ConditionalGetCache conditionalGetCache;
+
+	private boolean backfill;
+	private int backfillParallelism = 4;
+	private int maxBackfillPages = 50;
+
 	public DocumentBuilderFactory getDomFac() {
 		return domFac;
 	}
@@ -128,6 +198,157 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 		return path;
 	}
 
+	public void configure(SocialEndpoint endpoint) throws Exception {
+		setXmlParser(endpoint.getConfiguration().getXmlParser());
+		staxParser.setLazyBody(endpoint.getConfiguration().isLazyBody());
+		setMaxResponseSize(endpoint.getConfiguration().getMaxResponseSize());
+		connectionPool = endpoint.getConnectionPool();
+		asyncTransport = endpoint.getAsyncTransport();
+		retryPolicy = endpoint.getRetryPolicy();
+		circuitBreaker = endpoint.getCircuitBreaker();
+		setOauthSigner(endpoint.getConfiguration().getOauthSigner());
+		setApiUrl(endpoint.getConfiguration().getApiUrl());
+		setBackfill(endpoint.getConfiguration().isBackfill());
+		setBackfillParallelism(endpoint.getConfiguration().getBackfillParallelism());
+		setMaxBackfillPages(endpoint.getConfiguration().getMaxBackfillPages());
+		// without skipRead every poll emits its items again, an unchanged
+		// response must still be parsed
+		setConditionalGet(endpoint.getConfiguration().isConditionalGet()
+				&& Boolean.TRUE.equals(endpoint.getConfiguration().isSkipRead()));
+
+		SocialConfiguration config = endpoint.getConfiguration();
+		rateLimitManager = endpoint.getRateLimitManager();
+		if (config.getRateLimit() != null && config.getRateLimitUnit() != null
+				&& config.getRateLimitPeriod() != null) {
+			rateLimit = config.getRateLimit();
+			rateLimitWindow = config.getRateLimitUnit().toMillis(
+					config.getRateLimitPeriod());
+		}
+	}
+
+	/**
+	 * Selects how XML responses are decoded: {@link #STAX_PARSER} (default)
+	 * walks the response once with a pull parser, {@link #DOM_PARSER} builds a
+	 * DOM and serializes each status node with a {@link Transformer}.
+	 */
+	public void setXmlParser(String parser) {
+		if (parser == null || STAX_PARSER.equalsIgnoreCase(parser)) {
+			useStaxParser = true;
+		} else if (DOM_PARSER.equalsIgnoreCase(parser)) {
+			useStaxParser = false;
+		} else {
+			throw new IllegalArgumentException("Unknown xmlParser: " + parser);
+		}
+	}
+
+	public boolean isStaxParser() {
+		return useStaxParser;
+	}
+
+	public int getMaxResponseSize() {
+		return maxResponseSize;
+	}
+
+	/**
+	 * Upper bound, in bytes, of a response body. Bigger responses fail with a
+	 * {@link SocialDataFetchError} instead of being buffered. A negative value
+	 * disables the check.
+	 */
+	public void setMaxResponseSize(int maxResponseSize) {
+		this.maxResponseSize = maxResponseSize;
+		SocialHttpClient client = httpClient;
+		if (client != null) {
+			client.setMaxResponseSize(maxResponseSize);
+		}
+	}
+
+	public boolean isBackfill() {
+		return backfill;
+	}
+
+	/**
+	 * When a read with a since_id returns a full page, also fetch the older
+	 * pages down to that since_id instead of leaving a gap.
+	 */
+	public void setBackfill(boolean backfill) {
+		this.backfill = backfill;
+	}
+
+	public int getBackfillParallelism() {
+		return backfillParallelism;
+	}
+
+	/**
+	 * Backfill requests in flight at once.
+	 */
+	public void setBackfillParallelism(int backfillParallelism) {
+		this.backfillParallelism = backfillParallelism;
+	}
+
+	public int getMaxBackfillPages() {
+		return maxBackfillPages;
+	}
+
+	/**
+	 * Pages a single read fetches at most, the first one included.
+	 */
+	public void setMaxBackfillPages(int maxBackfillPages) {
+		this.maxBackfillPages = maxBackfillPages;
+	}
+
+	public boolean isConditionalGet() {
+		return conditionalGetCache != null;
+	}
+
+	/**
+	 * Sends the validators of the previous response of a read and skips
+	 * responses which did not change since, reading them as empty.
+	 */
+	public void setConditionalGet(boolean conditionalGet) {
+		if (!conditionalGet) {
+			conditionalGetCache = null;
+		} else if (conditionalGetCache == null) {
+			conditionalGetCache = new ConditionalGetCache();
+		}
+	}
+
+	public void forgetReads() {
+		ConditionalGetCache cache = conditionalGetCache;
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	public String getOauthSigner() {
+		return cachedSigner ? "hmac" : "signpost";
+	}
+
+	public void setOauthSigner(String oauthSigner) {
+		if (oauthSigner == null || "signpost".equals(oauthSigner)) {
+			cachedSigner = false;
+		} else if ("hmac".equals(oauthSigner)) {
+			cachedSigner = true;
+		} else {
+			throw new IllegalArgumentException("oauthSigner must be signpost or hmac, was: "
+					+ oauthSigner);
+		}
+	}
+
+	public String getApiUrl() {
+		return apiUrl != null ? apiUrl : getTwitterApiUrl();
+	}
+
+	/**
+	 * Base URL the path resolves its resources against, replacing the
+	 * Twitter one, e.g. to talk to a proxy or a local stub.
+	 */
+	public void setApiUrl(String apiUrl) {
+		if (apiUrl != null && !apiUrl.endsWith("/")) {
+			apiUrl = apiUrl.concat("/");
+		}
+		this.apiUrl = apiUrl;
+	}
+
 	public void endSession() {
 		httpClient.shutdown();
 		sessionActive = false;
@@ -137,22 +358,266 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 			SocialOAuth userCredentials) throws Exception {
 		OAuthConsumer consumer = provider
 				.createOAuthConsumer(consumerCredentials);
+		if (cachedSigner) {
+			// before the token, signpost only hands the consumer secret over
+			consumer.setMessageSigner(new CachedHmacSha1MessageSigner());
+		}
 		consumer.setTokenWithSecret(userCredentials.token,
 				userCredentials.secret);
-		httpClient = new SocialHttpClient((CommonsHttpOAuthConsumer) consumer);
+		if (connectionPool != null) {
+			httpClient = new SocialHttpClient(connectionPool, consumer);
+		} else {
+			httpClient = new SocialHttpClient((CommonsHttpOAuthConsumer) consumer);
+		}
+		httpClient.setAsyncTransport(asyncTransport);
+		httpClient.setMaxResponseSize(maxResponseSize);
+		initRateLimit(userCredentials.token);
 		sessionActive = true;
 	}
 
+	/**
+	 * Joins the budget of the credential, shared with every other path and
+	 * producer using it.
+	 */
+	private void initRateLimit(String token) {
+		rateLimitKey = SocialRateLimitManager.key(provider != null ? provider
+				.getProviderName() : "twitter", token);
+		if (rateLimitManager != null) {
+			rateLimitManager.configure(rateLimitKey, rateLimit, rateLimitWindow);
+		}
+	}
+
+	/**
+	 * Takes a call from the budget of the session.
+	 * 
+	 * @return 0 when the call may go out, else the time in ms to wait
+	 */
+	private long acquireRateLimit() {
+		if (rateLimitManager == null || rateLimitKey == null) {
+			return 0;
+		}
+		return rateLimitManager.tryAcquire(rateLimitKey);
+	}
+
+	/**
+	 * Takes a call from the budget of the session, the caller being parked
+	 * until the shared scheduler wakes it up when the budget allows.
+	 */
+	private void awaitRateLimit() throws SocialDataFetchError {
+		long wait;
+		while ((wait = acquireRateLimit()) > 0) {
+			park(wait);
+		}
+	}
+
+	/**
+	 * Parks the caller until the shared scheduler wakes it up after the
+	 * delay in ms.
+	 */
+	private void park(long delay) throws SocialDataFetchError {
+		final CountDownLatch due = new CountDownLatch(1);
+		rateLimitManager.schedule(new Runnable() {
+			public void run() {
+				due.countDown();
+			}
+		}, delay);
+		try {
+			// bounded, the scheduler goes away with the component
+			due.await(delay + 1000, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SocialDataFetchError(e);
+		}
+	}
+
+	/**
+	 * Sends the request once the budget of the session allows it, waiting on
+	 * the shared scheduler instead of a thread.
+	 */
+	private void executeAsync(final HttpUriRequest request,
+			final SocialHttpCallback callback) {
+		sendWithinBudget(request, new GuardedCallback(request, callback));
+	}
+
+	private void sendWithinBudget(final HttpUriRequest request,
+			final SocialHttpCallback guarded) {
+		if (rateLimitManager == null || rateLimitKey == null) {
+			sendGuarded(request, guarded);
+			return;
+		}
+		rateLimitManager.acquire(rateLimitKey, new Runnable() {
+			public void run() {
+				sendGuarded(request, guarded);
+			}
+		});
+	}
+
+	private void sendGuarded(HttpUriRequest request, SocialHttpCallback callback) {
+		String host = getHost(request);
+		if (circuitBreaker != null && !circuitBreaker.allowRequest(host)) {
+			callback.failed(new CircuitOpenException(host));
+			return;
+		}
+		httpClient.executeAsync(request, callback);
+	}
+
+	/**
+	 * Reports the outcome of an asynchronous request to the circuit of its
+	 * host and sends it again, later and within the budget of the session,
+	 * when the retry policy says so.
+	 */
+	private final class GuardedCallback implements SocialHttpCallback {
+
+		private final HttpUriRequest request;
+		private final SocialHttpCallback target;
+		private int attempts;
+
+		GuardedCallback(HttpUriRequest request, SocialHttpCallback target) {
+			this.request = request;
+			this.target = target;
+		}
+
+		public void completed(HttpResponse response) {
+			if (!retry(null, response)) {
+				target.completed(response);
+			}
+		}
+
+		public void failed(Exception cause) {
+			if (cause instanceof CircuitOpenException || !retry(cause, null)) {
+				target.failed(cause);
+			}
+		}
+
+		private boolean retry(Exception cause, HttpResponse response) {
+			attempts++;
+			reportOutcome(request, cause, response);
+			if (retryPolicy == null || rateLimitManager == null
+					|| !retryPolicy.shouldRetry(request, attempts, cause, response)) {
+				return false;
+			}
+			discard(response);
+			long delay = retryPolicy.getDelay(attempts);
+			if (log.isDebugEnabled()) {
+				log.debug("Retrying " + request.getURI() + " in " + delay + " ms: "
+						+ (cause != null ? cause : response.getStatusLine()));
+			}
+			rateLimitManager.schedule(new Runnable() {
+				public void run() {
+					sendWithinBudget(request, GuardedCallback.this);
+				}
+			}, delay);
+			return true;
+		}
+
+	}
+
+	private void reportOutcome(HttpUriRequest request, Exception cause,
+			HttpResponse response) {
+		if (circuitBreaker == null) {
+			return;
+		}
+		if (SocialRetryPolicy.isFailure(cause, response)) {
+			circuitBreaker.onFailure(getHost(request));
+		} else {
+			circuitBreaker.onSuccess(getHost(request));
+		}
+	}
+
+	private static String getHost(HttpUriRequest request) {
+		URI uri = request.getURI();
+		return uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+	}
+
+	private static void discard(HttpResponse response) {
+		if (response != null && response.getEntity() != null) {
+			try {
+				response.getEntity().consumeContent();
+			} catch (IOException e) {
+				// the connection is not reused
+			}
+		}
+	}
+
 	public boolean isSessionActive() {
 		return sessionActive;
 	}
 
+	public void warmUp(int connections) throws Exception {
+		warmUpParsers();
+
+		URI api = new URI(getApiUrl());
+		if (httpClient != null) {
+			// loads the signature algorithm and keys the signer
+			httpClient.sign(new HttpGet(api));
+		}
+
+		if (connectionPool != null && connections > 0) {
+			connectionPool.warmUp(new HttpHost(api.getHost(), api.getPort(), api.getScheme()),
+					connections);
+		} else {
+			InetAddress.getByName(api.getHost());
+		}
+	}
+
+	/**
+	 * Decodes a sample response, the parsers load their implementations on
+	 * first use.
+	 */
+	protected void warmUpParsers() throws Exception {
+		ResponseBuffer body = new ResponseBuffer();
+		body.write(WARM_UP_STATUSES.getBytes("UTF-8"));
+		convertToSocialDataList(body);
+	}
+
 	protected String getCommandPath() {
 		return STATUS_UPDATE;
 	}
 
 	public SocialData updateData(Object data, Map<String, Object> headers)
 			throws SocialDataFetchError {
+		HttpPost post = createUpdateRequest(data, headers);
+		awaitRateLimit();
+		HttpResponse response = callHttpMethod(post);
+		return handleUpdateResponse(post, response);
+	}
+
+	public Future<SocialData> updateDataAsync(Object data,
+			Map<String, Object> headers, SocialDataCallback<SocialData> callback) {
+		final SocialDataFuture<SocialData> future = new SocialDataFuture<SocialData>(
+				callback);
+
+		if (httpClient == null) {
+			future.fail(new SocialDataFetchError("No session to update data"));
+			return future;
+		}
+
+		final HttpPost post;
+		try {
+			post = createUpdateRequest(data, headers);
+		} catch (SocialDataFetchError e) {
+			future.fail(e);
+			return future;
+		}
+
+		executeAsync(post, new SocialHttpCallback() {
+			public void completed(HttpResponse response) {
+				try {
+					future.complete(handleUpdateResponse(post, response));
+				} catch (Exception e) {
+					future.fail(e);
+				}
+			}
+
+			public void failed(Exception cause) {
+				future.fail(new SocialDataFetchError(cause));
+			}
+		});
+		return future;
+	}
+
+	protected HttpPost createUpdateRequest(Object data,
+			Map<String, Object> headers) throws SocialDataFetchError {
 		String status = data.toString();
 
 		String url = normalizeURL(getCommandPath());
@@ -185,29 +650,36 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 		params.put(TwitterProvider.STATUS, status);
 
 		HttpPost post = new HttpPost(url);
-		HttpResponse response;
-		response = callHttpMethod(params, post);
+		prepareHttpMethod(params, post);
+		return post;
+	}
 
-		if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-			try {
-				log.warn("Could not update Twitter status: "
-						+ response.getStatusLine() + "\n"
-						+ EntityUtils.toString(response.getEntity()));
-			} catch (ParseException e) {
-			} catch (IOException e) {
+	protected SocialData handleUpdateResponse(HttpPost post,
+			HttpResponse response) throws SocialDataFetchError {
+		ResponseBuffer body = readEntity(post, response);
+		RateLimitStatus status = updateRateLimitStatus(response);
+
+		int statusCode = response.getStatusLine().getStatusCode();
+		if (statusCode != HttpStatus.SC_OK) {
+			log.warn("Could not update Twitter status: "
+					+ response.getStatusLine() + "\n"
+					+ body.toString());
+
+			if (status != null && status.getRemaining() == 0) {
+				long wait = Math.max(0, status.getResetTime() - System.currentTimeMillis());
+				throw new SocialDataFetchError(new RateLimitExceededException(wait));
 			}
-			return null;
+			throw new SocialDataFetchError("Could not update Twitter status: "
+					+ response.getStatusLine(), statusCode);
 		}
 
-		String body;
 		try {
-			body = EntityUtils.toString(response.getEntity());
+			if (useStaxParser) {
+				return staxParser.parseStatus(body.toInputStream());
+			}
 
 			DocumentBuilder db = domFac.newDocumentBuilder();
-
-			InputSource source = new InputSource();
-			source.setCharacterStream(new StringReader(body));
-			Document doc = db.parse(source);
+			Document doc = db.parse(body.toInputStream());
 
 			DefaultSocialData socialData = parseStatus(doc.getFirstChild());
 			return socialData;
@@ -223,6 +695,120 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 
 	public Iterable<SocialData> readData(String lastId, Map<String, Object> providerParams)
 			throws SocialDataFetchError, RateLimitExceededException {
+		ResponseBuffer body = listStatuses(getStreamPath(),
+				createReadParams(lastId, providerParams));
+		if (body == null) {
+			return Collections.emptyList();
+		}
+
+		Iterable<SocialData> page;
+		try {
+			page = convertToSocialDataList(body);
+		} catch (Exception e) {
+			throw new SocialDataFetchError(e);
+		}
+
+		if (!backfill || lastId == null) {
+			return page;
+		}
+
+		List<SocialData> firstPage = toList(page);
+		int pageSize = getPageSize(providerParams);
+		if (firstPage.size() < pageSize) {
+			return firstPage;
+		}
+		return new TwitterBackfill(this, backfillParallelism, maxBackfillPages)
+				.run(lastId, providerParams, firstPage, pageSize);
+	}
+
+	static List<SocialData> toList(Iterable<SocialData> data) {
+		if (data instanceof List) {
+			return (List<SocialData>) data;
+		}
+		List<SocialData> list = new ArrayList<SocialData>();
+		for (SocialData sd : data) {
+			list.add(sd);
+		}
+		return list;
+	}
+
+	/**
+	 * Items per page of a read, the requested one or the API default.
+	 */
+	protected int getPageSize(Map<String, Object> params) {
+		Object size = params != null ? params.get(getPageSizeParam()) : null;
+		if (size != null) {
+			try {
+				return Integer.parseInt(size.toString());
+			} catch (NumberFormatException e) {
+			}
+		}
+		return getDefaultPageSize();
+	}
+
+	public String getPageSizeParam() {
+		return COUNT_PARAM;
+	}
+
+	public int getDefaultPageSize() {
+		return DEFAULT_PAGE_SIZE;
+	}
+
+	public int getMaxPageSize() {
+		return MAX_PAGE_SIZE;
+	}
+
+	public RateLimitStatus getRateLimitStatus() {
+		return rateLimitStatus;
+	}
+
+	/**
+	 * Whether older results are reached by page number rather than by
+	 * <code>max_id</code>.
+	 */
+	protected boolean isPagedByNumber() {
+		return false;
+	}
+
+	public Future<Iterable<SocialData>> readDataAsync(String lastId,
+			Map<String, Object> providerParams,
+			SocialDataCallback<Iterable<SocialData>> callback) {
+		final SocialDataFuture<Iterable<SocialData>> future = new SocialDataFuture<Iterable<SocialData>>(
+				callback);
+
+		final HttpGet get = createListRequest(getStreamPath(),
+				createReadParams(lastId, providerParams));
+
+		executeAsync(get, new SocialHttpCallback() {
+			public void completed(HttpResponse response) {
+				ResponseBuffer body;
+				try {
+					body = handleListResponse(get, response);
+				} catch (Exception e) {
+					future.fail(e);
+					return;
+				}
+
+				if (body == null) {
+					future.complete(Collections.<SocialData> emptyList());
+					return;
+				}
+				try {
+					future.complete(convertToSocialDataList(body));
+				} catch (Exception e) {
+					future.fail(new SocialDataFetchError(e));
+				}
+			}
+
+			public void failed(Exception cause) {
+				future.fail(new SocialDataFetchError(cause));
+			}
+		});
+		return future;
+	}
+
+	private Map<String, Object> createReadParams(String lastId,
+			Map<String, Object> providerParams) {
 		if (httpClient == null) {
 			initHttpClientNoAuth();
 		}
@@ -239,46 +825,92 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 		if (started == 0) {
 			started = System.currentTimeMillis();
 		}
+		return params;
+	}
 
-		String body = listStatuses(getStreamPath(), params);
-
-		try {
-			return convertToSocialDataList(body);
-		} catch (Exception e) {
-			throw new SocialDataFetchError(e);
+	/**
+	 * Client of the session, or an unauthenticated one without a session.
+	 */
+	protected SocialHttpClient getHttpClient() {
+		if (httpClient == null) {
+			initHttpClientNoAuth();
 		}
+		return httpClient;
 	}
 
 	private void initHttpClientNoAuth() {
-		httpClient = new SocialHttpClient();
+		if (connectionPool != null) {
+			httpClient = new SocialHttpClient(connectionPool);
+		} else {
+			httpClient = new SocialHttpClient();
+		}
+		httpClient.setAsyncTransport(asyncTransport);
+		httpClient.setMaxResponseSize(maxResponseSize);
+		initRateLimit(null);
 	}
 
-	protected final String listStatuses(String stream,
+	protected final ResponseBuffer listStatuses(String stream,
 			Map<String, Object> params) throws SocialDataFetchError,
 			RateLimitExceededException {
+		long wait = acquireRateLimit();
+		if (wait > 0) {
+			throw new RateLimitExceededException(wait);
+		}
+		HttpGet get = createListRequest(stream, params);
+		HttpResponse response = callHttpMethod(get);
+		return handleListResponse(get, response);
+	}
+
+	protected HttpGet createListRequest(String stream,
+			Map<String, Object> params) {
 		String url = normalizeURL(stream);
+		HttpGet get = new HttpGet(url);
+		prepareHttpMethod(params, get);
+		ConditionalGetCache cache = conditionalGetCache;
+		if (cache != null) {
+			cache.prepare(get);
+		}
+		return get;
+	}
 
-		// TODO fix
-		if (params != null && params.get("q") != null) {
-			if (url.indexOf('?') == -1) {
-				url = url.concat("?");
+	/**
+	 * Records the rate limit headers of the response, also in the budget of
+	 * the session.
+	 * 
+	 * @return the status of the headers, <code>null</code> without them
+	 */
+	private RateLimitStatus updateRateLimitStatus(HttpResponse response) {
+		RateLimitStatus status = RateLimitStatus.parse(
+				getHeader(response, "X-RateLimit-Limit"),
+				getHeader(response, "X-RateLimit-Remaining"),
+				getHeader(response, "X-RateLimit-Reset"));
+		if (status != null) {
+			rateLimitStatus = status;
+			if (rateLimitManager != null && rateLimitKey != null) {
+				rateLimitManager.update(rateLimitKey, status);
 			}
-			
-			url= url.concat("q=").concat(params.get("q").toString());
-		}
-		HttpGet get = new HttpGet(url);
-		HttpResponse response;
-		try {
-			response = callHttpMethod(params, get);
-		} catch (Exception e1) {
-			throw new SocialDataFetchError(e1);
 		}
+		return status;
+	}
 
-		String body;
-		try {
-			body = EntityUtils.toString(response.getEntity());
-		} catch (Exception e) {
-			throw new SocialDataFetchError(e);
+	/**
+	 * Reads a list response.
+	 * 
+	 * @return the body, or <code>null</code> when it did not change since
+	 *         the previous read of the same request
+	 */
+	protected ResponseBuffer handleListResponse(HttpGet get,
+			HttpResponse response) throws SocialDataFetchError,
+			RateLimitExceededException {
+		ResponseBuffer body = readEntity(get, response);
+		RateLimitStatus status = updateRateLimitStatus(response);
+
+		ConditionalGetCache cache = conditionalGetCache;
+		if (cache != null && cache.isUnchanged(get, response, body)) {
+			if (log.isDebugEnabled()) {
+				log.debug("Unchanged response, not parsed: " + get.getURI());
+			}
+			return null;
 		}
 
 		if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
@@ -294,23 +926,20 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 				}
 			}
 
-			Header[] hRate = response.getHeaders("X-RateLimit-Remaining");
-			if (hRate != null && hRate.length > 0
-					&& Long.parseLong(hRate[0].getValue()) == 0) {
+			if (status != null && status.getRemaining() == 0) {
 				log.warn("Twitter provider found rate limit exceeded");
 
 				long timeNow = System.currentTimeMillis();
-				long howLong = timeNow - started;
-				long haveToWait = TimeUnit.MILLISECONDS.convert(1,
-						TimeUnit.HOURS) - howLong;
-
-				Header[] hRateReset = response.getHeaders("X-RateLimit-Reset");
-
-				if (hRateReset != null && hRateReset.length > 0) {
-					try {
-						haveToWait = Long.parseLong(hRateReset[0].getValue());
-					} catch (Exception e) {
-					}
+				long haveToWait;
+				if (status.getResetTime() > 0) {
+					haveToWait = Math.max(0, status.getResetTime() - timeNow);
+				} else {
+					long howLong = timeNow - started;
+					haveToWait = Math.max(0, TimeUnit.MILLISECONDS.convert(1,
+							TimeUnit.HOURS) - howLong);
+				}
+				if (rateLimitManager != null && rateLimitKey != null) {
+					rateLimitManager.block(rateLimitKey, timeNow + haveToWait);
 				}
 				log.warn("throwing RateLimitExceededException(" + haveToWait
 						+ ")");
@@ -319,24 +948,67 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 			}
 		}
 
-		get.abort();
-
 		return body;
 	}
 
+	private static String getHeader(HttpResponse response, String name) {
+		Header header = response.getFirstHeader(name);
+		return header != null ? header.getValue() : null;
+	}
+
+	/**
+	 * Reads the response entity straight into a byte buffer, no charset
+	 * decoding and no intermediate String. Consuming the content releases the
+	 * connection, an oversized response aborts the request instead.
+	 */
+	protected ResponseBuffer readEntity(HttpUriRequest method,
+			HttpResponse response) throws SocialDataFetchError {
+		HttpEntity entity = response.getEntity();
+		if (entity == null) {
+			return new ResponseBuffer(0);
+		}
+
+		long contentLength = entity.getContentLength();
+		if (maxResponseSize >= 0 && contentLength > maxResponseSize) {
+			method.abort();
+			throw new SocialDataFetchError(new ResponseBuffer.ResponseTooLargeException(
+					maxResponseSize));
+		}
+
+		ResponseBuffer buffer = new ResponseBuffer(contentLength >= 0 ? (int) Math.min(
+				contentLength, MAX_INITIAL_BUFFER_SIZE) : DEFAULT_BUFFER_SIZE);
+		InputStream in = null;
+		try {
+			in = entity.getContent();
+			buffer.readFrom(in, maxResponseSize);
+			in.close();
+		} catch (IOException e) {
+			method.abort();
+			throw new SocialDataFetchError(e);
+		}
+
+		return buffer;
+	}
+
 	protected HttpResponse callHttpMethod(Map<String, Object> params,
 			HttpUriRequest method) throws SocialDataFetchError {
+		prepareHttpMethod(params, method);
+		return callHttpMethod(method);
+	}
+
+	protected void prepareHttpMethod(Map<String, Object> params,
+			HttpUriRequest method) {
 		method.getParams().setBooleanParameter(
 				CoreProtocolPNames.USE_EXPECT_CONTINUE, false);
 
 		List<NameValuePair> postMethod = new ArrayList<NameValuePair>();
 
-		for (Map.Entry<String, Object> e : params.entrySet()) {
-			if (method instanceof HttpEntityEnclosingRequestBase) {
-				postMethod.add(new BasicNameValuePair(e.getKey(), e.getValue()
-						.toString()));
-			} else {
-				method.getParams().setParameter(e.getKey(), e.getValue());
+		if (params != null) {
+			for (Map.Entry<String, Object> e : params.entrySet()) {
+				if (e.getValue() != null) {
+					postMethod.add(new BasicNameValuePair(e.getKey(), e
+							.getValue().toString()));
+				}
 			}
 		}
 
@@ -347,15 +1019,58 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 								HTTP.UTF_8));
 			} catch (UnsupportedEncodingException e1) {
 			}
+		} else if (!postMethod.isEmpty() && method instanceof HttpRequestBase) {
+			// parameters of a GET go to the query string, where the OAuth
+			// signature covers them too
+			String uri = method.getURI().toString();
+			((HttpRequestBase) method).setURI(URI.create(uri
+					+ (uri.indexOf('?') == -1 ? '?' : '&')
+					+ URLEncodedUtils.format(postMethod, HTTP.UTF_8)));
 		}
+	}
 
-		HttpResponse response;
-		try {
-			response = httpClient.execute(method);
-		} catch (Exception e) {
-			throw new SocialDataFetchError(e);
+	/**
+	 * Sends the request, failing fast while the circuit of its host is open
+	 * and retrying I/O and server errors as the retry policy says. The
+	 * caller is parked on the shared scheduler for the backoff, and each
+	 * retry takes a call from the budget of the session.
+	 */
+	protected HttpResponse callHttpMethod(HttpUriRequest method)
+			throws SocialDataFetchError {
+		String host = getHost(method);
+		for (int attempts = 1;; attempts++) {
+			if (circuitBreaker != null && !circuitBreaker.allowRequest(host)) {
+				throw new CircuitOpenException(host);
+			}
+
+			HttpResponse response = null;
+			Exception cause = null;
+			try {
+				response = httpClient.execute(method);
+			} catch (Exception e) {
+				cause = e;
+			}
+			reportOutcome(method, cause, response);
+
+			if (retryPolicy == null || rateLimitManager == null
+					|| !retryPolicy.shouldRetry(method, attempts, cause, response)) {
+				if (cause != null) {
+					throw new SocialDataFetchError(cause);
+				}
+				return response;
+			}
+
+			discard(response);
+			long delay = retryPolicy.getDelay(attempts);
+			if (log.isDebugEnabled()) {
+				log.debug("Retrying " + method.getURI() + " in " + delay + " ms: "
+						+ (cause != null ? cause : response.getStatusLine()));
+			}
+			// woken up by the shared scheduler, the retry is a call of the
+			// budget like any other
+			park(delay);
+			awaitRateLimit();
 		}
-		return response;
 	}
 
 	protected String normalizeURL(String stream) {
@@ -364,17 +1079,23 @@ public abstract class AbstractTwitterPath implements SocialPathConsumer,
 		}
 
 		StringBuilder url = new StringBuilder();
-		url.append(getTwitterApiUrl()).append(stream).append(getFormat());
+		url.append(getApiUrl()).append(stream).append(getFormat());
 		return url.toString();
 	}
 
-	protected Iterable<SocialData> convertToSocialDataList(String body)
+	protected Iterable<SocialData> convertToSocialDataList(ResponseBuffer body)
 			throws Exception {
-		DocumentBuilder db = getDomFac().newDocumentBuilder();
+		if (useStaxParser) {
+			return staxParser.parseStatuses(body.toInputStream());
+		}
 
-		InputSource source = new InputSource();
-		source.setCharacterStream(new StringReader(body));
-		Document doc = db.parse(source);
+		return convertToSocialDataListDom(body);
+	}
+
+	protected Iterable<SocialData> convertToSocialDataListDom(ResponseBuffer body)
+			throws Exception {
+		DocumentBuilder db = getDomFac().newDocumentBuilder();
+		Document doc = db.parse(body.toInputStream());
 
 		XPathExpression expr = getXpath().compile("/statuses/status");
 
@@ -0,0 +1,222 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.providers.twitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.camel.component.social.SocialData;
+import org.apache.camel.component.social.path.RateLimitExceededException;
+import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.component.social.util.NumericIdComparator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Fetches the statuses older than a full first page down to the previous
+ * since_id, so a burst of statuses between two polls is not cut at one page.
+ * <p>
+ * Timelines are walked with <code>max_id</code>: the missing id range is split
+ * in as many sub ranges as requests allowed in flight, each fetched on its own
+ * and walked further while it returns full pages. Search results are walked
+ * with <code>page</code> numbers, a wave of consecutive pages at a time.
+ * Requests of a wave are sent through the asynchronous transport. The pages
+ * are merged without duplicates, newest first like a single page.
+ */
+class TwitterBackfill {
+
+	private static Log log = LogFactory.getLog(TwitterBackfill.class);
+
+	static final String MAX_ID_PARAM = "max_id";
+
+	static final String PAGE_PARAM = "page";
+
+	private static final Comparator<SocialData> NEWEST_FIRST = new Comparator<SocialData>() {
+		public int compare(SocialData a, SocialData b) {
+			return NumericIdComparator.INSTANCE.compare(b.getId(), a.getId());
+		}
+	};
+
+	private final AbstractTwitterPath path;
+	private final int parallelism;
+	private final int maxPages;
+
+	TwitterBackfill(AbstractTwitterPath path, int parallelism, int maxPages) {
+		this.path = path;
+		this.parallelism = Math.max(1, parallelism);
+		this.maxPages = maxPages;
+	}
+
+	List<SocialData> run(String sinceId, Map<String, Object> params,
+			List<SocialData> firstPage, int pageSize) throws SocialDataFetchError,
+			RateLimitExceededException {
+		Map<String, SocialData> merged = new HashMap<String, SocialData>();
+		for (SocialData sd : firstPage) {
+			merged.put(sd.getId(), sd);
+		}
+
+		boolean complete;
+		if (path.isPagedByNumber()) {
+			complete = walkPages(sinceId, params, pageSize, merged);
+		} else {
+			complete = walkIdRanges(sinceId, params, firstPage, pageSize, merged);
+		}
+		if (!complete) {
+			log.warn("Backfill of " + path.getPath() + " stopped after " + maxPages
+					+ " pages, older statuses since " + sinceId + " were not fetched");
+		}
+
+		List<SocialData> result = new ArrayList<SocialData>(merged.values());
+		Collections.sort(result, NEWEST_FIRST);
+		return result;
+	}
+
+	private boolean walkIdRanges(String sinceId, Map<String, Object> params,
+			List<SocialData> firstPage, int pageSize, Map<String, SocialData> merged)
+			throws SocialDataFetchError, RateLimitExceededException {
+		long since;
+		long oldest = Long.MAX_VALUE;
+		try {
+			since = Long.parseLong(sinceId);
+			for (SocialData sd : firstPage) {
+				oldest = Math.min(oldest, Long.parseLong(sd.getId()));
+			}
+		} catch (NumberFormatException e) {
+			log.debug("Ids are not numeric, cannot backfill " + path.getPath());
+			return true;
+		}
+
+		// ranges are (since, max], max_id is inclusive
+		Deque<long[]> ranges = new ArrayDeque<long[]>();
+		split(since, oldest - 1, ranges);
+
+		int pages = 1;
+		while (!ranges.isEmpty() && pages < maxPages) {
+			int wave = Math.min(Math.min(parallelism, ranges.size()), maxPages - pages);
+			List<long[]> sent = new ArrayList<long[]>(wave);
+			List<Future<Iterable<SocialData>>> futures = new ArrayList<Future<Iterable<SocialData>>>(wave);
+			for (int i = 0; i < wave; i++) {
+				long[] range = ranges.removeFirst();
+				Map<String, Object> rangeParams = copy(params);
+				rangeParams.put(MAX_ID_PARAM, Long.toString(range[1]));
+				sent.add(range);
+				futures.add(path.readDataAsync(Long.toString(range[0]), rangeParams, null));
+			}
+
+			for (int i = 0; i < wave; i++) {
+				List<SocialData> page = get(futures.get(i));
+				pages++;
+				long rangeOldest = Long.MAX_VALUE;
+				for (SocialData sd : page) {
+					merged.put(sd.getId(), sd);
+					rangeOldest = Math.min(rangeOldest, Long.parseLong(sd.getId()));
+				}
+				long low = sent.get(i)[0];
+				if (page.size() >= pageSize && rangeOldest - 1 > low) {
+					ranges.addLast(new long[] {low, rangeOldest - 1});
+				}
+			}
+		}
+		return ranges.isEmpty();
+	}
+
+	/**
+	 * Splits (low, high] in up to <code>parallelism</code> non empty ranges.
+	 */
+	private void split(long low, long high, Deque<long[]> ranges) {
+		if (high <= low) {
+			return;
+		}
+		long step = Math.max(1, (high - low) / parallelism);
+		long start = low;
+		for (int i = 1; i < parallelism && start + step < high; i++) {
+			ranges.addLast(new long[] {start, start + step});
+			start += step;
+		}
+		ranges.addLast(new long[] {start, high});
+	}
+
+	private boolean walkPages(String sinceId, Map<String, Object> params, int pageSize,
+			Map<String, SocialData> merged) throws SocialDataFetchError,
+			RateLimitExceededException {
+		int page = 2;
+		while (page <= maxPages) {
+			int wave = Math.min(parallelism, maxPages - page + 1);
+			List<Future<Iterable<SocialData>>> futures = new ArrayList<Future<Iterable<SocialData>>>(wave);
+			for (int i = 0; i < wave; i++) {
+				Map<String, Object> pageParams = copy(params);
+				pageParams.put(PAGE_PARAM, Integer.toString(page + i));
+				futures.add(path.readDataAsync(sinceId, pageParams, null));
+			}
+
+			boolean last = false;
+			for (Future<Iterable<SocialData>> future : futures) {
+				List<SocialData> items = get(future);
+				for (SocialData sd : items) {
+					if (NumericIdComparator.INSTANCE.compare(sd.getId(), sinceId) > 0) {
+						merged.put(sd.getId(), sd);
+					} else {
+						last = true;
+					}
+				}
+				last |= items.size() < pageSize;
+			}
+			if (last) {
+				return true;
+			}
+			page += wave;
+		}
+		return false;
+	}
+
+	private static Map<String, Object> copy(Map<String, Object> params) {
+		Map<String, Object> copy = new HashMap<String, Object>();
+		if (params != null) {
+			copy.putAll(params);
+		}
+		return copy;
+	}
+
+	private static List<SocialData> get(Future<Iterable<SocialData>> future)
+			throws SocialDataFetchError, RateLimitExceededException {
+		try {
+			return AbstractTwitterPath.toList(future.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SocialDataFetchError(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RateLimitExceededException) {
+				throw (RateLimitExceededException) cause;
+			}
+			if (cause instanceof SocialDataFetchError) {
+				throw (SocialDataFetchError) cause;
+			}
+			throw new SocialDataFetchError(cause instanceof Exception ? (Exception) cause
+					: e);
+		}
+	}
+
+}
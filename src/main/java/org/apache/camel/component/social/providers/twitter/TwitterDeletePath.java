@@ -1,23 +1,59 @@
 package org.apache.camel.component.social.providers.twitter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.camel.component.social.DefaultSocialData;
+import org.apache.camel.component.social.SocialBulkResult;
 import org.apache.camel.component.social.SocialData;
+import org.apache.camel.component.social.SocialEndpoint;
 import org.apache.camel.component.social.SocialHeaders;
 import org.apache.camel.component.social.path.RateLimitExceededException;
+import org.apache.camel.component.social.path.SocialDataCallback;
 import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.component.social.path.SocialDataFuture;
+import org.apache.http.client.methods.HttpPost;
 
+/**
+ * Destroys the status named by the {@link SocialHeaders#SOCIAL_DATA_ID}
+ * header, or by the body when there is no such header. A body holding a
+ * collection or an array of ids or {@link SocialData} destroys all of them,
+ * at most bulkParallelism at once, and returns a {@link SocialBulkResult}
+ * as data.
+ */
 public class TwitterDeletePath extends AbstractTwitterPath {
 
 	private static final String STATUSES_DESTROY = "statuses/destroy";
 	// private static Log log = LogFactory.getLog(TwitterDeletePath.class);
-	private volatile String statusId;
+
+	private int bulkParallelism = 4;
 
 	public TwitterDeletePath(TwitterProvider twitterProvider) throws Exception {
 		super(twitterProvider, "delete");
 	}
 
+	@Override
+	public void configure(SocialEndpoint endpoint) throws Exception {
+		super.configure(endpoint);
+		setBulkParallelism(endpoint.getConfiguration().getBulkParallelism());
+	}
+
+	public int getBulkParallelism() {
+		return bulkParallelism;
+	}
+
+	public void setBulkParallelism(int bulkParallelism) {
+		this.bulkParallelism = Math.max(1, bulkParallelism);
+	}
+
 	@Override
 	protected String getStreamPath() {
 		return STATUSES_DESTROY;
@@ -34,23 +70,147 @@ public class TwitterDeletePath extends AbstractTwitterPath {
 		return Collections.emptyList();
 	}
 
+	/**
+	 * The id travels with the request, concurrent deletes do not share any
+	 * state.
+	 */
 	@Override
-	protected String normalizeURL(String stream) {
-		String url = super.normalizeURL(stream);
-		int indexOfDot = url.lastIndexOf('.');
-		StringBuilder bUrl = new StringBuilder(url).insert(indexOfDot, "/"
-				+ statusId);
-		return bUrl.toString();
+	protected HttpPost createUpdateRequest(Object data,
+			Map<String, Object> headers) throws SocialDataFetchError {
+		Object id = headers.get(SocialHeaders.SOCIAL_DATA_ID);
+		if (id == null) {
+			id = data instanceof SocialData ? ((SocialData) data).getId() : data;
+		}
+		if (id == null) {
+			throw new SocialDataFetchError("No status id to delete");
+		}
+
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put(TwitterProvider.TRIM_USER, "1");
+
+		HttpPost post = new HttpPost(normalizeURL(STATUSES_DESTROY + "/" + id));
+		prepareHttpMethod(params, post);
+		return post;
 	}
 
 	@Override
 	public SocialData updateData(Object data, Map<String, Object> headers)
 			throws SocialDataFetchError {
+		List<String> ids = getBulkIds(data);
+		if (ids == null) {
+			return super.updateData(data, headers);
+		}
+
+		try {
+			return deleteAll(ids, null).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SocialDataFetchError(e);
+		} catch (ExecutionException e) {
+			throw new SocialDataFetchError((Exception) e.getCause());
+		}
+	}
+
+	@Override
+	public Future<SocialData> updateDataAsync(Object data,
+			Map<String, Object> headers, SocialDataCallback<SocialData> callback) {
+		List<String> ids = getBulkIds(data);
+		if (ids == null) {
+			return super.updateDataAsync(data, headers, callback);
+		}
+		return deleteAll(ids, callback);
+	}
+
+	private static List<String> getBulkIds(Object data) {
+		Collection<?> items;
+		if (data instanceof Collection) {
+			items = (Collection<?>) data;
+		} else if (data instanceof Object[]) {
+			items = Arrays.asList((Object[]) data);
+		} else {
+			return null;
+		}
+
+		List<String> ids = new ArrayList<String>(items.size());
+		for (Object item : items) {
+			ids.add(item instanceof SocialData ? ((SocialData) item).getId() : String
+					.valueOf(item));
+		}
+		return ids;
+	}
+
+	/**
+	 * Deletes the statuses, each request waiting for the rate limit budget of
+	 * the session. One failure does not stop the others.
+	 */
+	private Future<SocialData> deleteAll(List<String> ids,
+			SocialDataCallback<SocialData> callback) {
+		SocialDataFuture<SocialData> future = new SocialDataFuture<SocialData>(callback);
+		new BulkDelete(ids, future).pump();
+		return future;
+	}
+
+	private final class BulkDelete {
+
+		private final List<String> ids;
+		private final SocialDataFuture<SocialData> future;
+		private final SocialBulkResult result = new SocialBulkResult();
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final AtomicInteger remaining;
+		// requests completing on the sending thread call pump() again, the
+		// thread already pumping sends their successors instead of recursing
+		private final AtomicInteger pumping = new AtomicInteger();
+		private int next;
+
+		BulkDelete(List<String> ids, SocialDataFuture<SocialData> future) {
+			this.ids = ids;
+			this.future = future;
+			this.remaining = new AtomicInteger(ids.size());
+		}
+
+		void pump() {
+			if (ids.isEmpty()) {
+				future.complete(new DefaultSocialData(null, result));
+				return;
+			}
+			if (pumping.getAndIncrement() > 0) {
+				return;
+			}
+			do {
+				while (next < ids.size() && inFlight.get() < bulkParallelism) {
+					inFlight.incrementAndGet();
+					delete(ids.get(next++));
+				}
+			} while (pumping.decrementAndGet() > 0);
+		}
+
+		private void delete(final String id) {
+			Map<String, Object> headers = Collections.<String, Object> singletonMap(
+					SocialHeaders.SOCIAL_DATA_ID, id);
+			TwitterDeletePath.super.updateDataAsync(null, headers,
+					new SocialDataCallback<SocialData>() {
+						public void onData(SocialData data) {
+							result.success(id, data);
+							done();
+						}
+
+						public void onError(Exception cause) {
+							result.failure(id, cause);
+							done();
+						}
+					});
+		}
 
-		statusId = headers.get(SocialHeaders.SOCIAL_DATA_ID).toString();
+		private void done() {
+			inFlight.decrementAndGet();
+			if (remaining.decrementAndGet() == 0) {
+				future.complete(new DefaultSocialData(null, result));
+			} else {
+				pump();
+			}
+		}
 
-		Map<String, Object> empty = Collections.emptyMap();
-		return super.updateData(data, empty);
 	}
 
 }
@@ -16,12 +16,14 @@
  */
 package org.apache.camel.component.social.providers.twitter;
 
+import java.util.Comparator;
 import java.util.Map;
 
 import org.apache.camel.component.social.SocialData;
 import org.apache.camel.component.social.path.SocialPathConsumer;
 import org.apache.camel.component.social.providers.AbstractSocialProvider;
 import org.apache.camel.component.social.providers.SocialProvider;
+import org.apache.camel.component.social.util.NumericIdComparator;
 
 public class TwitterProvider extends AbstractSocialProvider implements SocialProvider {
 
@@ -61,12 +63,24 @@ public class TwitterProvider extends AbstractSocialProvider implements SocialPro
 			return new TwitterSearchPath(this);
 		}
 
+		if (path.equals("stream")) {
+			return new TwitterStreamPath(this);
+		}
+
 		return null;
 	}
 
 	public void configureHeaders(Map<String, Object> headers, SocialData data) throws Exception {
 	}
 
+	/**
+	 * Status ids grow with time.
+	 */
+	@Override
+	public Comparator<String> getIdComparator() {
+		return NumericIdComparator.INSTANCE;
+	}
+
 	@Override
 	protected String getOAuthRequestTokenURL() {
 		return OAUTH_REQUEST_TOKEN;
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.providers.twitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.camel.CamelException;
+import org.apache.camel.component.social.DefaultSocialData;
+import org.apache.camel.component.social.LazySocialData;
+import org.apache.camel.component.social.SocialData;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * Token streaming decoder for Twitter search responses. Each entry of the
+ * <code>results</code> array is emitted as soon as its closing brace is read:
+ * the id comes from <code>id_str</code> and the body is the raw byte range of
+ * the object in the response, so the tree is never materialized. With lazy
+ * bodies the result is a {@link LazySocialData} referencing that range.
+ */
+public class TwitterSearchJsonDecoder {
+
+	private static final String RESULTS = "results";
+	private static final String ID_STR = "id_str";
+	private static final String ID = "id";
+	private static final String UTF_8 = "UTF-8";
+
+	// JsonFactory is thread safe once configured, share it between all paths
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	static {
+		JSON_FACTORY.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+	}
+
+	private boolean lazyBody;
+
+	public static JsonFactory getJsonFactory() {
+		return JSON_FACTORY;
+	}
+
+	public boolean isLazyBody() {
+		return lazyBody;
+	}
+
+	public void setLazyBody(boolean lazyBody) {
+		this.lazyBody = lazyBody;
+	}
+
+	public List<SocialData> decode(byte[] data, int offset, int length) throws IOException,
+			CamelException {
+		JsonParser parser = JSON_FACTORY.createJsonParser(data, offset, length);
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new CamelException("Search response is not a JSON object");
+			}
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if (RESULTS.equals(field) && value == JsonToken.START_ARRAY) {
+					return readResults(parser, data);
+				}
+				parser.skipChildren();
+			}
+		} finally {
+			parser.close();
+		}
+
+		throw new CamelException("Search response has no results");
+	}
+
+	private List<SocialData> readResults(JsonParser parser, byte[] data) throws IOException {
+		List<SocialData> socialDataList = new ArrayList<SocialData>();
+
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			// the token location may point to the separator preceding the object
+			int start = (int) parser.getTokenLocation().getCharOffset();
+			while (data[start] != '{') {
+				start++;
+			}
+
+			String id = null;
+			String numericId = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if (value == JsonToken.VALUE_STRING && ID_STR.equals(field)) {
+					id = parser.getText();
+				} else if (value == JsonToken.VALUE_NUMBER_INT && ID.equals(field)) {
+					numericId = parser.getText();
+				} else {
+					parser.skipChildren();
+				}
+			}
+
+			int end = (int) parser.getTokenLocation().getCharOffset();
+			while (data[end] != '}') {
+				end++;
+			}
+			end++;
+
+			socialDataList.add(createSocialData(id != null ? id : numericId, data, start, end - start));
+		}
+
+		return socialDataList;
+	}
+
+	protected SocialData createSocialData(String id, byte[] data, int offset, int length)
+			throws IOException {
+		if (lazyBody) {
+			return new LazySocialData(id, data, offset, length, LazySocialData.Format.JSON);
+		}
+		return new DefaultSocialData(id, new String(data, offset, length, UTF_8));
+	}
+
+}
@@ -16,32 +16,24 @@
  */
 package org.apache.camel.component.social.providers.twitter;
 
-import java.io.FileReader;
-import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-
-import org.apache.camel.CamelException;
-import org.apache.camel.component.social.DefaultSocialData;
 import org.apache.camel.component.social.SocialData;
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
+import org.apache.camel.component.social.SocialEndpoint;
+import org.apache.camel.component.social.util.ResponseBuffer;
 
 public class TwitterSearchPath extends AbstractTwitterPath {
 
+	private final TwitterSearchJsonDecoder decoder = new TwitterSearchJsonDecoder();
+
 	TwitterSearchPath(TwitterProvider twitterProvider) throws Exception {
 		super(twitterProvider, "search");
 	}
 
+	@Override
+	public void configure(SocialEndpoint endpoint) throws Exception {
+		super.configure(endpoint);
+		decoder.setLazyBody(endpoint.getConfiguration().isLazyBody());
+	}
+
 	@Override
 	protected String getStreamPath() {
 		return "search";
@@ -52,29 +44,39 @@ public class TwitterSearchPath extends AbstractTwitterPath {
 	}
 
 	@Override
-	protected String getFormat() {
-		return ".json";
+	public String getPageSizeParam() {
+		return "rpp";
+	}
+
+	@Override
+	public int getDefaultPageSize() {
+		return 15;
 	}
 
-	protected Iterable<SocialData> convertToSocialDataList(String body) throws Exception {
-		ObjectMapper mapper = new ObjectMapper();
-		JsonNode rootNode = mapper.readTree(body);
-		rootNode = rootNode.get("results");
+	@Override
+	public int getMaxPageSize() {
+		return 100;
+	}
 
-		if (rootNode == null) {
-			throw new CamelException("Nao deu pra pegar os dados JSON");
-		}
-		List<SocialData> socialDataList = new ArrayList<SocialData>(rootNode.size());
-		Iterator<JsonNode> ijn = rootNode.getElements();
-		while (ijn.hasNext()) {
-			JsonNode aNode = ijn.next();
+	@Override
+	protected boolean isPagedByNumber() {
+		return true;
+	}
 
-			String id = aNode.get("id_str").getTextValue();
-			DefaultSocialData socialData = new DefaultSocialData(id, aNode.toString());
-			socialDataList.add(socialData);
-		}
+	@Override
+	protected String getFormat() {
+		return ".json";
+	}
 
-		return socialDataList;
+	protected Iterable<SocialData> convertToSocialDataList(ResponseBuffer body) throws Exception {
+		return decoder.decode(body.getBuffer(), 0, body.size());
+	}
+
+	@Override
+	protected void warmUpParsers() throws Exception {
+		byte[] sample = "{\"results\":[{\"id_str\":\"0\",\"text\":\"warm up\"}]}"
+				.getBytes("UTF-8");
+		decoder.decode(sample, 0, sample.length);
 	}
 
 }
@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.providers.twitter;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.camel.component.social.DefaultSocialData;
+import org.apache.camel.component.social.LazySocialData;
+import org.apache.camel.component.social.SocialData;
+import org.apache.camel.component.social.util.ResponseBuffer;
+
+/**
+ * Pull parser for Twitter XML responses. Walks the response once and copies
+ * every <code>status</code> element to its own fragment, picking up the status
+ * <code>id</code> on the way, without building a DOM or running XPath.
+ * <p>
+ * With lazy bodies all fragments are written, UTF-8 encoded, to one buffer per
+ * response and each status is a {@link LazySocialData} slice of it.
+ */
+public class TwitterStatusStaxParser {
+
+	private static final String STATUS = "status";
+	private static final String ID = "id";
+	private static final String UTF_8 = "UTF-8";
+
+	private static final XMLInputFactory INPUT_FACTORY;
+	private static final XMLOutputFactory OUTPUT_FACTORY;
+
+	static {
+		INPUT_FACTORY = XMLInputFactory.newInstance();
+		INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+	}
+
+	private boolean lazyBody;
+
+	public boolean isLazyBody() {
+		return lazyBody;
+	}
+
+	public void setLazyBody(boolean lazyBody) {
+		this.lazyBody = lazyBody;
+	}
+
+	/**
+	 * Reads every top level status of a <code>statuses</code> document (or the
+	 * single status of a <code>status</code> document).
+	 */
+	public List<SocialData> parseStatuses(Reader reader) throws XMLStreamException {
+		return parseStatuses(INPUT_FACTORY.createXMLStreamReader(reader));
+	}
+
+	/**
+	 * Reads the statuses straight from the response bytes, the encoding being
+	 * taken from the XML declaration.
+	 */
+	public List<SocialData> parseStatuses(InputStream stream) throws XMLStreamException {
+		return parseStatuses(INPUT_FACTORY.createXMLStreamReader(stream));
+	}
+
+	private List<SocialData> parseStatuses(XMLStreamReader in) throws XMLStreamException {
+		try {
+			return lazyBody ? readLazyStatuses(in) : readStatuses(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private List<SocialData> readStatuses(XMLStreamReader in) throws XMLStreamException {
+		List<SocialData> socialDataList = new ArrayList<SocialData>();
+		while (in.hasNext()) {
+			if (in.next() == XMLStreamConstants.START_ELEMENT && STATUS.equals(in.getLocalName())) {
+				StringWriter buffer = new StringWriter(2048);
+				XMLStreamWriter out = OUTPUT_FACTORY.createXMLStreamWriter(buffer);
+				out.writeStartDocument(UTF_8, "1.0");
+				String id = copyStatus(in, out);
+				out.writeEndDocument();
+				out.close();
+				socialDataList.add(new DefaultSocialData(id, buffer.toString()));
+			}
+		}
+		return socialDataList;
+	}
+
+	private List<SocialData> readLazyStatuses(XMLStreamReader in) throws XMLStreamException {
+		ResponseBuffer buffer = new ResponseBuffer(8192);
+		List<String> ids = new ArrayList<String>();
+		List<Integer> bounds = new ArrayList<Integer>();
+
+		while (in.hasNext()) {
+			if (in.next() == XMLStreamConstants.START_ELEMENT && STATUS.equals(in.getLocalName())) {
+				bounds.add(buffer.size());
+				XMLStreamWriter out = OUTPUT_FACTORY.createXMLStreamWriter(buffer, UTF_8);
+				ids.add(copyStatus(in, out));
+				out.flush();
+				out.close();
+			}
+		}
+		bounds.add(buffer.size());
+
+		// the buffer may have grown while writing, slice the final array
+		byte[] data = buffer.getBuffer();
+		List<SocialData> socialDataList = new ArrayList<SocialData>(ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			int start = bounds.get(i);
+			socialDataList.add(new LazySocialData(ids.get(i), data, start, bounds.get(i + 1) - start,
+					LazySocialData.Format.XML));
+		}
+		return socialDataList;
+	}
+
+	/**
+	 * Reads the single status of an update response.
+	 */
+	public SocialData parseStatus(Reader reader) throws XMLStreamException {
+		List<SocialData> socialDataList = parseStatuses(reader);
+		return socialDataList.isEmpty() ? null : socialDataList.get(0);
+	}
+
+	public SocialData parseStatus(InputStream stream) throws XMLStreamException {
+		List<SocialData> socialDataList = parseStatuses(stream);
+		return socialDataList.isEmpty() ? null : socialDataList.get(0);
+	}
+
+	// Copies the status the reader is positioned on, leaving the reader on its
+	// end element, and returns the status id.
+	private String copyStatus(XMLStreamReader in, XMLStreamWriter out) throws XMLStreamException {
+		StringBuilder id = null;
+		boolean inId = false;
+		int depth = 0;
+
+		while (true) {
+			switch (in.getEventType()) {
+			case XMLStreamConstants.START_ELEMENT:
+				copyStartElement(in, out);
+				depth++;
+				if (depth == 2 && id == null && ID.equals(in.getLocalName())) {
+					id = new StringBuilder(20);
+					inId = true;
+				}
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				out.writeEndElement();
+				depth--;
+				inId = false;
+				if (depth == 0) {
+					return id != null ? id.toString().trim() : null;
+				}
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.SPACE:
+				out.writeCharacters(in.getTextCharacters(), in.getTextStart(), in.getTextLength());
+				if (inId) {
+					id.append(in.getTextCharacters(), in.getTextStart(), in.getTextLength());
+				}
+				break;
+			case XMLStreamConstants.CDATA:
+				out.writeCData(in.getText());
+				if (inId) {
+					id.append(in.getText());
+				}
+				break;
+			default:
+				// comments and processing instructions are not part of the status
+				break;
+			}
+			in.next();
+		}
+	}
+
+	private void copyStartElement(XMLStreamReader in, XMLStreamWriter out) throws XMLStreamException {
+		String prefix = in.getPrefix();
+		String namespace = in.getNamespaceURI();
+		if (namespace == null || namespace.length() == 0) {
+			out.writeStartElement(in.getLocalName());
+		} else {
+			out.writeStartElement(prefix == null ? "" : prefix, in.getLocalName(), namespace);
+		}
+
+		for (int i = 0; i < in.getNamespaceCount(); i++) {
+			String nsPrefix = in.getNamespacePrefix(i);
+			if (nsPrefix == null || nsPrefix.length() == 0) {
+				out.writeDefaultNamespace(in.getNamespaceURI(i));
+			} else {
+				out.writeNamespace(nsPrefix, in.getNamespaceURI(i));
+			}
+		}
+
+		for (int i = 0; i < in.getAttributeCount(); i++) {
+			String attrNamespace = in.getAttributeNamespace(i);
+			if (attrNamespace == null || attrNamespace.length() == 0) {
+				out.writeAttribute(in.getAttributeLocalName(i), in.getAttributeValue(i));
+			} else {
+				String attrPrefix = in.getAttributePrefix(i);
+				out.writeAttribute(attrPrefix == null ? "" : attrPrefix, attrNamespace,
+						in.getAttributeLocalName(i), in.getAttributeValue(i));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.providers.twitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.camel.component.social.DefaultSocialData;
+import org.apache.camel.component.social.LazySocialData;
+import org.apache.camel.component.social.SocialData;
+import org.apache.camel.component.social.path.SocialDataCallback;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * Incremental decoder of the Twitter streaming API: one JSON object per line,
+ * read as the chunks arrive. Each complete line is scanned for its top level
+ * <code>id_str</code> (or <code>id</code>) and handed over as soon as its
+ * newline is read; blank keep-alive lines and messages without an id, like
+ * deletion or limit notices, are skipped. So are malformed lines, the
+ * connection stays up.
+ */
+public class TwitterStreamDecoder {
+
+	private static final transient Log LOG = LogFactory.getLog(TwitterStreamDecoder.class);
+
+	private static final String ID_STR = "id_str";
+	private static final String ID = "id";
+	private static final String UTF_8 = "UTF-8";
+
+	private boolean lazyBody;
+
+	private int maxLineSize = -1;
+
+	public boolean isLazyBody() {
+		return lazyBody;
+	}
+
+	public void setLazyBody(boolean lazyBody) {
+		this.lazyBody = lazyBody;
+	}
+
+	public int getMaxLineSize() {
+		return maxLineSize;
+	}
+
+	/**
+	 * Longest message accepted, in bytes, a negative value disables the
+	 * check.
+	 */
+	public void setMaxLineSize(int maxLineSize) {
+		this.maxLineSize = maxLineSize;
+	}
+
+	/**
+	 * Reads the stream until it ends, handing each status to the callback.
+	 */
+	public void decode(InputStream in, SocialDataCallback<SocialData> callback)
+			throws IOException {
+		byte[] buffer = new byte[8192];
+		int length = 0;
+		int scanned = 0;
+
+		while (true) {
+			if (length == buffer.length) {
+				if (maxLineSize >= 0 && length > maxLineSize) {
+					throw new IOException("Stream message larger than " + maxLineSize + " bytes");
+				}
+				byte[] grown = new byte[buffer.length * 2];
+				System.arraycopy(buffer, 0, grown, 0, length);
+				buffer = grown;
+			}
+
+			int read = in.read(buffer, length, buffer.length - length);
+			if (read == -1) {
+				return;
+			}
+			length += read;
+
+			// hand over every complete line, keep the partial one
+			int start = 0;
+			for (int i = scanned; i < length; i++) {
+				if (buffer[i] == '\n') {
+					decodeLine(buffer, start, i - start, callback);
+					start = i + 1;
+				}
+			}
+			if (start > 0) {
+				System.arraycopy(buffer, start, buffer, 0, length - start);
+				length -= start;
+			}
+			scanned = length;
+		}
+	}
+
+	private void decodeLine(byte[] data, int offset, int length,
+			SocialDataCallback<SocialData> callback) throws IOException {
+		while (length > 0 && isWhitespace(data[offset + length - 1])) {
+			length--;
+		}
+		while (length > 0 && isWhitespace(data[offset])) {
+			offset++;
+			length--;
+		}
+		if (length == 0 || data[offset] != '{') {
+			return;
+		}
+
+		String id;
+		try {
+			id = readId(data, offset, length);
+		} catch (IOException e) {
+			LOG.warn("Skipping malformed stream message: " + e.getMessage());
+			return;
+		}
+		if (id == null) {
+			return;
+		}
+		callback.onData(createSocialData(id, data, offset, length));
+	}
+
+	private String readId(byte[] data, int offset, int length) throws IOException {
+		JsonParser parser = TwitterSearchJsonDecoder.getJsonFactory().createJsonParser(data,
+				offset, length);
+		try {
+			parser.nextToken();
+			String numericId = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if (value == JsonToken.VALUE_STRING && ID_STR.equals(field)) {
+					return parser.getText();
+				} else if (value == JsonToken.VALUE_NUMBER_INT && ID.equals(field)) {
+					numericId = parser.getText();
+				} else {
+					parser.skipChildren();
+				}
+			}
+			return numericId;
+		} finally {
+			parser.close();
+		}
+	}
+
+	protected SocialData createSocialData(String id, byte[] data, int offset, int length)
+			throws IOException {
+		if (lazyBody) {
+			// the read buffer is reused, the message needs its own bytes
+			byte[] copy = new byte[length];
+			System.arraycopy(data, offset, copy, 0, length);
+			return new LazySocialData(id, copy, 0, length, LazySocialData.Format.JSON);
+		}
+		return new DefaultSocialData(id, new String(data, offset, length, UTF_8));
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\r' || b == '\n' || b == '\t';
+	}
+
+}
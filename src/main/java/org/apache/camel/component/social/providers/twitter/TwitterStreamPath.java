@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.providers.twitter;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.apache.camel.component.social.SocialConfiguration;
+import org.apache.camel.component.social.SocialData;
+import org.apache.camel.component.social.SocialEndpoint;
+import org.apache.camel.component.social.path.SocialDataCallback;
+import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.component.social.path.SocialDataFuture;
+import org.apache.camel.component.social.path.SocialPathStreaming;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.params.HttpConnectionParams;
+
+/**
+ * Twitter streaming API: a single chunked response stays open and delivers
+ * statuses as newline delimited JSON. Without filter parameters the path
+ * reads the sample stream; <code>track</code> (or the endpoint query),
+ * <code>follow</code> or <code>locations</code> select the filter stream.
+ * <p>
+ * A dropped or refused connection is opened again after a delay doubling
+ * from <code>streamReconnectDelay</code> up to
+ * <code>streamMaxReconnectDelay</code>, back to the initial delay once a
+ * connection was accepted. A connection silent for
+ * <code>streamStallTimeout</code> ms counts as dropped.
+ */
+public class TwitterStreamPath extends AbstractTwitterPath implements SocialPathStreaming {
+
+	private static final Log LOG = LogFactory.getLog(TwitterStreamPath.class);
+
+	private static final String STREAM_API_URL = "http://stream.twitter.com/1/";
+
+	private static final String SAMPLE = "statuses/sample";
+
+	private static final String FILTER = "statuses/filter";
+
+	private static final String[] FILTER_PARAMS = { "track", "follow", "locations" };
+
+	private final TwitterStreamDecoder decoder = new TwitterStreamDecoder();
+
+	private long reconnectDelay = 1000;
+	private long maxReconnectDelay = 240000;
+	private int stallTimeout = 90000;
+
+	private final Object lock = new Object();
+	private volatile boolean closed;
+	private volatile boolean connected;
+	private volatile HttpRequestBase request;
+
+	TwitterStreamPath(TwitterProvider twitterProvider) throws Exception {
+		super(twitterProvider, "stream");
+	}
+
+	@Override
+	public void configure(SocialEndpoint endpoint) throws Exception {
+		super.configure(endpoint);
+		SocialConfiguration config = endpoint.getConfiguration();
+		decoder.setLazyBody(config.isLazyBody());
+		decoder.setMaxLineSize(config.getMaxResponseSize());
+		setReconnectDelay(config.getStreamReconnectDelay());
+		setMaxReconnectDelay(config.getStreamMaxReconnectDelay());
+		setStallTimeout(config.getStreamStallTimeout());
+	}
+
+	@Override
+	protected String getStreamPath() {
+		return SAMPLE;
+	}
+
+	@Override
+	protected String getTwitterApiUrl() {
+		return STREAM_API_URL;
+	}
+
+	@Override
+	protected String getFormat() {
+		return ".json";
+	}
+
+	@Override
+	public boolean isAuthRequired() {
+		return true;
+	}
+
+	@Override
+	protected void warmUpParsers() throws Exception {
+		decoder.decode(new ByteArrayInputStream("{\"id_str\":\"0\",\"text\":\"warm up\"}\n"
+				.getBytes("UTF-8")), new SocialDataCallback<SocialData>() {
+			public void onData(SocialData data) {
+			}
+
+			public void onError(Exception cause) {
+			}
+		});
+	}
+
+	public long getReconnectDelay() {
+		return reconnectDelay;
+	}
+
+	public void setReconnectDelay(long reconnectDelay) {
+		this.reconnectDelay = reconnectDelay;
+	}
+
+	public long getMaxReconnectDelay() {
+		return maxReconnectDelay;
+	}
+
+	public void setMaxReconnectDelay(long maxReconnectDelay) {
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+
+	public int getStallTimeout() {
+		return stallTimeout;
+	}
+
+	public void setStallTimeout(int stallTimeout) {
+		this.stallTimeout = stallTimeout;
+	}
+
+	public void stream(Map<String, Object> params, SocialDataCallback<SocialData> callback) {
+		long delay = reconnectDelay;
+		while (!closed) {
+			connected = false;
+			try {
+				readStream(params, callback);
+			} catch (Exception e) {
+				if (closed) {
+					break;
+				}
+				callback.onError(e);
+			}
+			if (connected) {
+				delay = reconnectDelay;
+			}
+
+			synchronized (lock) {
+				if (closed) {
+					break;
+				}
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Reconnecting to " + getStreamUrl(params) + " in " + delay + " ms");
+				}
+				try {
+					lock.wait(delay);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			delay = Math.min(maxReconnectDelay, delay * 2);
+		}
+	}
+
+	private void readStream(Map<String, Object> params, SocialDataCallback<SocialData> callback)
+			throws Exception {
+		Map<String, Object> streamParams = getStreamParams(params);
+		HttpRequestBase method = isFiltered(streamParams) ? new HttpPost(getStreamUrl(params))
+				: new HttpGet(getStreamUrl(params));
+		prepareHttpMethod(streamParams, method);
+		HttpConnectionParams.setSoTimeout(method.getParams(), stallTimeout);
+
+		request = method;
+		if (closed) {
+			return;
+		}
+		try {
+			HttpResponse response = getHttpClient().execute(method);
+			HttpEntity entity = response.getEntity();
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				method.abort();
+				throw new SocialDataFetchError("Twitter stream connection refused: "
+						+ response.getStatusLine());
+			}
+			connected = true;
+			if (entity != null) {
+				decoder.decode(entity.getContent(), callback);
+			}
+		} finally {
+			request = null;
+			method.abort();
+		}
+	}
+
+	/**
+	 * The endpoint query becomes the <code>track</code> filter.
+	 */
+	private Map<String, Object> getStreamParams(Map<String, Object> params) {
+		Map<String, Object> streamParams = new HashMap<String, Object>();
+		if (params != null) {
+			streamParams.putAll(params);
+		}
+		Object query = streamParams.remove("q");
+		if (query != null && !streamParams.containsKey("track")) {
+			streamParams.put("track", query);
+		}
+		return streamParams;
+	}
+
+	private boolean isFiltered(Map<String, Object> streamParams) {
+		for (String param : FILTER_PARAMS) {
+			if (streamParams.get(param) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String getStreamUrl(Map<String, Object> params) {
+		return normalizeURL(isFiltered(getStreamParams(params)) ? FILTER : SAMPLE);
+	}
+
+	public void open() {
+		closed = false;
+	}
+
+	public void close() {
+		closed = true;
+		HttpRequestBase method = request;
+		if (method != null) {
+			method.abort();
+		}
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * A stream is not polled, see {@link #stream(Map, SocialDataCallback)}.
+	 */
+	@Override
+	public Iterable<SocialData> readData(String lastId, Map<String, Object> providerParams)
+			throws SocialDataFetchError {
+		throw new SocialDataFetchError("Path " + getPath() + " is a stream and cannot be polled");
+	}
+
+	@Override
+	public Future<Iterable<SocialData>> readDataAsync(String lastId,
+			Map<String, Object> providerParams, SocialDataCallback<Iterable<SocialData>> callback) {
+		SocialDataFuture<Iterable<SocialData>> future = new SocialDataFuture<Iterable<SocialData>>(
+				callback);
+		future.fail(new SocialDataFetchError("Path " + getPath()
+				+ " is a stream and cannot be polled"));
+		return future;
+	}
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Remembers, per request URL, the validators and a checksum of the last
+ * response so an unchanged resource is neither downloaded again nor parsed.
+ * Requests carry <code>If-None-Match</code> and
+ * <code>If-Modified-Since</code> when the server sent an <code>ETag</code> or
+ * a <code>Last-Modified</code>; for servers without validators a CRC32 of the
+ * body tells whether it changed. Only the most recently used URLs are kept.
+ */
+public class ConditionalGetCache {
+
+	private static final int DEFAULT_MAX_ENTRIES = 16;
+
+	private final Map<String, Validators> entries;
+
+	public ConditionalGetCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public ConditionalGetCache(final int maxEntries) {
+		entries = new LinkedHashMap<String, Validators>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Validators> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Adds the validators of the last response of the URL to the request.
+	 */
+	public synchronized void prepare(HttpUriRequest request) {
+		Validators entry = entries.get(request.getURI().toString());
+		if (entry == null) {
+			return;
+		}
+		if (entry.etag != null) {
+			request.setHeader("If-None-Match", entry.etag);
+		}
+		if (entry.lastModified != null) {
+			request.setHeader("If-Modified-Since", entry.lastModified);
+		}
+	}
+
+	/**
+	 * Whether the response says or shows the resource did not change since
+	 * the last response of the URL: a <code>304 Not Modified</code>, or a
+	 * body with the same length and checksum. Successful responses are
+	 * remembered for the next request.
+	 */
+	public synchronized boolean isUnchanged(HttpUriRequest request, HttpResponse response,
+			ResponseBuffer body) {
+		int status = response.getStatusLine().getStatusCode();
+		if (status == HttpStatus.SC_NOT_MODIFIED) {
+			return true;
+		}
+		if (status != HttpStatus.SC_OK) {
+			return false;
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(body.getBuffer(), 0, body.size());
+
+		Validators entry = new Validators();
+		entry.etag = getHeader(response, "ETag");
+		entry.lastModified = getHeader(response, "Last-Modified");
+		entry.length = body.size();
+		entry.checksum = crc.getValue();
+
+		Validators previous = entries.put(request.getURI().toString(), entry);
+		return previous != null && previous.length == entry.length
+				&& previous.checksum == entry.checksum;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	private static String getHeader(HttpResponse response, String name) {
+		Header header = response.getFirstHeader(name);
+		return header != null ? header.getValue() : null;
+	}
+
+	private static final class Validators {
+		String etag;
+		String lastModified;
+		int length;
+		long checksum;
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.util;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Orders decimal ids by their numeric value, whatever their length, without
+ * parsing them. Ids which are not plain decimal numbers sort after the
+ * numeric ones, in string order.
+ */
+public final class NumericIdComparator implements Comparator<String>, Serializable {
+
+	public static final NumericIdComparator INSTANCE = new NumericIdComparator();
+
+	private static final long serialVersionUID = -4019245461312741082L;
+
+	private NumericIdComparator() {
+	}
+
+	public int compare(String a, String b) {
+		boolean numericA = isNumeric(a);
+		boolean numericB = isNumeric(b);
+		if (numericA && numericB) {
+			if (a.length() != b.length()) {
+				return a.length() < b.length() ? -1 : 1;
+			}
+			return a.compareTo(b);
+		}
+		if (numericA != numericB) {
+			return numericA ? -1 : 1;
+		}
+		return a.compareTo(b);
+	}
+
+	static boolean isNumeric(String id) {
+		int length = id.length();
+		if (length == 0 || (length > 1 && id.charAt(0) == '0')) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Object readResolve() {
+		return INSTANCE;
+	}
+
+}
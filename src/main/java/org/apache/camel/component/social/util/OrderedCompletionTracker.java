@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tracks items dispatched in order and completed in any order. An item is
+ * committed once it and every item dispatched before it have completed, so
+ * committed ids always form a prefix of the dispatch order.
+ * <p>
+ * Completions are kept in a bit set indexed by sequence number relative to
+ * the start of the tracked window, which drops its committed prefix as it
+ * grows.
+ */
+public class OrderedCompletionTracker {
+
+	private static final int COMPACT_THRESHOLD = 1024;
+
+	private final List<String> ids = new ArrayList<String>();
+	private final Set<String> pendingIds = new HashSet<String>();
+	private BitSet completed = new BitSet();
+
+	// sequence number of ids.get(0)
+	private long base;
+	private int head;
+
+	/**
+	 * Registers the next item.
+	 * 
+	 * @return its sequence number, to complete it with
+	 */
+	public synchronized long dispatch(String id) {
+		ids.add(id);
+		pendingIds.add(id);
+		return base + ids.size() - 1;
+	}
+
+	/**
+	 * Marks an item as completed.
+	 * 
+	 * @return the ids committed by this completion, oldest first
+	 */
+	public synchronized List<String> complete(long sequence) {
+		int index = (int) (sequence - base);
+		if (index < head || index >= ids.size()) {
+			return Collections.emptyList();
+		}
+		completed.set(index);
+
+		List<String> committed = Collections.emptyList();
+		while (head < ids.size() && completed.get(head)) {
+			if (committed.isEmpty()) {
+				committed = new ArrayList<String>();
+			}
+			String id = ids.get(head);
+			ids.set(head, null);
+			pendingIds.remove(id);
+			committed.add(id);
+			head++;
+		}
+
+		if (head == ids.size()) {
+			// nothing in flight, start over
+			base += head;
+			ids.clear();
+			completed.clear();
+			head = 0;
+		} else if (head >= COMPACT_THRESHOLD && head * 2 >= ids.size()) {
+			// never drained under steady load, drop the committed prefix
+			completed = completed.get(head, ids.size());
+			ids.subList(0, head).clear();
+			base += head;
+			head = 0;
+		}
+		return committed;
+	}
+
+	/**
+	 * Whether the id was dispatched and is not committed yet.
+	 */
+	public synchronized boolean isPending(String id) {
+		return pendingIds.contains(id);
+	}
+
+	/**
+	 * Items dispatched and not committed yet.
+	 */
+	public synchronized int getPendingCount() {
+		return ids.size() - head;
+	}
+
+}
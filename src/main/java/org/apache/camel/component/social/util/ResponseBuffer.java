@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Byte array output stream which exposes its backing array, so decoded social
+ * data can reference slices of a response without copying it.
+ */
+public class ResponseBuffer extends ByteArrayOutputStream {
+
+	public ResponseBuffer() {
+		super();
+	}
+
+	public ResponseBuffer(int size) {
+		super(size);
+	}
+
+	/**
+	 * The backing array, valid from 0 to {@link #size()}. Writing to the buffer
+	 * may replace the array, so take it once writing is over.
+	 */
+	public byte[] getBuffer() {
+		return buf;
+	}
+
+	/**
+	 * Reads the whole stream straight into the backing array.
+	 * 
+	 * @param maxSize
+	 *            upper bound of the buffered content, a negative value means
+	 *            no limit
+	 * @return the number of bytes read
+	 * @throws ResponseTooLargeException
+	 *             as soon as more than <code>maxSize</code> bytes were read
+	 */
+	public int readFrom(InputStream in, int maxSize) throws IOException {
+		int start = count;
+		while (true) {
+			if (count == buf.length) {
+				// a buffer sized from Content-Length is usually exactly full,
+				// probe for the end of stream before growing it
+				int next = in.read();
+				if (next == -1) {
+					return count - start;
+				}
+				if (maxSize >= 0 && count - start + 1 > maxSize) {
+					throw new ResponseTooLargeException(maxSize);
+				}
+
+				int newSize = buf.length == 0 ? 4096 : buf.length << 1;
+				if (maxSize >= 0) {
+					// one byte past the limit is enough to detect an oversized response
+					newSize = Math.max(Math.min(newSize, start + maxSize + 1), count + 1);
+				}
+				byte[] newBuf = new byte[newSize];
+				System.arraycopy(buf, 0, newBuf, 0, count);
+				buf = newBuf;
+				buf[count++] = (byte) next;
+			}
+
+			int read = in.read(buf, count, buf.length - count);
+			if (read == -1) {
+				return count - start;
+			}
+
+			count += read;
+			if (maxSize >= 0 && count - start > maxSize) {
+				throw new ResponseTooLargeException(maxSize);
+			}
+		}
+	}
+
+	public InputStream toInputStream() {
+		return new ByteArrayInputStream(buf, 0, count);
+	}
+
+	/**
+	 * Signals a response bigger than the configured maximum size.
+	 */
+	public static class ResponseTooLargeException extends IOException {
+
+		private static final long serialVersionUID = -2516498211720836011L;
+
+		public ResponseTooLargeException(int maxSize) {
+			super("Response exceeds the maximum size of " + maxSize + " bytes");
+		}
+
+	}
+
+}
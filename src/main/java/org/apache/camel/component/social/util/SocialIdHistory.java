@@ -0,0 +1,312 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Bounded history of the social data ids seen by a consumer, evicting the
+ * oldest id once it holds <code>capacity</code> of them.
+ * <p>
+ * Numeric ids, like the Twitter ones, are kept as primitive longs in a ring
+ * buffer indexed by an open addressing hash table, so adding, looking up and
+ * evicting an id are constant time and allocate nothing. The first id which
+ * is not a plain decimal number switches the history to a linked set of
+ * strings. Both structures grow with the history up to the capacity.
+ * <p>
+ * Given an id comparator, the history also tracks the highest id it was ever
+ * given, which eviction never lowers.
+ */
+public class SocialIdHistory {
+
+	private static final int INITIAL_SIZE = 16;
+
+	private final int capacity;
+	private final Comparator<String> comparator;
+	private String highest;
+
+	// numeric mode: ids in insertion order, the oldest at head
+	private long[] ring;
+	private int head;
+	private int size;
+
+	// open addressing index over ring positions, stored plus one so 0 is free
+	private int[] slots;
+
+	// string mode, once an id is not numeric
+	private LinkedHashSet<String> strings;
+	private String last;
+
+	public SocialIdHistory(int capacity) {
+		this(capacity, null);
+	}
+
+	public SocialIdHistory(int capacity, Comparator<String> comparator) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		this.comparator = comparator;
+		int initial = Math.min(capacity, INITIAL_SIZE);
+		ring = new long[initial];
+		slots = new int[tableSize(initial)];
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized int size() {
+		return strings != null ? strings.size() : size;
+	}
+
+	public synchronized boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public synchronized boolean isNumeric() {
+		return strings == null;
+	}
+
+	/**
+	 * Adds the id as the newest one, evicting the oldest if full. Items
+	 * without an id cannot be told apart, a <code>null</code> id is not
+	 * recorded.
+	 * 
+	 * @return <code>false</code> if the id was already in the history or is
+	 *         <code>null</code>
+	 */
+	public synchronized boolean add(String id) {
+		if (id == null) {
+			return false;
+		}
+		if (comparator != null && (highest == null || comparator.compare(id, highest) > 0)) {
+			highest = id;
+		}
+
+		if (strings == null) {
+			long value = parse(id);
+			if (value >= 0) {
+				return add(value);
+			}
+			switchToStrings();
+		}
+
+		if (!strings.add(id)) {
+			return false;
+		}
+		if (strings.size() > capacity) {
+			Iterator<String> oldest = strings.iterator();
+			oldest.next();
+			oldest.remove();
+		}
+		last = id;
+		return true;
+	}
+
+	public synchronized boolean contains(String id) {
+		if (id == null) {
+			return false;
+		}
+		if (strings != null) {
+			return strings.contains(id);
+		}
+		long value = parse(id);
+		return value >= 0 && find(value) >= 0;
+	}
+
+	/**
+	 * The newest id, or <code>null</code> when empty.
+	 */
+	public synchronized String getLast() {
+		return strings != null ? last : getLastNumeric();
+	}
+
+	/**
+	 * The highest id added according to the comparator, or <code>null</code>
+	 * without a comparator.
+	 */
+	public synchronized String getHighest() {
+		return highest;
+	}
+
+	public Comparator<String> getComparator() {
+		return comparator;
+	}
+
+	public synchronized void clear() {
+		highest = null;
+		strings = null;
+		last = null;
+		head = 0;
+		size = 0;
+		int initial = Math.min(capacity, INITIAL_SIZE);
+		ring = new long[initial];
+		slots = new int[tableSize(initial)];
+	}
+
+	private boolean add(long value) {
+		if (find(value) >= 0) {
+			return false;
+		}
+
+		if (size == ring.length) {
+			if (size < capacity) {
+				grow();
+			} else {
+				delete(ring[head]);
+				head = (head + 1) % ring.length;
+				size--;
+			}
+		}
+
+		int position = (head + size) % ring.length;
+		ring[position] = value;
+		size++;
+
+		int mask = slots.length - 1;
+		int slot = hash(value) & mask;
+		while (slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = position + 1;
+		return true;
+	}
+
+	/**
+	 * Slot of the value in the index, or -1.
+	 */
+	private int find(long value) {
+		int mask = slots.length - 1;
+		int slot = hash(value) & mask;
+		int entry;
+		while ((entry = slots[slot]) != 0) {
+			if (ring[entry - 1] == value) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Removes the value from the index, shifting back the entries of its
+	 * probe sequence so lookups never need tombstones.
+	 */
+	private void delete(long value) {
+		int mask = slots.length - 1;
+		int hole = find(value);
+		if (hole < 0) {
+			return;
+		}
+
+		int slot = hole;
+		while (true) {
+			slot = (slot + 1) & mask;
+			int entry = slots[slot];
+			if (entry == 0) {
+				break;
+			}
+			int home = hash(ring[entry - 1]) & mask;
+			// move the entry unless its home lies cyclically in (hole, slot]
+			if (hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot)) {
+				slots[hole] = entry;
+				hole = slot;
+			}
+		}
+		slots[hole] = 0;
+	}
+
+	/**
+	 * Only called before the first eviction, the ring still starts at 0.
+	 */
+	private void grow() {
+		int newLength = (int) Math.min((long) ring.length << 1, capacity);
+		long[] newRing = new long[newLength];
+		System.arraycopy(ring, 0, newRing, 0, size);
+		ring = newRing;
+
+		slots = new int[tableSize(newLength)];
+		int mask = slots.length - 1;
+		for (int position = 0; position < size; position++) {
+			int slot = hash(ring[position]) & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = position + 1;
+		}
+	}
+
+	private void switchToStrings() {
+		strings = new LinkedHashSet<String>();
+		for (int i = 0; i < size; i++) {
+			strings.add(Long.toString(ring[(head + i) % ring.length]));
+		}
+		last = getLastNumeric();
+		ring = null;
+		slots = null;
+		size = 0;
+		head = 0;
+	}
+
+	private String getLastNumeric() {
+		return size == 0 ? null : Long.toString(ring[(head + size - 1) % ring.length]);
+	}
+
+	/**
+	 * Table of at least twice the ring length, keeping the load factor at or
+	 * below one half.
+	 */
+	private static int tableSize(int ringLength) {
+		int size = Integer.highestOneBit(Math.max(ringLength, 2) - 1) << 2;
+		return size < 0 ? 1 << 30 : size;
+	}
+
+	private static int hash(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		return (int) value;
+	}
+
+	/**
+	 * The value of a canonical decimal id, or -1 if the id has another form
+	 * and must be kept as a string.
+	 */
+	static long parse(String id) {
+		int length = id.length();
+		if (length == 0 || length > 19 || (id.charAt(0) == '0' && length > 1)) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = 0; i < length; i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			int digit = c - '0';
+			if (value > (Long.MAX_VALUE - digit) / 10) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+}
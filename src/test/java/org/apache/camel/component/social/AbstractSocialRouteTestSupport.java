@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.test.junit4.CamelTestSupport;
+
+/**
+ * Route tests against a local {@link SocialApiServer}, started before the
+ * routes are created so they can point their apiUrl at it. Subclasses answer
+ * the requests in {@link #handle(String, HttpServletRequest, HttpServletResponse)}.
+ */
+public abstract class AbstractSocialRouteTestSupport extends CamelTestSupport {
+
+	protected SocialApiServer server;
+	protected String apiUrl;
+
+	@Override
+	public void setUp() throws Exception {
+		server = new SocialApiServer(new SocialApiServer.RequestHandler() {
+			public void handle(String target, HttpServletRequest request, HttpServletResponse response)
+					throws IOException, ServletException {
+				AbstractSocialRouteTestSupport.this.handle(target, request, response);
+			}
+		});
+		server.start();
+		apiUrl = server.getApiUrl();
+		super.setUp();
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		super.tearDown();
+		server.stop();
+	}
+
+	/**
+	 * Answers a request sent to the api url, the request is already marked
+	 * as handled.
+	 */
+	protected abstract void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException;
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+/**
+ * Local Jetty server standing in for the provider api, on a free port.
+ * Shared by {@link AbstractSocialServerTestSupport} and
+ * {@link AbstractSocialRouteTestSupport}, tests of their own can also start
+ * one.
+ */
+public class SocialApiServer {
+
+	/**
+	 * Answers the requests sent to the api url, they are already marked as
+	 * handled.
+	 */
+	public interface RequestHandler {
+		void handle(String target, HttpServletRequest request, HttpServletResponse response)
+				throws IOException, ServletException;
+	}
+
+	private final Server server = new Server(0);
+
+	public SocialApiServer(final RequestHandler handler) {
+		server.setHandler(new AbstractHandler() {
+			public void handle(String target, Request baseRequest, HttpServletRequest request,
+					HttpServletResponse response) throws IOException, ServletException {
+				baseRequest.setHandled(true);
+				handler.handle(target, request, response);
+			}
+		});
+	}
+
+	public void start() throws Exception {
+		server.start();
+	}
+
+	public void stop() throws Exception {
+		server.stop();
+	}
+
+	public int getPort() {
+		return server.getConnectors()[0].getLocalPort();
+	}
+
+	/**
+	 * The url to set as apiUrl of the endpoints, once started.
+	 */
+	public String getApiUrl() {
+		return "http://localhost:" + getPort();
+	}
+
+	/**
+	 * Writes a Twitter status list with the ids from the newest down to the
+	 * oldest, the order Twitter lists them in.
+	 */
+	public static void writeStatuses(HttpServletResponse response, long newest, long oldest)
+			throws IOException {
+		StringBuilder body = new StringBuilder("<statuses type=\"array\">");
+		for (long id = newest; id >= oldest; id--) {
+			body.append("<status><id>").append(id).append("</id></status>");
+		}
+		response.setContentType("application/xml");
+		response.getWriter().write(body.append("</statuses>").toString());
+	}
+
+}
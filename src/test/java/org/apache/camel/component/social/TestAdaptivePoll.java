@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.social.path.RateLimitStatus;
+import org.junit.Test;
+
+public class TestAdaptivePoll extends AbstractSocialRouteTestSupport {
+
+	private static final int FULL_PAGES = 4;
+
+	private final List<Integer> counts = new CopyOnWriteArrayList<Integer>();
+	private final List<Long> times = new CopyOnWriteArrayList<Long>();
+	private volatile int nextId = 1;
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		int count = Integer.parseInt(request.getParameter("count"));
+		counts.add(count);
+		times.add(System.currentTimeMillis());
+
+		// a burst of full pages, then a quiet stream
+		StringBuilder body = new StringBuilder("<statuses type=\"array\">");
+		if (counts.size() <= FULL_PAGES) {
+			for (int i = 0; i < count; i++) {
+				body.append("<status><id>").append(nextId++).append("</id></status>");
+			}
+		}
+		response.setHeader("X-RateLimit-Limit", "10000");
+		response.setHeader("X-RateLimit-Remaining", "10000");
+		response.setHeader("X-RateLimit-Reset", "60");
+		response.setContentType("application/xml");
+		response.getWriter().write(body.append("</statuses>").toString());
+	}
+
+	@Override
+	protected RouteBuilder createRouteBuilder() throws Exception {
+		return new RouteBuilder() {
+			@Override
+			public void configure() throws Exception {
+				from("social://twitter/public?poll=true&adaptivePoll=true&minPollDelay=50"
+						+ "&maxPollDelay=400&pollTick=10&rateLimit=-1&initialDelay=0&apiUrl="
+						+ apiUrl).to("mock:result");
+			}
+		};
+	}
+
+	@Test
+	public void testIntervalAndPageSizeFollowTraffic() throws Exception {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (counts.size() < FULL_PAGES + 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertTrue("Polls: " + counts, counts.size() >= FULL_PAGES + 3);
+
+		// full pages double the page size up to the path maximum, empty
+		// ones halve it again
+		assertEquals(Integer.valueOf(20), counts.get(0));
+		assertEquals(Integer.valueOf(40), counts.get(1));
+		assertEquals(Integer.valueOf(80), counts.get(2));
+		assertEquals(Integer.valueOf(160), counts.get(3));
+		assertEquals(Integer.valueOf(200), counts.get(4));
+		assertEquals(Integer.valueOf(100), counts.get(5));
+
+		// intervals shrink while hot and grow while quiet
+		long hot = times.get(4) - times.get(3);
+		long quiet = times.get(6) - times.get(5);
+		assertTrue("Hot " + hot + " ms, quiet " + quiet + " ms", hot < quiet);
+		assertTrue("Hot interval " + hot + " ms", hot < 200);
+	}
+
+	@Test
+	public void testBudgetSpreadUntilReset() throws Exception {
+		AdaptivePollSchedule schedule = new AdaptivePollSchedule(1000, 100, 60000, 20, 200);
+		long now = 1000000;
+
+		// full page would halve the delay, but 10 calls left for 20 s
+		schedule.update(20, new RateLimitStatus(150, 10, now + 20000, now), now);
+		assertEquals(500, schedule.getDelay());
+		assertEquals(now + 2000, schedule.getNextPollTime());
+		assertFalse(schedule.isDue(now + 1999));
+		assertTrue(schedule.isDue(now + 2000));
+
+		// plenty left, the adapted delay wins
+		schedule.update(40, new RateLimitStatus(150, 1000, now + 20000, now), now);
+		assertEquals(now + 250, schedule.getNextPollTime());
+
+		// nothing left, wait for the reset
+		schedule.update(0, new RateLimitStatus(150, 0, now + 20000, now), now);
+		assertEquals(now + 20000, schedule.getNextPollTime());
+	}
+
+	@Test
+	public void testRateLimitHeadersParsed() throws Exception {
+		long before = System.currentTimeMillis();
+		RateLimitStatus delta = RateLimitStatus.parse("150", "42", "60");
+		assertEquals(150, delta.getLimit());
+		assertEquals(42, delta.getRemaining());
+		assertTrue(delta.getResetTime() >= before + 60000);
+
+		RateLimitStatus epoch = RateLimitStatus.parse(null, "7", "1287400000");
+		assertEquals(-1, epoch.getLimit());
+		assertEquals(1287400000000L, epoch.getResetTime());
+
+		assertNull(RateLimitStatus.parse("150", null, "60"));
+		assertNull(RateLimitStatus.parse("150", "many", "60"));
+	}
+
+}
@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.component.social.path.RateLimitExceededException;
+import org.apache.camel.component.social.path.SocialDataCallback;
+import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.apache.camel.component.social.path.SocialPathSessionAware;
+import org.apache.camel.component.social.util.ResponseBuffer;
+import org.apache.camel.util.IOHelper;
+import org.junit.Test;
+
+public class TestAsyncSocialPath extends AbstractSocialServerTestSupport {
+
+	private static final int LARGE_CHUNKS = 1000;
+
+	private volatile String authorization;
+
+	@Override
+	protected void configureComponent(SocialComponent component) {
+		component.setAsyncIoThreads(4);
+	}
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		if (target.equals("/statuses/public_timeline.xml")) {
+			response.setContentType("application/xml");
+			InputStream in = getClass().getResourceAsStream("/statuses.xml");
+			IOHelper.copyAndCloseInput(in, response.getOutputStream());
+		} else if (target.equals("/limited/statuses/public_timeline.xml")) {
+			response.setStatus(400);
+			response.setHeader("X-RateLimit-Remaining", "0");
+			response.setHeader("X-RateLimit-Reset", "1200");
+		} else if (target.equals("/large/statuses/public_timeline.xml")) {
+			response.setContentType("application/xml");
+			response.setContentLength(LARGE_CHUNKS * 4096);
+			writeSlowly(response);
+		} else if (target.equals("/chunked/statuses/public_timeline.xml")) {
+			// no content length, the size is only known while reading
+			response.setContentType("application/xml");
+			writeSlowly(response);
+		} else if (target.equals("/statuses/update.xml") && "POST".equals(request.getMethod())) {
+			authorization = request.getHeader("Authorization");
+			response.setContentType("application/xml");
+			response.getWriter().write("<status><id>42</id><text>" + request.getParameter("status")
+					+ "</text></status>");
+		} else {
+			response.setStatus(404);
+		}
+	}
+
+	/**
+	 * Streams a body taking far longer than the tests wait for it, unless
+	 * the client drops the connection.
+	 */
+	private void writeSlowly(HttpServletResponse response) throws IOException {
+		byte[] chunk = new byte[4096];
+		for (int i = 0; i < LARGE_CHUNKS; i++) {
+			response.getOutputStream().write(chunk);
+			response.flushBuffer();
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	@Test
+	public void testReadDataAsync() throws Exception {
+		SocialPathConsumer path = createPath("public", "");
+
+		final List<String> callbackThreads = new ArrayList<String>();
+		final CountDownLatch called = new CountDownLatch(1);
+		Future<Iterable<SocialData>> future = path.readDataAsync(null, null,
+				new SocialDataCallback<Iterable<SocialData>>() {
+					public void onData(Iterable<SocialData> data) {
+						callbackThreads.add(Thread.currentThread().getName());
+						called.countDown();
+					}
+
+					public void onError(Exception cause) {
+					}
+				});
+
+		Iterator<SocialData> it = future.get(10, TimeUnit.SECONDS).iterator();
+		int count = 0;
+		while (it.hasNext()) {
+			assertNotNull(it.next().getId());
+			count++;
+		}
+		assertEquals(3, count);
+		assertTrue(called.await(10, TimeUnit.SECONDS));
+		assertEquals(1, callbackThreads.size());
+		assertTrue(callbackThreads.get(0).startsWith("SocialAsyncTransport"));
+	}
+
+	@Test
+	public void testManyReadsInFlight() throws Exception {
+		SocialPathConsumer path = createPath("public", "");
+
+		int requests = 50;
+		final CountDownLatch latch = new CountDownLatch(requests);
+		final AtomicInteger statuses = new AtomicInteger();
+		final AtomicInteger errors = new AtomicInteger();
+		for (int i = 0; i < requests; i++) {
+			path.readDataAsync(null, null, new SocialDataCallback<Iterable<SocialData>>() {
+				public void onData(Iterable<SocialData> data) {
+					for (Iterator<SocialData> it = data.iterator(); it.hasNext(); it.next()) {
+						statuses.incrementAndGet();
+					}
+					latch.countDown();
+				}
+
+				public void onError(Exception cause) {
+					errors.incrementAndGet();
+					latch.countDown();
+				}
+			});
+		}
+
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		assertEquals(0, errors.get());
+		assertEquals(3 * requests, statuses.get());
+	}
+
+	@Test
+	public void testRateLimitIsReported() throws Exception {
+		// the options follow the api url, this points it at the limited resources
+		SocialPathConsumer path = createPath("public", "/limited");
+
+		try {
+			path.readDataAsync("10", null, null).get(10, TimeUnit.SECONDS);
+			fail("Should have failed");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RateLimitExceededException);
+			// a reset of 1200 seconds from now
+			long delay = ((RateLimitExceededException) e.getCause()).getDelay();
+			assertTrue("Delay " + delay, delay > 1195000 && delay <= 1200000);
+		}
+	}
+
+	@Test
+	public void testLargeResponseIsRefused() throws Exception {
+		assertResponseTooLarge(createPath("public", "/large&maxResponseSize=1024"));
+	}
+
+	@Test
+	public void testLargeChunkedResponseIsRefused() throws Exception {
+		assertResponseTooLarge(createPath("public", "/chunked&maxResponseSize=1024"));
+	}
+
+	private void assertResponseTooLarge(SocialPathConsumer path) throws Exception {
+		try {
+			// well before the whole body was sent
+			path.readDataAsync(null, null, null).get(5, TimeUnit.SECONDS);
+			fail("Should have failed");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof SocialDataFetchError);
+			assertTrue(e.getCause().getCause() instanceof ResponseBuffer.ResponseTooLargeException);
+		}
+	}
+
+	@Test
+	public void testUpdateDataAsyncIsSigned() throws Exception {
+		SocialPathConsumer path = createPath("update", "");
+		((SocialPathSessionAware) path).initSession(new SocialOAuth("key", "secret"),
+				new SocialOAuth("token", "tokenSecret"));
+
+		Map<String, Object> headers = new java.util.HashMap<String, Object>();
+		SocialData status = path.updateDataAsync("hello", headers, null).get(10, TimeUnit.SECONDS);
+
+		assertEquals("42", status.getId());
+		assertTrue(status.getData().toString().contains("hello"));
+		assertTrue(authorization.startsWith("OAuth "));
+		assertTrue(authorization.contains("oauth_token=\"token\""));
+	}
+
+}
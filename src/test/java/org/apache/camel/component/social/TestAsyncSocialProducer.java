@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.Test;
+
+public class TestAsyncSocialProducer extends AbstractSocialServerTestSupport {
+
+	private String uri;
+	private final CountDownLatch gate = new CountDownLatch(1);
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger updates = new AtomicInteger();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		uri = signedUri("update", "");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		gate.countDown();
+		super.tearDown();
+	}
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		int now = inFlight.incrementAndGet();
+		while (now > maxInFlight.get() && !maxInFlight.compareAndSet(maxInFlight.get(), now)) {
+		}
+		try {
+			gate.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+		} finally {
+			inFlight.decrementAndGet();
+		}
+		updates.incrementAndGet();
+		response.setContentType("application/xml");
+		response.getWriter().write("<status><id>42</id><text>" + request.getParameter("status")
+				+ "</text></status>");
+	}
+
+	private SocialProducer createProducer(String options) throws Exception {
+		SocialProducer producer = (SocialProducer) context.getEndpoint(uri + options)
+				.createProducer();
+		producer.start();
+		return producer;
+	}
+
+	private static class Callback implements AsyncCallback {
+		final CountDownLatch done;
+
+		Callback(CountDownLatch done) {
+			this.done = done;
+		}
+
+		public void done(boolean doneSync) {
+			done.countDown();
+		}
+	}
+
+	private List<Exchange> send(SocialProducer producer, int count, CountDownLatch done) {
+		List<Exchange> exchanges = new ArrayList<Exchange>();
+		for (int i = 0; i < count; i++) {
+			Exchange exchange = new DefaultExchange(context);
+			exchange.getIn().setBody("status " + i);
+			assertFalse(producer.process(exchange, new Callback(done)));
+			exchanges.add(exchange);
+		}
+		return exchanges;
+	}
+
+	private void waitForInFlight(int count) throws InterruptedException {
+		for (int i = 0; i < 100 && inFlight.get() < count; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(count, inFlight.get());
+	}
+
+	@Test
+	public void testFailureBeforeSendingReleasesTheSlot() throws Exception {
+		SocialProducer producer = createProducer("&maxInFlight=1");
+		for (int i = 0; i < 3; i++) {
+			// no body to build the update from
+			Exchange exchange = new DefaultExchange(context);
+			CountDownLatch done = new CountDownLatch(1);
+			producer.process(exchange, new Callback(done));
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertNotNull(exchange.getException());
+		}
+		assertEquals(0, producer.getInFlight(new SocialOAuth("token", "tokenSecret")));
+
+		gate.countDown();
+		CountDownLatch done = new CountDownLatch(1);
+		List<Exchange> sent = send(producer, 1, done);
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertNull(sent.get(0).getException());
+		assertEquals(0, context.getEndpoint(uri + "&maxInFlight=1", SocialEndpoint.class)
+				.getSessionPool().getActiveCount());
+	}
+
+	@Test
+	public void testSpillFromOneThread() throws Exception {
+		SocialProducer producer = createProducer("&maxInFlight=3&inFlightPolicy=spill");
+		CountDownLatch done = new CountDownLatch(20);
+
+		// the calling thread is never held by the round trips
+		List<Exchange> exchanges = send(producer, 20, done);
+		waitForInFlight(3);
+		assertEquals(3, producer.getInFlight(new SocialOAuth("token", "tokenSecret")));
+		assertEquals(20, done.getCount());
+
+		gate.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (Exchange exchange : exchanges) {
+			assertNull(exchange.getException());
+		}
+		assertEquals(20, updates.get());
+		assertEquals(3, maxInFlight.get());
+		assertEquals(0, producer.getInFlight(new SocialOAuth("token", "tokenSecret")));
+	}
+
+	@Test
+	public void testReject() throws Exception {
+		SocialProducer producer = createProducer("&maxInFlight=2&inFlightPolicy=reject");
+		CountDownLatch done = new CountDownLatch(2);
+		List<Exchange> exchanges = send(producer, 2, done);
+		waitForInFlight(2);
+
+		Exchange rejected = new DefaultExchange(context);
+		rejected.getIn().setBody("one too many");
+		CountDownLatch rejectedDone = new CountDownLatch(1);
+		assertTrue(producer.process(rejected, new Callback(rejectedDone)));
+		assertEquals(0, rejectedDone.getCount());
+		assertTrue(rejected.getException() instanceof RejectedExecutionException);
+
+		gate.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertNull(exchanges.get(0).getException());
+		assertEquals(2, updates.get());
+	}
+
+	@Test
+	public void testBlock() throws Exception {
+		final SocialProducer producer = createProducer("&maxInFlight=2");
+		final CountDownLatch done = new CountDownLatch(3);
+		send(producer, 2, done);
+		waitForInFlight(2);
+
+		final AtomicInteger returned = new AtomicInteger();
+		Thread caller = new Thread() {
+			public void run() {
+				send(producer, 1, done);
+				returned.incrementAndGet();
+			}
+		};
+		caller.start();
+		caller.join(300);
+		assertEquals("the caller was not blocked", 0, returned.get());
+
+		gate.countDown();
+		caller.join(10000);
+		assertEquals(1, returned.get());
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(3, updates.get());
+		assertEquals(2, maxInFlight.get());
+	}
+
+}
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+import oauth.signpost.commonshttp.CommonsHttpOAuthConsumer;
+import oauth.signpost.commonshttp.HttpRequestAdapter;
+import oauth.signpost.http.HttpParameters;
+import oauth.signpost.http.HttpRequest;
+import oauth.signpost.signature.HmacSha1MessageSigner;
+import oauth.signpost.signature.OAuthMessageSigner;
+
+import org.apache.camel.component.social.util.CachedHmacSha1MessageSigner;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.junit.Test;
+
+public class TestCachedHmacSha1MessageSigner extends TestCase {
+
+	private static final String CONSUMER_SECRET = "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw";
+	private static final String TOKEN_SECRET = "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE";
+
+	private static OAuthMessageSigner signer(OAuthMessageSigner signer, String consumerSecret,
+			String tokenSecret) {
+		signer.setConsumerSecret(consumerSecret);
+		signer.setTokenSecret(tokenSecret);
+		return signer;
+	}
+
+	/**
+	 * The example of Twitter's "Creating a signature" documentation.
+	 */
+	private static HttpParameters twitterExample() {
+		HttpParameters params = new HttpParameters();
+		params.put("status", "Hello Ladies + Gentlemen, a signed OAuth request!", true);
+		params.put("include_entities", "true", true);
+		params.put("oauth_consumer_key", "xvz1evFS4wEEPTGEFPHBog", true);
+		params.put("oauth_nonce", "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg", true);
+		params.put("oauth_signature_method", "HMAC-SHA1", true);
+		params.put("oauth_timestamp", "1318622958", true);
+		params.put("oauth_token", "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb", true);
+		params.put("oauth_version", "1.0", true);
+		return params;
+	}
+
+	@Test
+	public void testTwitterVector() throws Exception {
+		HttpRequest request = new HttpRequestAdapter(new HttpPost(
+				"https://api.twitter.com/1/statuses/update.json"));
+		OAuthMessageSigner signer = signer(new CachedHmacSha1MessageSigner(), CONSUMER_SECRET,
+				TOKEN_SECRET);
+
+		assertEquals("tnnArxj06cWHq44gCs1OSKk/jLY=", signer.sign(request, twitterExample()));
+		// the second signing runs on the pooled workspace
+		assertEquals("tnnArxj06cWHq44gCs1OSKk/jLY=", signer.sign(request, twitterExample()));
+		assertEquals("tnnArxj06cWHq44gCs1OSKk/jLY=", signer(new HmacSha1MessageSigner(),
+				CONSUMER_SECRET, TOKEN_SECRET).sign(request, twitterExample()));
+	}
+
+	@Test
+	public void testSameAsSignpost() throws Exception {
+		String[] urls = {"http://api.twitter.com/1/statuses/home_timeline.xml",
+				"HTTP://API.Twitter.com:80/1/statuses/update.xml", "https://example.com:443",
+				"http://localhost:8080/a%20b/c.json?ignored=1"};
+		String[] values = {"", "plain", "a b+c&d=e", "café 日本", "🐪 camel",
+				"~-._*'()!", "100%"};
+		Random random = new Random(42);
+
+		for (int n = 0; n < 200; n++) {
+			HttpParameters params = new HttpParameters();
+			int count = random.nextInt(6);
+			for (int i = 0; i < count; i++) {
+				String key = random.nextInt(4) == 0 ? values[random.nextInt(values.length)]
+						: "k" + random.nextInt(4);
+				params.put(key, values[random.nextInt(values.length)], true);
+			}
+			if (random.nextInt(5) == 0) {
+				// skipped keys, and their effect on the separators
+				params.put(random.nextBoolean() ? "oauth_signature" : "realm", "x", true);
+			}
+
+			String url = urls[random.nextInt(urls.length)];
+			HttpRequest request = new HttpRequestAdapter(random.nextBoolean() ? new HttpGet(url)
+					: new HttpPost(url));
+			String consumerSecret = values[random.nextInt(values.length)];
+			String tokenSecret = values[random.nextInt(values.length)];
+
+			assertEquals(params.toString() + " " + url, signer(new HmacSha1MessageSigner(),
+					consumerSecret, tokenSecret).sign(request, params), signer(
+					new CachedHmacSha1MessageSigner(), consumerSecret, tokenSecret).sign(request,
+					params));
+		}
+	}
+
+	@Test
+	public void testSecretChangeRekeys() throws Exception {
+		HttpRequest request = new HttpRequestAdapter(new HttpPost(
+				"https://api.twitter.com/1/statuses/update.json"));
+		OAuthMessageSigner signer = signer(new CachedHmacSha1MessageSigner(), CONSUMER_SECRET,
+				"other");
+		String other = signer.sign(request, twitterExample());
+
+		signer.setTokenSecret(TOKEN_SECRET);
+		assertEquals("tnnArxj06cWHq44gCs1OSKk/jLY=", signer.sign(request, twitterExample()));
+		assertFalse(other.equals(signer.sign(request, twitterExample())));
+	}
+
+	@Test
+	public void testConcurrentSigning() throws Exception {
+		final OAuthMessageSigner signer = signer(new CachedHmacSha1MessageSigner(),
+				CONSUMER_SECRET, TOKEN_SECRET);
+		final HttpRequest request = new HttpRequestAdapter(new HttpPost(
+				"https://api.twitter.com/1/statuses/update.json"));
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<String>> signatures = new ArrayList<Future<String>>();
+		for (int i = 0; i < 400; i++) {
+			signatures.add(executor.submit(new Callable<String>() {
+				public String call() throws Exception {
+					return signer.sign(request, twitterExample());
+				}
+			}));
+		}
+		for (Future<String> signature : signatures) {
+			assertEquals("tnnArxj06cWHq44gCs1OSKk/jLY=", signature.get());
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	public void testDropInForTheConsumer() throws Exception {
+		CommonsHttpOAuthConsumer consumer = new CommonsHttpOAuthConsumer("key", CONSUMER_SECRET);
+		consumer.setMessageSigner(new CachedHmacSha1MessageSigner());
+		consumer.setTokenWithSecret("token", TOKEN_SECRET);
+
+		HttpPost post = new HttpPost("http://api.twitter.com/1/statuses/update.xml");
+		consumer.sign(post);
+		String authorization = post.getFirstHeader("Authorization").getValue();
+		assertTrue(authorization, authorization.contains("oauth_signature_method=\"HMAC-SHA1\""));
+		assertTrue(authorization, authorization.contains("oauth_signature=\""));
+	}
+
+}
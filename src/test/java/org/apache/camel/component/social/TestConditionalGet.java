@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.component.social.path.SocialPathConditional;
+import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.junit.Test;
+
+public class TestConditionalGet extends AbstractSocialServerTestSupport {
+
+	private final AtomicInteger notModified = new AtomicInteger();
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		if (target.equals("/statuses/public_timeline.xml")) {
+			if ("\"v1\"".equals(request.getHeader("If-None-Match"))) {
+				notModified.incrementAndGet();
+				response.setStatus(304);
+				return;
+			}
+			response.setHeader("ETag", "\"v1\"");
+			response.setContentType("application/xml");
+			response.getWriter().write(
+					"<statuses type=\"array\"><status><id>2</id></status>"
+							+ "<status><id>1</id></status></statuses>");
+		} else if (target.equals("/search.json")) {
+			// no validators, always the same results
+			response.setContentType("application/json");
+			response.getWriter().write("{\"results\":[{\"id_str\":\"7\"}]}");
+		} else {
+			response.setStatus(404);
+		}
+	}
+
+	@Test
+	public void testNotModifiedIsEmpty() throws Exception {
+		SocialPathConsumer path = createPath("public", "&skipRead=true");
+
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(0, count(path.readData(null, null)));
+		assertEquals(1, notModified.get());
+		assertEquals(0, count(path.readDataAsync(null, null, null).get()));
+		assertEquals(2, notModified.get());
+	}
+
+	@Test
+	public void testForgottenReadIsReadAgain() throws Exception {
+		SocialPathConsumer path = createPath("public", "&skipRead=true");
+
+		assertEquals(2, count(path.readData(null, null)));
+		// the items could not be consumed, the same response is not skipped
+		((SocialPathConditional) path).forgetReads();
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(0, notModified.get());
+		assertEquals(0, count(path.readData(null, null)));
+	}
+
+	@Test
+	public void testUnchangedBodyIsEmpty() throws Exception {
+		SocialPathConsumer path = createPath("search", "&skipRead=true");
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("q", "camel");
+
+		assertEquals(1, count(path.readData(null, params)));
+		assertEquals(0, count(path.readData(null, params)));
+
+		// another query is another resource
+		assertEquals(1, count(path.readData(null, Collections.<String, Object> singletonMap("q",
+				"rider"))));
+	}
+
+	@Test
+	public void testEveryReadWithoutSkipRead() throws Exception {
+		SocialPathConsumer path = createPath("public", "");
+
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(0, notModified.get());
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		SocialPathConsumer path = createPath("public", "&skipRead=true&conditionalGet=false");
+
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(0, notModified.get());
+	}
+
+}
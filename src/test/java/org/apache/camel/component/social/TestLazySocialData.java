@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.camel.TypeConverter;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.component.social.providers.twitter.TwitterSearchJsonDecoder;
+import org.apache.camel.component.social.providers.twitter.TwitterStatusStaxParser;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+public class TestLazySocialData extends TestCase {
+
+	private DefaultCamelContext context;
+	private TypeConverter converter;
+
+	@Override
+	protected void setUp() throws Exception {
+		context = new DefaultCamelContext();
+		context.start();
+		converter = context.getTypeConverter();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		context.stop();
+	}
+
+	@Test
+	public void testJsonSlices() throws Exception {
+		byte[] data = "{\"results\":[{\"id_str\":\"1\",\"text\":\"camel\"},{\"id_str\":\"2\",\"text\":\"social\"}]}"
+				.getBytes("UTF-8");
+		TwitterSearchJsonDecoder decoder = new TwitterSearchJsonDecoder();
+		decoder.setLazyBody(true);
+		List<SocialData> list = decoder.decode(data, 0, data.length);
+
+		LazySocialData second = (LazySocialData) list.get(1);
+		assertSame(data, second.getBuffer());
+		assertSame(second, second.getData());
+		assertEquals("{\"id_str\":\"2\",\"text\":\"social\"}", converter.convertTo(String.class, second));
+
+		JsonNode node = converter.convertTo(JsonNode.class, second);
+		assertEquals("social", node.get("text").getTextValue());
+
+		Map<?, ?> map = converter.convertTo(Map.class, second);
+		assertEquals("2", map.get("id_str"));
+
+		assertEquals(new ObjectMapper().readTree(second.toString()),
+				new ObjectMapper().readTree(converter.convertTo(java.io.InputStream.class, second)));
+	}
+
+	@Test
+	public void testXmlSlices() throws Exception {
+		TwitterStatusStaxParser parser = new TwitterStatusStaxParser();
+		parser.setLazyBody(true);
+		List<SocialData> list = parser.parseStatuses(new InputStreamReader(getClass().getResourceAsStream(
+				"/statuses.xml"), "UTF-8"));
+
+		assertEquals(3, list.size());
+		assertEquals("961931640836096", list.get(1).getId());
+		for (SocialData sd : list) {
+			Document doc = converter.convertTo(Document.class, sd.getData());
+			assertEquals(sd.getId(), doc.getElementsByTagName("id").item(0).getTextContent());
+		}
+
+		String single = list.get(2).toString();
+		assertTrue(single.startsWith("<status>"));
+		assertTrue(single.endsWith("</status>"));
+		assertEquals("960565983838208", parser.parseStatus(new StringReader(single)).getId());
+	}
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.camel.component.social.util.ResponseBuffer;
+import org.junit.Test;
+
+public class TestResponseBuffer extends TestCase {
+
+	private byte[] content(int size) {
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) i;
+		}
+		return data;
+	}
+
+	@Test
+	public void testExactContentLength() throws Exception {
+		ResponseBuffer buffer = new ResponseBuffer(1000);
+		assertEquals(1000, buffer.readFrom(new ByteArrayInputStream(content(1000)), 1000));
+
+		assertEquals(1000, buffer.size());
+		assertEquals(1000, buffer.getBuffer().length);
+	}
+
+	@Test
+	public void testGrowsWithoutContentLength() throws Exception {
+		ResponseBuffer buffer = new ResponseBuffer(16);
+		buffer.readFrom(new ByteArrayInputStream(content(10000)), -1);
+
+		assertEquals(10000, buffer.size());
+		assertEquals((byte) 9999, buffer.getBuffer()[9999]);
+	}
+
+	@Test
+	public void testMaxResponseSize() throws Exception {
+		ResponseBuffer buffer = new ResponseBuffer(16);
+		try {
+			buffer.readFrom(new ByteArrayInputStream(content(10000)), 4096);
+			fail("Response bigger than maxResponseSize should fail");
+		} catch (ResponseBuffer.ResponseTooLargeException e) {
+			assertTrue(buffer.getBuffer().length <= 4097);
+		}
+	}
+
+}
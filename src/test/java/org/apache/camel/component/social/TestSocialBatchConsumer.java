@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ShutdownRunningTask;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+
+public class TestSocialBatchConsumer extends AbstractSocialRouteTestSupport {
+
+	private final List<String> cutSinceIds = new CopyOnWriteArrayList<String>();
+	private final List<String> cutIds = new CopyOnWriteArrayList<String>();
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		String since = request.getParameter("since_id");
+		if (target.startsWith("/cut/")) {
+			cutSinceIds.add(String.valueOf(since));
+		}
+
+		// the same five statuses minus the ones seen
+		SocialApiServer.writeStatuses(response, 5, since == null ? 1 : Integer.parseInt(since) + 1);
+	}
+
+	@Override
+	protected RouteBuilder createRouteBuilder() throws Exception {
+		final String options = "poll=true&skipRead=true&rateLimit=-1&initialDelay=0&delay=100&apiUrl=" + apiUrl;
+		return new RouteBuilder() {
+			@Override
+			public void configure() throws Exception {
+				from("social://twitter/public?maxMessagesPerPoll=2&" + options).to("mock:limited");
+				from("social://twitter/public?batchExchange=true&" + options).to("mock:batch");
+				from("social://twitter/public?" + options + "/cut").routeId("cut").process(
+						new Processor() {
+							public void process(Exchange exchange) throws Exception {
+								cutIds.add(exchange.getIn().getHeader(SocialHeaders.SOCIAL_DATA_ID,
+										String.class));
+								if (cutIds.size() == 2) {
+									// shutting down, the rest of the batch is left out
+									((SocialConsumer) context.getRoute("cut").getConsumer())
+											.deferShutdown(ShutdownRunningTask.CompleteCurrentTaskOnly);
+								}
+							}
+						});
+			}
+		};
+	}
+
+	@Test
+	public void testMaxMessagesPerPoll() throws Exception {
+		MockEndpoint mock = getMockEndpoint("mock:limited");
+		mock.expectedMessageCount(5);
+		mock.assertIsSatisfied();
+
+		List<String> ids = new ArrayList<String>();
+		List<Integer> sizes = new ArrayList<Integer>();
+		List<Integer> indexes = new ArrayList<Integer>();
+		for (Exchange exchange : mock.getReceivedExchanges()) {
+			ids.add(exchange.getIn().getHeader(SocialHeaders.SOCIAL_DATA_ID, String.class));
+			sizes.add(exchange.getProperty(Exchange.BATCH_SIZE, Integer.class));
+			indexes.add(exchange.getProperty(Exchange.BATCH_INDEX, Integer.class));
+		}
+		// oldest first so the next polls pick up the rest
+		assertEquals(Arrays.asList("1", "2", "3", "4", "5"), ids);
+		assertEquals(Arrays.asList(2, 2, 2, 2, 1), sizes);
+		assertEquals(Arrays.asList(0, 1, 0, 1, 0), indexes);
+		assertTrue(mock.getReceivedExchanges().get(1).getProperty(Exchange.BATCH_COMPLETE,
+				Boolean.class));
+	}
+
+	@Test
+	public void testSingleExchangePerPoll() throws Exception {
+		MockEndpoint mock = getMockEndpoint("mock:batch");
+		mock.expectedMessageCount(1);
+		mock.assertIsSatisfied();
+
+		// the following polls find nothing new
+		Thread.sleep(500);
+		mock.assertIsSatisfied();
+
+		Exchange exchange = mock.getReceivedExchanges().get(0);
+		assertEquals(Integer.valueOf(5), exchange.getIn().getHeader(SocialHeaders.SOCIAL_BATCH_SIZE,
+				Integer.class));
+		List<?> batch = exchange.getIn().getBody(List.class);
+		assertEquals(5, batch.size());
+		assertEquals("5", ((SocialData) batch.get(0)).getId());
+	}
+
+	@Test
+	public void testCutBatchKeepsTheSinceId() throws Exception {
+		for (int i = 0; i < 50 && cutSinceIds.size() < 2; i++) {
+			Thread.sleep(50);
+		}
+
+		// the oldest went first, the next poll asks for what was left out
+		assertEquals(Arrays.asList("1", "2"), cutIds);
+		assertEquals("null", cutSinceIds.get(0));
+		assertEquals("2", cutSinceIds.get(1));
+	}
+
+}
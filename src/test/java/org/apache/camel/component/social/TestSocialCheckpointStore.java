@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.Test;
+
+public class TestSocialCheckpointStore extends AbstractSocialServerTestSupport {
+
+	private File file;
+	private final List<String> sinceIds = new CopyOnWriteArrayList<String>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = new File("target/checkpoints-" + System.nanoTime() + ".dat");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		file.delete();
+	}
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		sinceIds.add(String.valueOf(request.getParameter("since_id")));
+		SocialApiServer.writeStatuses(response, 3, 1);
+	}
+
+	@Test
+	public void testRecordsSurviveRestart() throws Exception {
+		FileSocialCheckpointStore store = new FileSocialCheckpointStore(file);
+		store.setGrowSize(64);
+		store.start();
+		for (int i = 1; i <= 100; i++) {
+			store.append("home/alice", Integer.toString(i));
+			store.append("home/bob", "b" + i);
+		}
+		store.stop();
+
+		store = new FileSocialCheckpointStore(file);
+		store.setMaxIdsPerKey(3);
+		store.start();
+		assertEquals(Arrays.asList("98", "99", "100"), store.load("home/alice"));
+		assertEquals(Arrays.asList("b98", "b99", "b100"), store.load("home/bob"));
+		assertTrue(store.load("home/carol").isEmpty());
+		assertEquals(200, store.getRecords());
+		store.stop();
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		FileSocialCheckpointStore store = new FileSocialCheckpointStore(file);
+		store.setMaxIdsPerKey(2);
+		store.start();
+		for (int i = 1; i <= 50; i++) {
+			store.append("search/-", "é" + i);
+		}
+		assertTrue(store.isCompactionNeeded());
+		store.compact();
+		assertEquals(2, store.getRecords());
+		assertFalse(store.isCompactionNeeded());
+
+		store.append("search/-", "é51");
+		store.stop();
+
+		store = new FileSocialCheckpointStore(file);
+		store.setMaxIdsPerKey(10);
+		store.start();
+		assertEquals(Arrays.asList("é49", "é50", "é51"), store.load("search/-"));
+		store.stop();
+	}
+
+	@Test
+	public void testConsumerResumesFromCheckpoint() throws Exception {
+		final String uri = "social://twitter/public?poll=true&skipRead=true&rateLimit=-1&initialDelay=0&delay=200"
+				+ "&checkpointFile=" + file.getPath() + "&apiUrl=" + apiUrl;
+
+		assertEquals(3, runRoute(uri));
+
+		sinceIds.clear();
+		// nothing is emitted again after the restart
+		assertEquals(0, runRoute(uri));
+		assertFalse("null".equals(sinceIds.get(0)));
+	}
+
+	/**
+	 * Runs the route for a second in a context of its own, a restart of the
+	 * application.
+	 */
+	private int runRoute(final String uri) throws Exception {
+		DefaultCamelContext application = new DefaultCamelContext();
+		application.addRoutes(new RouteBuilder() {
+			@Override
+			public void configure() throws Exception {
+				from(uri).to("mock:result");
+			}
+		});
+		application.start();
+		try {
+			MockEndpoint mock = application.getEndpoint("mock:result", MockEndpoint.class);
+			Thread.sleep(1000);
+			return mock.getReceivedCounter();
+		} finally {
+			application.stop();
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+public class TestSocialConnectionPool extends AbstractSocialServerTestSupport {
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		response.setContentType("text/plain");
+		response.getWriter().write("ok");
+	}
+
+	@Test
+	public void testClientsShareConnections() throws Exception {
+		SocialConnectionPool pool = new SocialConnectionPool();
+		pool.start();
+		try {
+			String url = apiUrl + "/statuses";
+			for (int i = 0; i < 5; i++) {
+				SocialHttpClient client = new SocialHttpClient(pool);
+				HttpResponse response = client.execute(new HttpGet(url));
+				assertEquals("ok", EntityUtils.toString(response.getEntity()));
+				client.shutdown();
+			}
+
+			// one keep-alive connection served every client
+			assertEquals(1, pool.getConnectionsInPool(new HttpHost("localhost", server.getPort())));
+			assertEquals(1, pool.getConnectionsInPool());
+		} finally {
+			pool.stop();
+		}
+		assertEquals(0, pool.getConnectionsInPool());
+	}
+
+}
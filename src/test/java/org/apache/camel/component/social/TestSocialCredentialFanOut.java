@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.JndiRegistry;
+import org.junit.Test;
+
+public class TestSocialCredentialFanOut extends AbstractSocialRouteTestSupport {
+
+	private static final Pattern TOKEN = Pattern.compile("oauth_token=\"([^\"]*)\"");
+
+	private final Map<String, List<String>> sinceIds = new ConcurrentHashMap<String, List<String>>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		Matcher m = TOKEN.matcher(String.valueOf(request.getHeader("Authorization")));
+		if (!target.equals("/statuses/home_timeline.xml") || !m.find()) {
+			response.setStatus(404);
+			return;
+		}
+
+		String token = m.group(1);
+		String since = request.getParameter("since_id");
+		List<String> seen = sinceIds.get(token);
+		if (seen == null) {
+			seen = new CopyOnWriteArrayList<String>();
+			sinceIds.put(token, seen);
+		}
+		seen.add(String.valueOf(since));
+
+		if (token.equals("limited")) {
+			response.setStatus(400);
+			response.setHeader("X-RateLimit-Remaining", "0");
+			response.setHeader("X-RateLimit-Reset", Long.toString(System.currentTimeMillis() / 1000 + 60));
+			return;
+		}
+
+		int now = inFlight.incrementAndGet();
+		while (now > maxInFlight.get() && !maxInFlight.compareAndSet(maxInFlight.get(), now)) {
+		}
+		try {
+			Thread.sleep(100);
+		} catch (InterruptedException e) {
+		} finally {
+			inFlight.decrementAndGet();
+		}
+
+		long id = since == null ? 1 : Long.parseLong(since) + 1;
+		response.setContentType("application/xml");
+		response.getWriter().write("<statuses type=\"array\"><status><id>" + id + "</id><text>" + token
+				+ "</text></status></statuses>");
+	}
+
+	@Override
+	protected JndiRegistry createRegistry() throws Exception {
+		JndiRegistry registry = super.createRegistry();
+		registry.bind("users", Arrays.asList(new SocialOAuth("alice", "a"), new SocialOAuth("bob", "b"),
+				new SocialOAuth("carol", "c"), new SocialOAuth("limited", "l")));
+		return registry;
+	}
+
+	@Override
+	protected RouteBuilder createRouteBuilder() throws Exception {
+		return new RouteBuilder() {
+			@Override
+			public void configure() throws Exception {
+				from("social://twitter/home?poll=true&skipRead=true&rateLimit=-1&delay=300"
+						+ "&oauthConsumerToken=key&oauthConsumerSecret=secret"
+						+ "&credentialSource=#users&maxConcurrentPolls=4&apiUrl=" + apiUrl)
+						.to("mock:result");
+				from("social://twitter/home?poll=false&skipRead=true&rateLimit=-1&credentialIdleTimeout=300"
+						+ "&oauthConsumerToken=key&oauthConsumerSecret=secret&apiUrl=" + apiUrl)
+						.routeId("headers").to("mock:headers");
+			}
+		};
+	}
+
+	@Test
+	public void testPollsEveryCredential() throws Exception {
+		MockEndpoint mock = getMockEndpoint("mock:result");
+		mock.expectedMinimumMessageCount(6);
+		mock.assertIsSatisfied();
+
+		List<String> texts = new ArrayList<String>();
+		for (Exchange exchange : mock.getReceivedExchanges()) {
+			SocialOAuth user = exchange.getIn().getHeader(SocialHeaders.SOCIAL_USER_OAUTH, SocialOAuth.class);
+			String body = exchange.getIn().getBody(String.class);
+			assertTrue(body.contains("<text>" + user.getToken() + "</text>"));
+			texts.add(user.getToken() + ":" + exchange.getIn().getHeader(SocialHeaders.SOCIAL_DATA_ID));
+		}
+		assertTrue(texts.containsAll(Arrays.asList("alice:1", "alice:2", "bob:1", "bob:2", "carol:1", "carol:2")));
+
+		// each credential keeps its own since_id
+		for (String token : Arrays.asList("alice", "bob", "carol")) {
+			assertEquals("null", sinceIds.get(token).get(0));
+			assertEquals("1", sinceIds.get(token).get(1));
+		}
+
+		// the rate limited credential is left alone, the others carry on
+		assertEquals(1, sinceIds.get("limited").size());
+		assertTrue("credentials were not polled concurrently", maxInFlight.get() > 1);
+	}
+
+	@Test
+	public void testHeaderCredentialsAreEvictedWhenIdle() throws Exception {
+		SocialConsumer consumer = (SocialConsumer) context.getRoute("headers").getConsumer();
+
+		pollWithHeaders(consumer, "dave", "erin");
+		assertEquals(2, consumer.getCredentialPollerCount());
+		pollWithHeaders(consumer, "dave", "erin");
+		assertEquals(Arrays.asList("null", "1"), sinceIds.get("erin"));
+
+		// erin is not polled any more, her session is closed after a while
+		Thread.sleep(400);
+		pollWithHeaders(consumer, "dave");
+		assertEquals(1, consumer.getCredentialPollerCount());
+		assertEquals(Arrays.asList("null", "1", "2"), sinceIds.get("dave"));
+	}
+
+	private void pollWithHeaders(SocialConsumer consumer, String... tokens) throws Exception {
+		List<SocialOAuth> credentials = new ArrayList<SocialOAuth>();
+		for (String token : tokens) {
+			credentials.add(new SocialOAuth(token, "secret"));
+		}
+		Exchange exchange = new DefaultExchange(context);
+		exchange.getIn().setHeader(SocialHeaders.SOCIAL_POLL_PATH, Boolean.TRUE);
+		exchange.getIn().setHeader(SocialHeaders.SOCIAL_CREDENTIALS, credentials);
+		consumer.process(exchange);
+	}
+
+	@Test
+	public void testFileCredentialSource() throws Exception {
+		File file = new File("target/credentials-" + System.nanoTime() + ".properties");
+		file.getParentFile().mkdirs();
+		try {
+			FileWriter writer = new FileWriter(file);
+			writer.write("# user credentials\nalice=a\nbob=b\n");
+			writer.close();
+
+			FileSocialCredentialSource source = new FileSocialCredentialSource(file);
+			Collection<SocialOAuth> credentials = source.getCredentials();
+			assertEquals(2, credentials.size());
+			assertSame(credentials, source.getCredentials());
+
+			writer = new FileWriter(file);
+			writer.write("carol=c\n");
+			writer.close();
+			file.setLastModified(file.lastModified() + 2000);
+
+			credentials = source.getCredentials();
+			assertEquals(1, credentials.size());
+			assertEquals("c", credentials.iterator().next().getSecret());
+		} finally {
+			file.delete();
+		}
+	}
+
+}
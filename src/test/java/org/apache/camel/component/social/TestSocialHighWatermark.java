@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+
+public class TestSocialHighWatermark extends AbstractSocialRouteTestSupport {
+
+	private final List<String> sinceIds = new CopyOnWriteArrayList<String>();
+	private volatile int newest = 3;
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		String since = request.getParameter("since_id");
+		sinceIds.add(String.valueOf(since));
+
+		// two new statuses per poll
+		SocialApiServer.writeStatuses(response, newest, since == null ? 1 : Integer.parseInt(since) + 1);
+		newest += 2;
+	}
+
+	@Override
+	protected RouteBuilder createRouteBuilder() throws Exception {
+		return new RouteBuilder() {
+			@Override
+			public void configure() throws Exception {
+				from("social://twitter/public?poll=true&skipRead=true&emitOldestFirst=true"
+						+ "&rateLimit=-1&initialDelay=0&delay=200&apiUrl=" + apiUrl).to("mock:result");
+			}
+		};
+	}
+
+	@Test
+	public void testSinceIdFollowsTheNewestStatus() throws Exception {
+		MockEndpoint mock = getMockEndpoint("mock:result");
+		mock.expectedMinimumMessageCount(7);
+		mock.assertIsSatisfied();
+
+		List<String> ids = new ArrayList<String>();
+		for (Exchange exchange : mock.getReceivedExchanges()) {
+			ids.add(exchange.getIn().getHeader(SocialHeaders.SOCIAL_DATA_ID, String.class));
+		}
+		assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6", "7"), ids.subList(0, 7));
+		assertEquals(Arrays.asList("null", "3", "5"), sinceIds.subList(0, 3));
+	}
+
+}
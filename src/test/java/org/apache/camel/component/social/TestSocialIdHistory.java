@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.camel.component.social.util.NumericIdComparator;
+import org.apache.camel.component.social.util.SocialIdHistory;
+import org.junit.Test;
+
+public class TestSocialIdHistory extends TestCase {
+
+	@Test
+	public void testKeepsExactlyCapacityIds() {
+		SocialIdHistory history = new SocialIdHistory(3);
+		assertNull(history.getLast());
+		assertTrue(history.add("1"));
+		assertTrue(history.add("2"));
+		assertTrue(history.add("3"));
+		assertFalse(history.add("2"));
+		assertEquals(3, history.size());
+
+		assertTrue(history.add("4"));
+		assertEquals(3, history.size());
+		assertFalse(history.contains("1"));
+		assertTrue(history.contains("2"));
+		assertTrue(history.contains("4"));
+		assertEquals("4", history.getLast());
+		assertTrue(history.isNumeric());
+	}
+
+	@Test
+	public void testNonCanonicalNumbersAreStrings() {
+		SocialIdHistory history = new SocialIdHistory(10);
+		history.add("9223372036854775807");
+		assertTrue(history.isNumeric());
+		assertTrue(history.contains("9223372036854775807"));
+		assertFalse(history.contains("007"));
+		assertFalse(history.contains("9223372036854775808"));
+
+		history.add("007");
+		assertFalse(history.isNumeric());
+		assertTrue(history.contains("9223372036854775807"));
+		assertTrue(history.contains("007"));
+		assertFalse(history.contains("7"));
+		assertEquals("007", history.getLast());
+	}
+
+	@Test
+	public void testFallsBackToStrings() {
+		SocialIdHistory history = new SocialIdHistory(3);
+		history.add("10");
+		history.add("20");
+		history.add("100000000000000000001_2");
+		assertFalse(history.isNumeric());
+		assertEquals(3, history.size());
+		assertEquals("100000000000000000001_2", history.getLast());
+
+		history.add("abc");
+		assertFalse(history.contains("10"));
+		assertTrue(history.contains("20"));
+		assertTrue(history.contains("abc"));
+		assertEquals(3, history.size());
+	}
+
+	@Test
+	public void testHighestIdIsMonotonic() {
+		SocialIdHistory history = new SocialIdHistory(2, NumericIdComparator.INSTANCE);
+		// batches come newest first
+		history.add("30");
+		history.add("20");
+		history.add("10");
+		assertEquals("10", history.getLast());
+		assertEquals("30", history.getHighest());
+		assertFalse(history.contains("30"));
+
+		history.add("5");
+		assertEquals("30", history.getHighest());
+		history.add("100000000000000000000");
+		assertEquals("100000000000000000000", history.getHighest());
+		assertNull(new SocialIdHistory(2).getHighest());
+	}
+
+	@Test
+	public void testNumericIdOrder() {
+		NumericIdComparator c = NumericIdComparator.INSTANCE;
+		assertTrue(c.compare("9", "10") < 0);
+		assertTrue(c.compare("29123456789012345678", "3") > 0);
+		assertEquals(0, c.compare("42", "42"));
+		assertTrue(c.compare("99", "abc") < 0);
+		assertTrue(c.compare("010", "9") > 0);
+	}
+
+	@Test
+	public void testNullIdIsSkipped() {
+		SocialIdHistory history = new SocialIdHistory(10, NumericIdComparator.INSTANCE);
+		assertTrue(history.add("5"));
+		assertFalse(history.add(null));
+		assertFalse(history.contains(null));
+		assertEquals(1, history.size());
+		assertEquals("5", history.getHighest());
+
+		history.add("a");
+		assertFalse(history.add(null));
+		assertFalse(history.contains(null));
+		assertEquals(2, history.size());
+	}
+
+	@Test
+	public void testMatchesReferenceUnderEviction() {
+		Random random = new Random(42);
+		int capacity = 1000;
+		SocialIdHistory history = new SocialIdHistory(capacity);
+		LinkedHashSet<String> reference = new LinkedHashSet<String>();
+
+		for (int i = 0; i < 200000; i++) {
+			// small key space: many duplicates and colliding probe sequences
+			String id = Long.toString(random.nextInt(5000) * 4096L);
+			assertEquals(reference.add(id), history.add(id));
+			if (reference.size() > capacity) {
+				Iterator<String> oldest = reference.iterator();
+				oldest.next();
+				oldest.remove();
+			}
+
+			String probe = Long.toString(random.nextInt(5000) * 4096L);
+			assertEquals(reference.contains(probe), history.contains(probe));
+		}
+		assertEquals(reference.size(), history.size());
+		for (String id : reference) {
+			assertTrue(history.contains(id));
+		}
+	}
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.social.util.OrderedCompletionTracker;
+import org.junit.Test;
+
+public class TestSocialParallelDispatch extends AbstractSocialRouteTestSupport {
+
+	private final List<String> sinceIds = new CopyOnWriteArrayList<String>();
+	private final List<String> processed = new CopyOnWriteArrayList<String>();
+	private final List<String> threads = new CopyOnWriteArrayList<String>();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		String since = request.getParameter("since_id");
+		sinceIds.add(String.valueOf(since));
+
+		// six statuses, newest first, alice wrote the odd ones
+		StringBuilder body = new StringBuilder("<statuses type=\"array\">");
+		int oldest = since == null ? 1 : Integer.parseInt(since) + 1;
+		for (int id = 6; id >= oldest; id--) {
+			body.append("<status><id>").append(id).append("</id><user><screen_name>")
+					.append(id % 2 == 1 ? "alice" : "bob").append("</screen_name></user></status>");
+		}
+		response.setContentType("application/xml");
+		response.getWriter().write(body.append("</statuses>").toString());
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		release.countDown();
+		super.tearDown();
+	}
+
+	private void startRoute(final String options) throws Exception {
+		context.addRoutes(new RouteBuilder() {
+			@Override
+			public void configure() throws Exception {
+				from("social://twitter/public?poll=true&skipRead=true" + options
+						+ "&dispatchThreads=4&dispatchOrderByLanguage=xpath"
+						+ "&dispatchOrderBy=/status/user/screen_name"
+						+ "&rateLimit=-1&initialDelay=0&delay=50&apiUrl=" + apiUrl).process(
+						new Processor() {
+							public void process(Exchange exchange) throws Exception {
+								String id = exchange.getIn().getHeader(SocialHeaders.SOCIAL_DATA_ID,
+										String.class);
+								if ("1".equals(id)) {
+									release.await(10, TimeUnit.SECONDS);
+								}
+								threads.add(Thread.currentThread().getName());
+								processed.add(id);
+							}
+						});
+			}
+		});
+	}
+
+	@Test
+	public void testWatermarkWaitsForEarlierItems() throws Exception {
+		startRoute("&emitOldestFirst=true");
+		assertWatermarkWaitsForEarlierItems();
+	}
+
+	@Test
+	public void testWatermarkWaitsForEarlierItemsNewestFirst() throws Exception {
+		// dispatched oldest first all the same, else the newest id would be
+		// committed while older ones are in flight
+		startRoute("");
+		assertWatermarkWaitsForEarlierItems();
+	}
+
+	private void assertWatermarkWaitsForEarlierItems() throws Exception {
+		waitFor(3);
+		// a few more polls while the first status is still in flight
+		int polls = sinceIds.size();
+		while (sinceIds.size() < polls + 3) {
+			Thread.sleep(20);
+		}
+
+		// bob's statuses went through, alice's wait behind the first one
+		assertEquals(Arrays.asList("2", "4", "6"), processed);
+		// nothing committed past the item in flight, nothing dispatched twice
+		assertFalse(sinceIds.toString(), sinceIds.contains("1"));
+		assertTrue(sinceIds.toString(), Collections.frequency(sinceIds, "null") == sinceIds.size());
+
+		release.countDown();
+		waitFor(6);
+		while (!sinceIds.contains("6")) {
+			Thread.sleep(20);
+		}
+		Thread.sleep(200);
+
+		List<String> alice = new ArrayList<String>();
+		for (String id : processed) {
+			if (Integer.parseInt(id) % 2 == 1) {
+				alice.add(id);
+			}
+		}
+		assertEquals(Arrays.asList("1", "3", "5"), alice);
+		assertEquals(6, processed.size());
+		for (String thread : threads) {
+			assertTrue(thread, thread.contains("SocialDispatcher"));
+		}
+	}
+
+	private void waitFor(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (processed.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(processed.toString(), count, processed.size());
+	}
+
+	@Test
+	public void testTrackerCommitsContiguousPrefix() throws Exception {
+		OrderedCompletionTracker tracker = new OrderedCompletionTracker();
+		long a = tracker.dispatch("a");
+		long b = tracker.dispatch("b");
+		long c = tracker.dispatch("c");
+
+		assertEquals(Collections.emptyList(), tracker.complete(c));
+		assertTrue(tracker.isPending("c"));
+		assertEquals(Arrays.asList("a"), tracker.complete(a));
+		assertFalse(tracker.isPending("a"));
+		assertEquals(Arrays.asList("b", "c"), tracker.complete(b));
+		assertEquals(0, tracker.getPendingCount());
+
+		// sequences keep growing across windows and compactions
+		long first = tracker.dispatch("first");
+		List<Long> sequences = new ArrayList<Long>();
+		for (int i = 0; i < 5000; i++) {
+			sequences.add(tracker.dispatch(Integer.toString(i)));
+		}
+		for (long sequence : sequences) {
+			assertEquals(Collections.emptyList(), tracker.complete(sequence));
+		}
+		assertEquals(5001, tracker.complete(first).size());
+
+		// commit most of a long window, then the rest once its head completes
+		sequences.clear();
+		for (int i = 0; i < 3000; i++) {
+			sequences.add(tracker.dispatch("y" + i));
+		}
+		for (int i = 0; i < 1500; i++) {
+			assertEquals(Arrays.asList("y" + i), tracker.complete(sequences.get(i)));
+		}
+		for (int i = 1501; i < 3000; i++) {
+			assertEquals(Collections.emptyList(), tracker.complete(sequences.get(i)));
+		}
+		assertEquals(1500, tracker.getPendingCount());
+		List<String> committed = tracker.complete(sequences.get(1500));
+		assertEquals(1500, committed.size());
+		assertEquals("y1500", committed.get(0));
+		assertEquals("y2999", committed.get(1499));
+		assertEquals(sequences.get(2999) + 1, tracker.dispatch("z"));
+		assertEquals(1, tracker.getPendingCount());
+	}
+
+}
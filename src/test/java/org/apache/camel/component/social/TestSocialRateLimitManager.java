@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.component.social.path.RateLimitExceededException;
+import org.apache.camel.component.social.path.RateLimitStatus;
+import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.apache.camel.component.social.path.SocialPathSessionAwareWrapper;
+import org.junit.Test;
+
+public class TestSocialRateLimitManager extends AbstractSocialServerTestSupport {
+
+	private static final SocialOAuth CONSUMER = new SocialOAuth("consumerKey", "consumerSecret");
+
+	private final AtomicInteger requests = new AtomicInteger();
+	private volatile long resetSeconds;
+	private volatile boolean refused;
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		requests.incrementAndGet();
+		// every call spends the last one of the window
+		response.setHeader("X-RateLimit-Limit", "150");
+		response.setHeader("X-RateLimit-Remaining", "0");
+		response.setHeader("X-RateLimit-Reset", Long.toString(resetSeconds));
+		if (refused) {
+			response.setStatus(400);
+			return;
+		}
+		response.setContentType("application/xml");
+		if ("POST".equals(request.getMethod())) {
+			response.getWriter().write("<status><id>2</id></status>");
+		} else {
+			response.getWriter().write(
+					"<statuses type=\"array\"><status><id>1</id></status></statuses>");
+		}
+	}
+
+	private SocialPathConsumer signedPath(String path, String token) throws Exception {
+		SocialPathConsumer socialPath = createPath(path, "&rateLimit=-1");
+		SocialPathSessionAwareWrapper.wrapper(socialPath).initSession(CONSUMER,
+				new SocialOAuth(token, "secret"));
+		return socialPath;
+	}
+
+	@Test
+	public void testBudgetSharedByPathsOfACredential() throws Exception {
+		resetSeconds = System.currentTimeMillis() / 1000 + 2;
+		SocialPathConsumer first = signedPath("public", "alice");
+		SocialPathConsumer second = signedPath("home", "alice");
+		SocialPathConsumer other = signedPath("home", "bob");
+
+		first.readData(null);
+		assertEquals(1, requests.get());
+
+		// the other path of the same credential does not call out any more
+		try {
+			second.readData(null);
+			fail("Budget of the credential should be spent");
+		} catch (RateLimitExceededException e) {
+			assertTrue("Delay " + e.getDelay(), e.getDelay() > 0 && e.getDelay() <= 2000);
+		}
+		assertEquals(1, requests.get());
+
+		// other credentials keep their own budget
+		other.readData(null);
+		assertEquals(2, requests.get());
+	}
+
+	@Test
+	public void testAsyncCallParkedUntilReset() throws Exception {
+		resetSeconds = System.currentTimeMillis() / 1000 + 2;
+		SocialPathConsumer path = signedPath("public", "alice");
+		path.readData(null);
+		resetSeconds += 3600;
+
+		long start = System.currentTimeMillis();
+		path.readDataAsync(null, null, null).get(10, TimeUnit.SECONDS);
+		assertEquals(2, requests.get());
+		assertTrue(System.currentTimeMillis() - start >= 500);
+	}
+
+	@Test
+	public void testUpdateWaitsForTheBudget() throws Exception {
+		resetSeconds = System.currentTimeMillis() / 1000 + 2;
+		signedPath("public", "alice").readData(null);
+		resetSeconds += 3600;
+
+		long start = System.currentTimeMillis();
+		SocialData data = signedPath("update", "alice").updateData("status",
+				new HashMap<String, Object>());
+		assertEquals("2", data.getId());
+		assertEquals(2, requests.get());
+		assertTrue(System.currentTimeMillis() - start >= 500);
+	}
+
+	@Test
+	public void testRefusedReadWaitsUntilTheReset() throws Exception {
+		// the reset is in seconds since the epoch, not a delay
+		resetSeconds = System.currentTimeMillis() / 1000 + 60;
+		refused = true;
+		try {
+			signedPath("public", "alice").readData(null);
+			fail("Read should be refused");
+		} catch (RateLimitExceededException e) {
+			assertTrue("Delay " + e.getDelay(), e.getDelay() > 55000 && e.getDelay() <= 60000);
+		}
+
+		long wait = component.getRateLimitManager().tryAcquire(
+				SocialRateLimitManager.key("twitter", "alice"));
+		assertTrue("Wait " + wait, wait > 55000 && wait <= 60000);
+	}
+
+	@Test
+	public void testSeededBucket() throws Exception {
+		SocialRateLimitManager manager = component.getRateLimitManager();
+		String key = SocialRateLimitManager.key("twitter", "carol");
+		manager.configure(key, 2, 60000);
+		manager.configure(key, 100, 60000);
+
+		assertEquals(0, manager.tryAcquire(key));
+		assertEquals(0, manager.tryAcquire(key));
+		long wait = manager.tryAcquire(key);
+		assertTrue("Wait " + wait, wait > 0 && wait <= 30000);
+		assertEquals(0, manager.getRemaining(key));
+
+		// the provider knows better
+		manager.update(key, new RateLimitStatus(150, 10, System.currentTimeMillis() + 60000,
+				System.currentTimeMillis()));
+		assertEquals(10, manager.getRemaining(key));
+		assertEquals(0, manager.tryAcquire(key));
+
+		assertEquals(-1, manager.getRemaining(SocialRateLimitManager.key("twitter", "dave")));
+		assertEquals(0, manager.tryAcquire(SocialRateLimitManager.key("twitter", "dave")));
+	}
+
+	@Test
+	public void testParkedTasksRunOnSharedScheduler() throws Exception {
+		SocialRateLimitManager manager = component.getRateLimitManager();
+		String key = SocialRateLimitManager.key("twitter", "erin");
+		manager.block(key, System.currentTimeMillis() + 300);
+
+		final CountDownLatch ran = new CountDownLatch(3);
+		final String[] threads = new String[3];
+		for (int i = 0; i < 3; i++) {
+			final int index = i;
+			manager.acquire(key, new Runnable() {
+				public void run() {
+					threads[index] = Thread.currentThread().getName();
+					ran.countDown();
+				}
+			});
+		}
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+		assertEquals(threads[0], threads[1]);
+		assertEquals(threads[0], threads[2]);
+		assertTrue(threads[0], threads[0].contains("SocialRateLimit"));
+	}
+
+}
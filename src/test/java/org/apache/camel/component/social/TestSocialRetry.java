@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.component.social.path.CircuitOpenException;
+import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.apache.camel.component.social.path.SocialPathSessionAware;
+import org.junit.Test;
+
+public class TestSocialRetry extends AbstractSocialServerTestSupport {
+
+	private static final String STATUSES = "<statuses type=\"array\"><status><id>2</id></status>"
+			+ "<status><id>1</id></status></statuses>";
+
+	private final AtomicInteger requests = new AtomicInteger();
+	private volatile int failures;
+	private final List<String> nonces = new CopyOnWriteArrayList<String>();
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		String authorization = request.getHeader("Authorization");
+		if (authorization != null) {
+			nonces.add(authorization.replaceAll(".*oauth_nonce=\"([^\"]*)\".*", "$1"));
+		}
+		if (requests.incrementAndGet() <= failures) {
+			response.setStatus(503);
+			return;
+		}
+		response.setContentType("application/xml");
+		if (target.equals("/statuses/update.xml")) {
+			response.getWriter().write("<status><id>42</id></status>");
+		} else {
+			response.getWriter().write(STATUSES);
+		}
+	}
+
+	private SocialEndpoint endpoint(String path, String options) {
+		return context.getEndpoint(signedUri(path, "&retryDelay=20" + options), SocialEndpoint.class);
+	}
+
+	private static void readFailing(SocialPathConsumer path) throws Exception {
+		try {
+			path.readData(null, null);
+			fail("read a 503");
+		} catch (SocialDataFetchError e) {
+			// the last 503 is left to the path
+		}
+	}
+
+	@Test
+	public void testRetriesReads() throws Exception {
+		SocialEndpoint endpoint = endpoint("public", "");
+		SocialPathConsumer path = endpoint.createSocialPath();
+		failures = 2;
+
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(3, requests.get());
+		assertEquals(2, endpoint.getRetryPolicy().getRetryCount());
+	}
+
+	@Test
+	public void testRetriesAsyncReads() throws Exception {
+		SocialEndpoint endpoint = endpoint("public", "");
+		SocialPathConsumer path = endpoint.createSocialPath();
+		failures = 1;
+
+		assertEquals(2, count(path.readDataAsync(null, null, null).get(10, TimeUnit.SECONDS)));
+		assertEquals(2, requests.get());
+		assertEquals(1, endpoint.getRetryPolicy().getRetryCount());
+	}
+
+	private SocialPathConsumer signedIn(SocialEndpoint endpoint) throws Exception {
+		SocialPathConsumer path = endpoint.createSocialPath();
+		((SocialPathSessionAware) path).initSession(endpoint.getOAuthConsumer(null), endpoint
+				.getOAuthUser(null));
+		return path;
+	}
+
+	@Test
+	public void testSignedRetriesCarryFreshNonces() throws Exception {
+		SocialEndpoint endpoint = endpoint("home", "");
+		String key = SocialRateLimitManager.key("twitter", "token");
+		component.getRateLimitManager().configure(key, 10, 60000);
+		SocialPathConsumer path = signedIn(endpoint);
+		failures = 2;
+
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(3, requests.get());
+		assertEquals(3, new HashSet<String>(nonces).size());
+		// the retries took their calls from the budget too
+		assertEquals(7, component.getRateLimitManager().getRemaining(key));
+	}
+
+	@Test
+	public void testSignedAsyncRetriesCarryFreshNonces() throws Exception {
+		SocialEndpoint endpoint = endpoint("home", "");
+		String key = SocialRateLimitManager.key("twitter", "token");
+		component.getRateLimitManager().configure(key, 10, 60000);
+		SocialPathConsumer path = signedIn(endpoint);
+		failures = 2;
+
+		assertEquals(2, count(path.readDataAsync(null, null, null).get(10, TimeUnit.SECONDS)));
+		assertEquals(3, requests.get());
+		assertEquals(3, new HashSet<String>(nonces).size());
+		assertEquals(7, component.getRateLimitManager().getRemaining(key));
+	}
+
+	@Test
+	public void testGivesUp() throws Exception {
+		SocialEndpoint endpoint = endpoint("public", "&maxRetries=1");
+		SocialPathConsumer path = endpoint.createSocialPath();
+		failures = 5;
+
+		readFailing(path);
+		assertEquals(2, requests.get());
+		assertEquals(1, endpoint.getRetryPolicy().getExhaustedCount());
+	}
+
+	@Test
+	public void testUpdatesAreNotRetried() throws Exception {
+		SocialEndpoint endpoint = endpoint("update", "");
+		SocialPathConsumer path = signedIn(endpoint);
+		failures = 1;
+
+		try {
+			path.updateData("hello", new HashMap<String, Object>());
+			fail("updated");
+		} catch (SocialDataFetchError e) {
+			assertEquals(503, e.getStatusCode());
+		}
+		assertEquals(1, requests.get());
+		assertEquals(0, endpoint.getRetryPolicy().getRetryCount());
+	}
+
+	@Test
+	public void testCircuitOpensAndRecovers() throws Exception {
+		component.setCircuitFailureThreshold(2);
+		component.setCircuitOpenTime(300);
+		SocialPathConsumer path = endpoint("public", "&maxRetries=0").createSocialPath();
+		failures = 2;
+
+		readFailing(path);
+		readFailing(path);
+		try {
+			path.readData(null, null);
+			fail("circuit not open");
+		} catch (CircuitOpenException e) {
+			assertEquals("localhost:" + server.getPort(), e.getHost());
+		}
+		assertEquals(2, requests.get());
+		assertEquals(1, component.getCircuitBreaker().getOpenCircuitCount());
+		assertEquals(1, component.getCircuitBreaker().getRejectedCount());
+
+		// after the open time a trial call goes through and closes it
+		Thread.sleep(350);
+		assertEquals(2, count(path.readData(null, null)));
+		assertEquals(0, component.getCircuitBreaker().getOpenCircuitCount());
+		assertEquals(1, component.getCircuitBreaker().getTripCount());
+	}
+
+	@Test
+	public void testBackoffDelays() throws Exception {
+		SocialRetryPolicy policy = new SocialRetryPolicy();
+		policy.setDelay(100);
+		policy.setMaxDelay(350);
+		policy.setJitter(0);
+		assertEquals(100, policy.getDelay(1));
+		assertEquals(200, policy.getDelay(2));
+		assertEquals(350, policy.getDelay(3));
+		assertEquals(350, policy.getDelay(30));
+
+		policy.setJitter(0.5);
+		for (int i = 0; i < 100; i++) {
+			long delay = policy.getDelay(2);
+			assertTrue(delay > 100 && delay <= 200);
+		}
+	}
+
+}
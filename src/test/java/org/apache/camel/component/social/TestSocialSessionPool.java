@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.social.SocialSessionPool.PooledSession;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.Test;
+
+public class TestSocialSessionPool extends AbstractSocialServerTestSupport {
+
+	private String uri;
+	private final Set<String> tokens = new HashSet<String>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		uri = signedUri("update", "");
+	}
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		String authorization = request.getHeader("Authorization");
+		synchronized (tokens) {
+			tokens.add(authorization.replaceAll(".*oauth_token=\"([^\"]*)\".*", "$1"));
+		}
+		response.setContentType("application/xml");
+		response.getWriter().write("<status><id>42</id><text>" + request.getParameter("status")
+				+ "</text></status>");
+	}
+
+	@Test
+	public void testProducerReusesSessions() throws Exception {
+		final ProducerTemplate template = context.createProducerTemplate();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Object>> sent = new ArrayList<Future<Object>>();
+		for (int i = 0; i < 40; i++) {
+			final String text = "status " + i;
+			sent.add(executor.submit(new Callable<Object>() {
+				public Object call() throws Exception {
+					template.sendBody(uri, text);
+					return null;
+				}
+			}));
+		}
+		for (Future<Object> f : sent) {
+			f.get();
+		}
+		executor.shutdown();
+
+		SocialSessionPool pool = component.getSessionPool();
+		assertTrue("one session per message: " + pool, pool.getCreatedCount() <= 4);
+		assertEquals(40, pool.getCreatedCount() + pool.getHitCount());
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(pool.getCreatedCount(), pool.getIdleCount());
+		assertEquals(0, pool.getEndedCount());
+	}
+
+	@Test
+	public void testSessionsPerCredentials() throws Exception {
+		ProducerTemplate template = context.createProducerTemplate();
+		template.sendBody(uri, "first");
+		template.sendBodyAndHeader(uri, "second", SocialHeaders.SOCIAL_USER_OAUTH, new SocialOAuth(
+				"other", "otherSecret"));
+		template.sendBodyAndHeader(uri, "third", SocialHeaders.SOCIAL_USER_OAUTH, new SocialOAuth(
+				"other", "otherSecret"));
+
+		SocialSessionPool pool = component.getSessionPool();
+		assertEquals(2, pool.getCreatedCount());
+		assertEquals(1, pool.getHitCount());
+		assertEquals(2, tokens.size());
+		assertTrue(tokens.contains("other"));
+	}
+
+	@Test
+	public void testMaxIdleAndEviction() throws Exception {
+		SocialEndpoint endpoint = context.getEndpoint(uri, SocialEndpoint.class);
+		SocialSessionPool pool = component.getSessionPool();
+		pool.setMaxIdleSessions(2);
+
+		List<PooledSession> sessions = new ArrayList<PooledSession>();
+		for (int i = 0; i < 3; i++) {
+			sessions.add(pool.borrow(endpoint, endpoint.getOAuthConsumer(null), endpoint
+					.getOAuthUser(null)));
+		}
+		assertEquals(3, pool.getActiveCount());
+		for (PooledSession session : sessions) {
+			pool.release(session);
+		}
+		assertEquals(2, pool.getIdleCount());
+		assertEquals(1, pool.getEndedCount());
+
+		// the most recently released is handed out first
+		PooledSession session = pool.borrow(endpoint, endpoint.getOAuthConsumer(null), endpoint
+				.getOAuthUser(null));
+		assertSame(sessions.get(2), session);
+		pool.invalidate(session);
+		assertEquals(2, pool.getEndedCount());
+
+		pool.setIdleTimeout(0);
+		pool.evictIdleSessions();
+		assertEquals(0, pool.getIdleCount());
+		assertEquals(3, pool.getEndedCount());
+	}
+
+	@Test
+	public void testTimeToLive() throws Exception {
+		SocialEndpoint endpoint = context.getEndpoint(uri, SocialEndpoint.class);
+		SocialSessionPool pool = component.getSessionPool();
+
+		PooledSession session = pool.borrow(endpoint, endpoint.getOAuthConsumer(null), endpoint
+				.getOAuthUser(null));
+		pool.release(session);
+		assertSame(session, pool.borrow(endpoint, endpoint.getOAuthConsumer(null), endpoint
+				.getOAuthUser(null)));
+		pool.release(session);
+		assertEquals(1, pool.getHitCount());
+		assertEquals(1, pool.getMissCount());
+
+		// used all along, but signed in for too long
+		Thread.sleep(20);
+		pool.setTimeToLive(10);
+		PooledSession renewed = pool.borrow(endpoint, endpoint.getOAuthConsumer(null), endpoint
+				.getOAuthUser(null));
+		assertNotSame(session, renewed);
+		assertEquals(1, pool.getEndedCount());
+		assertEquals(2, pool.getMissCount());
+
+		Thread.sleep(20);
+		pool.release(renewed);
+		assertEquals(0, pool.getIdleCount());
+		assertEquals(2, pool.getEndedCount());
+		assertEquals(1.0 / 3, pool.getHitRatio(), 0.0001);
+	}
+
+	@Test
+	public void testConsumerReusesHeaderSessions() throws Exception {
+		final String relay = uri + "&poll=false";
+		context.addRoutes(new RouteBuilder() {
+			@Override
+			public void configure() throws Exception {
+				from(relay).to("mock:relayed");
+			}
+		});
+		MockEndpoint relayed = context.getEndpoint("mock:relayed", MockEndpoint.class);
+		relayed.expectedMessageCount(10);
+
+		ProducerTemplate template = context.createProducerTemplate();
+		for (int i = 0; i < 10; i++) {
+			template.sendBodyAndHeader(relay, "relayed " + i, SocialHeaders.SOCIAL_USER_OAUTH,
+					new SocialOAuth("user" + (i % 2), "secret"));
+		}
+		relayed.assertIsSatisfied();
+
+		// the consumer signs in each user once
+		SocialSessionPool pool = component.getSessionPool();
+		assertEquals(2, pool.getMissCount());
+		assertEquals(8, pool.getHitCount());
+		assertEquals(0, pool.getActiveCount());
+		assertTrue(tokens.contains("user0"));
+		assertTrue(tokens.contains("user1"));
+	}
+
+}
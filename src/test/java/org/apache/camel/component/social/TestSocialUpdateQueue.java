@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.social.path.RateLimitExceededException;
+import org.apache.camel.component.social.path.SocialDataCallback;
+import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.Test;
+
+public class TestSocialUpdateQueue extends AbstractSocialServerTestSupport {
+
+	private String uri;
+	private final CountDownLatch gate = new CountDownLatch(1);
+	private final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		uri = signedUri("update", "&updateQueue=true&updateRetryDelay=50");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		gate.countDown();
+		super.tearDown();
+	}
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		String status = request.getParameter("status");
+		requests.putIfAbsent(status, new AtomicInteger());
+		int attempt = requests.get(status).incrementAndGet();
+
+		if (status.equals("held")) {
+			try {
+				gate.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+			}
+		} else if (status.equals("flaky") && attempt <= 2) {
+			response.setStatus(503);
+			return;
+		} else if (status.equals("limited") && attempt == 1) {
+			response.setStatus(400);
+			response.setHeader("X-RateLimit-Limit", "150");
+			response.setHeader("X-RateLimit-Remaining", "0");
+			response.setHeader("X-RateLimit-Reset", "1");
+			return;
+		} else if (status.equals("duplicate")) {
+			response.setStatus(403);
+			return;
+		}
+		response.setContentType("application/xml");
+		response.getWriter().write("<status><id>42</id><text>" + status + "</text></status>");
+	}
+
+	private SocialProducer createProducer() throws Exception {
+		SocialProducer producer = (SocialProducer) context.getEndpoint(uri).createProducer();
+		producer.start();
+		return producer;
+	}
+
+	private Exchange send(SocialProducer producer, String status, final CountDownLatch done) {
+		Exchange exchange = new DefaultExchange(context);
+		exchange.getIn().setBody(status);
+		assertFalse(producer.process(exchange, new AsyncCallback() {
+			public void done(boolean doneSync) {
+				done.countDown();
+			}
+		}));
+		return exchange;
+	}
+
+	private int requests(String status) {
+		AtomicInteger count = requests.get(status);
+		return count != null ? count.get() : 0;
+	}
+
+	@Test
+	public void testRetriesServerErrors() throws Exception {
+		SocialProducer producer = createProducer();
+		CountDownLatch done = new CountDownLatch(1);
+		Exchange exchange = send(producer, "flaky", done);
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertNull(exchange.getException());
+		assertEquals(3, requests("flaky"));
+
+		SocialUpdateQueue queue = producer.getUpdateQueue();
+		assertEquals(1, queue.getSentCount());
+		assertEquals(2, queue.getRetriedCount());
+		assertEquals(0, queue.getFailedCount());
+		assertEquals(0, queue.getQueueSize());
+	}
+
+	@Test
+	public void testRefusedUpdateIsNotRetried() throws Exception {
+		SocialProducer producer = createProducer();
+		CountDownLatch done = new CountDownLatch(1);
+		Exchange exchange = send(producer, "duplicate", done);
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertTrue(exchange.getException() instanceof SocialDataFetchError);
+		assertEquals(403, ((SocialDataFetchError) exchange.getException()).getStatusCode());
+		assertEquals(1, requests("duplicate"));
+		assertEquals(1, producer.getUpdateQueue().getFailedCount());
+	}
+
+	@Test
+	public void testRateLimitedUpdateWaitsForReset() throws Exception {
+		SocialProducer producer = createProducer();
+		CountDownLatch done = new CountDownLatch(1);
+		long start = System.currentTimeMillis();
+		Exchange exchange = send(producer, "limited", done);
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertNull(exchange.getException());
+		assertEquals(2, requests("limited"));
+		// the retry was held back until the reported reset
+		assertTrue(System.currentTimeMillis() - start >= 900);
+		assertTrue(SocialUpdateQueue.isRetryable(new SocialDataFetchError(
+				new RateLimitExceededException(1000))));
+	}
+
+	@Test
+	public void testCoalescesPendingUpdates() throws Exception {
+		SocialProducer producer = createProducer();
+		CountDownLatch done = new CountDownLatch(5);
+		List<Exchange> exchanges = new ArrayList<Exchange>();
+		exchanges.add(send(producer, "held", done));
+		for (int i = 0; i < 4; i++) {
+			exchanges.add(send(producer, "same", done));
+		}
+
+		SocialUpdateQueue queue = producer.getUpdateQueue();
+		assertEquals(2, queue.getQueueSize());
+		assertEquals(3, queue.getCoalescedCount());
+
+		gate.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (Exchange exchange : exchanges) {
+			assertNull(exchange.getException());
+		}
+		assertEquals(1, requests("same"));
+		assertEquals(2, queue.getSentCount());
+		assertTrue(queue.getThroughput() > 0);
+	}
+
+	@Test
+	public void testCoalescedUpdatesGetTheOutcome() throws Exception {
+		final CountDownLatch held = new CountDownLatch(1);
+		final List<SocialDataCallback<SocialData>> heldCallbacks = new ArrayList<SocialDataCallback<SocialData>>();
+		SocialUpdateQueue queue = new SocialUpdateQueue(context, new SocialUpdateQueue.Sender() {
+			public void send(Exchange exchange, SocialDataCallback<SocialData> callback) {
+				if ("held".equals(exchange.getIn().getBody())) {
+					heldCallbacks.add(callback);
+					held.countDown();
+					return;
+				}
+				exchange.getIn().setHeader(SocialHeaders.SOCIAL_BULK_RESULT, "result");
+				exchange.getIn().setBody("sent");
+				callback.onData(null);
+			}
+		});
+		queue.start();
+		try {
+			CountDownLatch done = new CountDownLatch(4);
+			offer(queue, "held", done);
+			List<Exchange> exchanges = new ArrayList<Exchange>();
+			for (int i = 0; i < 3; i++) {
+				exchanges.add(offer(queue, "same", done));
+			}
+			exchanges.get(2).getIn().setHeader("own", "kept");
+			assertEquals(2, queue.getCoalescedCount());
+
+			assertTrue(held.await(10, TimeUnit.SECONDS));
+			heldCallbacks.get(0).onData(null);
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			for (Exchange exchange : exchanges) {
+				assertNull(exchange.getException());
+				assertEquals("result", exchange.getIn().getHeader(SocialHeaders.SOCIAL_BULK_RESULT));
+				assertEquals("sent", exchange.getIn().getBody());
+			}
+			assertEquals("kept", exchanges.get(2).getIn().getHeader("own"));
+		} finally {
+			queue.stop();
+		}
+	}
+
+	private Exchange offer(SocialUpdateQueue queue, String status, final CountDownLatch done) {
+		Exchange exchange = new DefaultExchange(context);
+		exchange.getIn().setBody(status);
+		assertTrue(queue.offer("credential", exchange, new AsyncCallback() {
+			public void done(boolean doneSync) {
+				done.countDown();
+			}
+		}));
+		return exchange;
+	}
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.ProducerTemplate;
+import org.junit.Test;
+
+public class TestSocialWarmUp extends AbstractSocialServerTestSupport {
+
+	private String uri;
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		uri = signedUri("update", "");
+	}
+
+	@Override
+	protected void configureComponent(SocialComponent component) {
+		component.setWarmUpStagger(0);
+	}
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		requests.incrementAndGet();
+		response.setContentType("application/xml");
+		response.getWriter().write("<status><id>42</id><text>" + request.getParameter("status")
+				+ "</text></status>");
+	}
+
+	@Test
+	public void testWarmUpOnProducerStart() throws Exception {
+		String warmed = uri + "&warmUp=true&warmUpConnections=3";
+		ProducerTemplate template = context.createProducerTemplate();
+		context.getEndpoint(warmed).createProducer().start();
+
+		Future<Boolean> warmUp = context.getEndpoint(warmed, SocialEndpoint.class).warmUp();
+		assertTrue(warmUp.get(10, TimeUnit.SECONDS));
+		assertSame(warmUp, context.getEndpoint(warmed, SocialEndpoint.class).warmUp());
+		assertEquals(1, component.getWarmUp().getWarmedUpCount());
+
+		// connected and signed in, but nothing sent
+		assertEquals(0, requests.get());
+		assertEquals(3, component.getConnectionPool().getConnectionsInPool());
+		SocialSessionPool sessions = component.getSessionPool();
+		assertEquals(1, sessions.getIdleCount());
+
+		template.sendBody(warmed, "first");
+		assertEquals(1, requests.get());
+		assertEquals(1, sessions.getMissCount());
+		assertEquals(1, sessions.getHitCount());
+		assertEquals(3, component.getConnectionPool().getConnectionsInPool());
+	}
+
+	@Test
+	public void testDisabledByDefault() throws Exception {
+		context.getEndpoint(uri).createProducer().start();
+		assertNull(context.getEndpoint(uri, SocialEndpoint.class).warmUp());
+		assertEquals(0, component.getConnectionPool().getConnectionsInPool());
+	}
+
+	@Test
+	public void testFailedWarmUpIsOnlyLogged() throws Exception {
+		ServerSocket socket = new ServerSocket(0);
+		int closedPort = socket.getLocalPort();
+		socket.close();
+
+		String unreachable = uri.replaceAll("localhost:\\d+", "localhost:" + closedPort)
+				+ "&warmUp=true";
+		context.getEndpoint(unreachable).createProducer().start();
+
+		assertFalse(context.getEndpoint(unreachable, SocialEndpoint.class).warmUp().get(10,
+				TimeUnit.SECONDS));
+		assertEquals(1, component.getWarmUp().getFailedCount());
+		assertEquals(0, component.getSessionPool().getIdleCount());
+	}
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.junit.Test;
+
+public class TestTwitterBackfill extends AbstractSocialServerTestSupport {
+
+	private static final int NEWEST = 1000;
+
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		requests.incrementAndGet();
+		int now = inFlight.incrementAndGet();
+		while (now > maxInFlight.get() && !maxInFlight.compareAndSet(maxInFlight.get(), now)) {
+		}
+		try {
+			Thread.sleep(20);
+		} catch (InterruptedException e) {
+		} finally {
+			inFlight.decrementAndGet();
+		}
+
+		if (target.equals("/statuses/public_timeline.xml")) {
+			// statuses are the multiples of 3, newest first
+			long since = param(request, "since_id", 0);
+			long max = param(request, "max_id", NEWEST);
+			int count = (int) param(request, "count", 20);
+			StringBuilder body = new StringBuilder("<statuses type=\"array\">");
+			int n = 0;
+			for (long id = max - max % 3; id > since && n < count; id -= 3, n++) {
+				body.append("<status><id>").append(id).append("</id></status>");
+			}
+			response.setContentType("application/xml");
+			response.getWriter().write(body.append("</statuses>").toString());
+		} else if (target.equals("/search.json")) {
+			long since = param(request, "since_id", 0);
+			int page = (int) param(request, "page", 1);
+			int rpp = (int) param(request, "rpp", 15);
+			StringBuilder body = new StringBuilder("{\"results\":[");
+			long id = NEWEST - (page - 1) * rpp;
+			for (int n = 0; n < rpp && id > since; n++, id--) {
+				body.append(n > 0 ? "," : "").append("{\"id_str\":\"").append(id).append("\"}");
+			}
+			response.setContentType("application/json");
+			response.getWriter().write(body.append("]}").toString());
+		} else {
+			response.setStatus(404);
+		}
+	}
+
+	private static long param(HttpServletRequest request, String name, long defaultValue) {
+		String value = request.getParameter(name);
+		return value != null ? Long.parseLong(value) : defaultValue;
+	}
+
+	private static List<Long> ids(Iterable<SocialData> data) {
+		List<Long> ids = new ArrayList<Long>();
+		for (SocialData sd : data) {
+			ids.add(Long.valueOf(sd.getId()));
+		}
+		return ids;
+	}
+
+	@Test
+	public void testTimelineBackfillReachesSinceId() throws Exception {
+		SocialPathConsumer path = createPath("public", "&backfill=true&backfillParallelism=4");
+
+		List<Long> ids = ids(path.readData("100", null));
+
+		List<Long> expected = new ArrayList<Long>();
+		for (long id = NEWEST - NEWEST % 3; id > 100; id -= 3) {
+			expected.add(id);
+		}
+		assertEquals(expected, ids);
+		assertTrue("backfill requests were not concurrent", maxInFlight.get() > 1);
+	}
+
+	@Test
+	public void testBackfillIsBounded() throws Exception {
+		SocialPathConsumer path = createPath("public", "&backfill=true&maxBackfillPages=3");
+
+		List<Long> ids = ids(path.readData("100", null));
+		assertEquals(3, requests.get());
+		assertTrue(ids.size() <= 60);
+		assertEquals(Long.valueOf(999), ids.get(0));
+	}
+
+	@Test
+	public void testNoBackfillWithoutFullPage() throws Exception {
+		SocialPathConsumer path = createPath("public", "&backfill=true");
+
+		assertEquals(5, ids(path.readData("984", null)).size());
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	public void testSearchBackfillWalksPages() throws Exception {
+		SocialPathConsumer path = createPath("search", "&backfill=true&backfillParallelism=3");
+
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("q", "camel");
+		List<Long> ids = ids(path.readData("900", params));
+
+		assertEquals(100, ids.size());
+		assertEquals(Long.valueOf(NEWEST), ids.get(0));
+		assertEquals(Long.valueOf(901), ids.get(99));
+	}
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.component.social.path.SocialDataFetchError;
+import org.apache.camel.component.social.path.SocialPathConsumer;
+import org.apache.camel.component.social.path.SocialPathSessionAware;
+import org.junit.Test;
+
+public class TestTwitterBulkDelete extends AbstractSocialServerTestSupport {
+
+	private String uri;
+	private final Set<String> deleted = Collections.synchronizedSet(new HashSet<String>());
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		uri = signedUri("delete", "&bulkParallelism=3");
+	}
+
+	@Override
+	protected void handle(String target, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		int now = inFlight.incrementAndGet();
+		while (now > maxInFlight.get() && !maxInFlight.compareAndSet(maxInFlight.get(), now)) {
+		}
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+		} finally {
+			inFlight.decrementAndGet();
+		}
+
+		String id = target.replaceAll("^/statuses/destroy/(\\d+)\\.xml$", "$1");
+		if (!"POST".equals(request.getMethod()) || id.equals(target)
+				|| Long.parseLong(id) % 7 == 0) {
+			response.setStatus(404);
+			return;
+		}
+		deleted.add(id);
+		response.setContentType("application/xml");
+		response.getWriter().write("<status><id>" + id + "</id></status>");
+	}
+
+	private SocialPathConsumer createPath() throws Exception {
+		SocialEndpoint endpoint = context.getEndpoint(uri, SocialEndpoint.class);
+		SocialPathConsumer path = endpoint.createSocialPath();
+		((SocialPathSessionAware) path).initSession(endpoint.getOAuthConsumer(null), endpoint
+				.getOAuthUser(null));
+		return path;
+	}
+
+	@Test
+	public void testConcurrentDeletesShareNoState() throws Exception {
+		SocialPathConsumer path = createPath();
+		List<Future<SocialData>> futures = new ArrayList<Future<SocialData>>();
+		Set<String> expected = new HashSet<String>();
+		for (int id = 1; id <= 20; id++) {
+			if (id % 7 != 0) {
+				expected.add(String.valueOf(id));
+			}
+			Map<String, Object> headers = Collections.<String, Object> singletonMap(
+					SocialHeaders.SOCIAL_DATA_ID, id);
+			futures.add(path.updateDataAsync("ignored", headers, null));
+		}
+
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				assertEquals(String.valueOf(i + 1), futures.get(i).get(10, TimeUnit.SECONDS)
+						.getId());
+			} catch (Exception e) {
+				assertEquals(0, (i + 1) % 7);
+			}
+		}
+		assertEquals(expected, deleted);
+	}
+
+	@Test
+	public void testBulkDelete() throws Exception {
+		SocialPathConsumer path = createPath();
+		List<Object> items = new ArrayList<Object>();
+		for (long id = 1; id <= 30; id++) {
+			items.add(id % 2 == 0 ? new DefaultSocialData(String.valueOf(id), null) : id);
+		}
+
+		SocialData data = path.updateData(items, Collections.<String, Object> emptyMap());
+		SocialBulkResult result = (SocialBulkResult) data.getData();
+
+		assertEquals(30, result.size());
+		assertEquals(26, result.getSucceeded().size());
+		assertEquals(new HashSet<String>(result.getSucceeded().keySet()), deleted);
+		assertEquals(new HashSet<String>(Arrays.asList("7", "14", "21", "28")),
+				result.getFailed().keySet());
+		assertEquals(404, ((SocialDataFetchError) result.getFailed().get("14")).getStatusCode());
+		assertTrue(maxInFlight.get() <= 3);
+		assertTrue("deletes were not concurrent", maxInFlight.get() > 1);
+	}
+
+	@Test
+	public void testProducerSetsBulkResult() throws Exception {
+		Exchange exchange = context.createProducerTemplate().send(uri, new Processor() {
+			public void process(Exchange exchange) throws Exception {
+				exchange.getIn().setBody(new String[] {"1", "7"});
+			}
+		});
+
+		assertNull(exchange.getException());
+		SocialBulkResult result = exchange.getIn().getHeader(SocialHeaders.SOCIAL_BULK_RESULT,
+				SocialBulkResult.class);
+		assertEquals(Collections.singleton("1"), result.getSucceeded().keySet());
+		assertTrue(result.hasFailures());
+	}
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.camel.component.social.providers.twitter.TwitterSearchJsonDecoder;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+public class TestTwitterSearchJsonDecoder extends TestCase {
+
+	private byte[] readSearchJson() throws Exception {
+		File file = new File("search.json");
+		byte[] data = new byte[(int) file.length()];
+		FileInputStream in = new FileInputStream(file);
+		try {
+			int read = 0;
+			while (read < data.length) {
+				read += in.read(data, read, data.length - read);
+			}
+		} finally {
+			in.close();
+		}
+		return data;
+	}
+
+	@Test
+	public void testDecodeMatchesTree() throws Exception {
+		byte[] data = readSearchJson();
+		List<SocialData> decoded = new TwitterSearchJsonDecoder().decode(data, 0, data.length);
+
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode results = mapper.readTree(new String(data, "UTF-8")).get("results");
+		assertEquals(results.size(), decoded.size());
+
+		Iterator<JsonNode> expected = results.getElements();
+		for (SocialData sd : decoded) {
+			JsonNode node = expected.next();
+			assertEquals(node.get("id_str").getTextValue(), sd.getId());
+			assertEquals(node, mapper.readTree(sd.getData().toString()));
+		}
+	}
+
+	@Test
+	public void testResultsAfterOtherFields() throws Exception {
+		byte[] data = "{\"max_id\":2,\"meta\":{\"a\":[1,{\"b\":\"}\"}]},\"results\":[ {\"id\":1,\"text\":\"a}\"} ,{\"id_str\":\"2\",\"id\":2}],\"page\":1}"
+				.getBytes("UTF-8");
+		List<SocialData> decoded = new TwitterSearchJsonDecoder().decode(data, 0, data.length);
+
+		assertEquals(2, decoded.size());
+		assertEquals("1", decoded.get(0).getId());
+		assertEquals("{\"id\":1,\"text\":\"a}\"}", decoded.get(0).getData());
+		assertEquals("2", decoded.get(1).getId());
+		assertEquals("{\"id_str\":\"2\",\"id\":2}", decoded.get(1).getData());
+	}
+
+}
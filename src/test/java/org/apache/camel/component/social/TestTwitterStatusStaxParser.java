@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.social;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.apache.camel.component.social.providers.twitter.TwitterStatusStaxParser;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+public class TestTwitterStatusStaxParser extends TestCase {
+
+	private Reader statuses() throws Exception {
+		return new InputStreamReader(getClass().getResourceAsStream("/statuses.xml"), "UTF-8");
+	}
+
+	@Test
+	public void testStatusIds() throws Exception {
+		List<SocialData> list = new TwitterStatusStaxParser().parseStatuses(statuses());
+
+		assertEquals(3, list.size());
+		assertEquals("962157474742272", list.get(0).getId());
+		assertEquals("961931640836096", list.get(1).getId());
+		assertEquals("960565983838208", list.get(2).getId());
+	}
+
+	@Test
+	public void testStatusFragment() throws Exception {
+		List<SocialData> list = new TwitterStatusStaxParser().parseStatuses(statuses());
+		String xml = list.get(0).getData().toString();
+
+		Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(new InputSource(new StringReader(xml)));
+
+		assertEquals("status", doc.getDocumentElement().getNodeName());
+		assertEquals("oclaudiobr", doc.getElementsByTagName("screen_name").item(0).getTextContent());
+		assertTrue(doc.getElementsByTagName("text").item(0).getTextContent().endsWith("#tdc2010 & mais"));
+		assertTrue(doc.getElementsByTagName("source").item(0).getTextContent().startsWith("<a href="));
+	}
+
+	@Test
+	public void testSingleStatus() throws Exception {
+		String update = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><status><id>42</id><text>hi</text><user><id>7</id></user></status>";
+		SocialData data = new TwitterStatusStaxParser().parseStatus(new StringReader(update));
+
+		assertEquals("42", data.getId());
+	}
+
+}